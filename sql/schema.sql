@@ -7,3 +7,5 @@ create table item
     quantity  integer,
     primary key (id)
 );
+create index idx_item_price_id on item (price, id);
+create sequence item_id_seq;
@@ -0,0 +1,46 @@
+package hello.itemservice.repository;
+
+import hello.itemservice.domain.Item;
+import org.flywaydb.core.Flyway;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * 벤치마크용 내장 H2 메모리 DB 와 테스트 데이터
+ */
+public final class BenchmarkDataSources {
+
+    public static final int MAX_PRICE = 100_000;
+
+    private BenchmarkDataSources() {
+    }
+
+    /**
+     * Flyway 마이그레이션(db/migration)을 적용한 빈 H2 메모리 DB 를 만든다. 벤치마크(State)마다 이름이 다른 DB 를 사용한다.
+     */
+    public static EmbeddedDatabase h2() {
+        EmbeddedDatabase dataSource = new EmbeddedDatabaseBuilder()
+                .setType(EmbeddedDatabaseType.H2)
+                .generateUniqueName(true)
+                .build();
+        Flyway.configure().dataSource(dataSource).load().migrate();
+        return dataSource;
+    }
+
+    /**
+     * "item0" ~ "item{size-1}" 이름과 1 ~ MAX_PRICE 사이의 가격을 가진 상품 목록. seed 가 같으면 항상 같은 목록이다.
+     */
+    public static List<Item> items(int size, long seed) {
+        Random random = new Random(seed);
+        List<Item> items = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            items.add(new Item("item" + i, 1 + random.nextInt(MAX_PRICE), random.nextInt(100)));
+        }
+        return items;
+    }
+}
@@ -0,0 +1,138 @@
+package hello.itemservice.repository;
+
+import hello.itemservice.domain.Item;
+import hello.itemservice.repository.jdbctemplate.JdbcTemplateItemRepositoryV1;
+import hello.itemservice.repository.jdbctemplate.JdbcTemplateItemRepositoryV2;
+import hello.itemservice.repository.jdbctemplate.JdbcTemplateItemRepositoryV3;
+import hello.itemservice.repository.memory.MemoryItemRepository;
+import hello.itemservice.repository.mybatis.ItemMapper;
+import hello.itemservice.repository.mybatis.MyBatisItemRepository;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.mybatis.spring.SqlSessionFactoryBean;
+import org.mybatis.spring.SqlSessionTemplate;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ItemRepository 구현체별 save, update, findById, findAll 비용 비교
+ * NOTE : 캐시 데코레이터 없이 구현체 자체를 측정한다. DB 구현체는 내장 H2 메모리 DB 를 사용한다.
+ *  처리량(Throughput)과 지연 시간 분포(SampleTime, p50 ~ p99.99)를 함께 측정하며
+ *  build.gradle 의 jmh 설정에 따라 gc 프로파일러(할당량)가 붙고 결과는 build/results/jmh/results.json 에 저장된다.
+ *  ./gradlew jmh -Pjmh.includes=ItemRepositoryBenchmark
+ *  save 는 측정하는 동안 행이 계속 늘어나므로 tableSize 는 시작 시점의 행 수이다.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ItemRepositoryBenchmark {
+
+    @Param({"memory", "v1", "v2", "v3", "mybatis"})
+    String impl;
+
+    @Param({"1000", "100000"})
+    int tableSize;
+
+    EmbeddedDatabase dataSource;
+    ItemRepository repository;
+    long minId;
+
+    @Setup
+    public void setUp() throws Exception {
+        repository = createRepository();
+        List<Item> saved = repository.saveAll(BenchmarkDataSources.items(tableSize, 42));
+        minId = saved.get(0).getId();
+    }
+
+    @TearDown
+    public void tearDown() {
+        if (dataSource != null) {
+            dataSource.shutdown();
+        }
+    }
+
+    @Benchmark
+    public Item save() {
+        return repository.save(new Item("bench", 5000, 1));
+    }
+
+    @Benchmark
+    public long update() {
+        long id = randomId();
+        repository.update(id, new ItemUpdateDto("item", ThreadLocalRandom.current().nextInt(1, BenchmarkDataSources.MAX_PRICE), 1));
+        return id;
+    }
+
+    @Benchmark
+    public Item findById() {
+        return repository.findById(randomId()).orElse(null);
+    }
+
+    @Benchmark
+    public List<Item> findAllNone() {
+        return repository.findAll(new ItemSearchCond());
+    }
+
+    @Benchmark
+    public List<Item> findAllByName() {
+        //"item" + 숫자 두 자리 : 약 1/100 의 행이 일치한다.
+        return repository.findAll(new ItemSearchCond("item" + ThreadLocalRandom.current().nextInt(10, 100), null));
+    }
+
+    @Benchmark
+    public List<Item> findAllByPrice() {
+        //가격 상한 1% : 약 1/100 의 행이 일치한다.
+        return repository.findAll(new ItemSearchCond(null, BenchmarkDataSources.MAX_PRICE / 100));
+    }
+
+    @Benchmark
+    public List<Item> findAllByNameAndPrice() {
+        return repository.findAll(new ItemSearchCond("item" + ThreadLocalRandom.current().nextInt(1, 10), BenchmarkDataSources.MAX_PRICE / 10));
+    }
+
+    private long randomId() {
+        return minId + ThreadLocalRandom.current().nextInt(tableSize);
+    }
+
+    private ItemRepository createRepository() throws Exception {
+        if ("memory".equals(impl)) {
+            return new MemoryItemRepository();
+        }
+        dataSource = BenchmarkDataSources.h2();
+        switch (impl) {
+            case "v1":
+                return new JdbcTemplateItemRepositoryV1(dataSource);
+            case "v2":
+                return new JdbcTemplateItemRepositoryV2(dataSource);
+            case "v3":
+                return new JdbcTemplateItemRepositoryV3(dataSource);
+            case "mybatis":
+                SqlSessionFactory sqlSessionFactory = sqlSessionFactory();
+                ItemMapper itemMapper = new SqlSessionTemplate(sqlSessionFactory).getMapper(ItemMapper.class);
+                return new MyBatisItemRepository(itemMapper, sqlSessionFactory);
+            default:
+                throw new IllegalArgumentException("unknown impl: " + impl);
+        }
+    }
+
+    /**
+     * application.properties 의 mybatis 설정과 같게 SqlSessionFactory 를 직접 만든다.
+     */
+    private SqlSessionFactory sqlSessionFactory() throws Exception {
+        org.apache.ibatis.session.Configuration configuration = new org.apache.ibatis.session.Configuration();
+        configuration.setMapUnderscoreToCamelCase(true);
+        SqlSessionFactoryBean factoryBean = new SqlSessionFactoryBean();
+        factoryBean.setDataSource(dataSource);
+        factoryBean.setConfiguration(configuration);
+        factoryBean.setTypeAliasesPackage("hello.itemservice.domain");
+        factoryBean.setMapperLocations(new ClassPathResource("hello/itemservice/repository/mybatis/itemMapper.xml"));
+        return factoryBean.getObject();
+    }
+}
@@ -0,0 +1,72 @@
+package hello.itemservice.repository.durable;
+
+import hello.itemservice.repository.BenchmarkDataSources;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 1,000,000 개를 복구하는 시간
+ * NOTE : log 는 스냅샷 없이 로그만 다시 적용하고, snapshot 은 스냅샷만 읽는다. (비정상 종료 직후와 정상 종료 후의 재시작)
+ *  측정할 때마다 미리 만들어 둔 디렉토리를 복사해서 연다. 복사 시간은 측정에 포함되지 않는다.
+ *  ./gradlew jmh -Pjmh.includes=DurableRecoveryBenchmark
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgs = {"-Xmx2g"})
+public class DurableRecoveryBenchmark {
+
+    static final int SEGMENT_SIZE = 64 << 20;
+
+    @Param({"log", "snapshot"})
+    String source;
+
+    @Param({"1000000"})
+    int rows;
+
+    Path template;
+    Path directory;
+    DurableItemRepository recovered;
+
+    @Setup(Level.Trial)
+    public void createTemplate() throws IOException {
+        template = Files.createTempDirectory("durable-template");
+        DurableItemRepository repository = new DurableItemRepository(template, false, SEGMENT_SIZE, Duration.ofMillis(10));
+        repository.saveAll(BenchmarkDataSources.items(rows, 42));
+        //log 는 닫지 않아서 스냅샷 없이 로그만 남긴다. (기록은 mmap 이므로 프로세스가 살아 있으면 파일에서 읽힌다)
+        if ("snapshot".equals(source)) {
+            repository.close();
+        }
+    }
+
+    @Setup(Level.Invocation)
+    public void copyTemplate() throws IOException {
+        directory = Files.createTempDirectory("durable-recovery");
+        FileSystemUtils.copyRecursively(template, directory);
+    }
+
+    @TearDown(Level.Invocation)
+    public void deleteCopy() throws IOException {
+        recovered = null;
+        FileSystemUtils.deleteRecursively(directory);
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteTemplate() throws IOException {
+        FileSystemUtils.deleteRecursively(template);
+    }
+
+    @Benchmark
+    public DurableItemRepository recover() {
+        recovered = new DurableItemRepository(directory, true, SEGMENT_SIZE, Duration.ofMillis(10));
+        return recovered;
+    }
+}
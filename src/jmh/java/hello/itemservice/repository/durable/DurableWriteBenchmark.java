@@ -0,0 +1,63 @@
+package hello.itemservice.repository.durable;
+
+import hello.itemservice.domain.Item;
+import hello.itemservice.repository.BenchmarkDataSources;
+import hello.itemservice.repository.ItemRepository;
+import hello.itemservice.repository.memory.MemoryItemRepository;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 로그 기록 방식에 따른 쓰기 처리량 비교 (1,000,000 개를 저장해 둔 상태에서 시작)
+ * NOTE : memory 는 로그 없음, async 는 flushInterval 마다 fsync, sync 는 쓰기마다 fsync 를 기다린다(group commit).
+ *  sync 는 동시에 기다리는 스레드가 많을수록 fsync 한 번에 여러 쓰기가 함께 반영된다.
+ *  ./gradlew jmh -Pjmh.includes=DurableWriteBenchmark
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xmx2g"})
+@Threads(8)
+public class DurableWriteBenchmark {
+
+    @Param({"memory", "async", "sync"})
+    String mode;
+
+    @Param({"1000000"})
+    int rows;
+
+    Path directory;
+    ItemRepository repository;
+
+    @Setup
+    public void setUp() throws IOException {
+        if ("memory".equals(mode)) {
+            repository = new MemoryItemRepository();
+        } else {
+            directory = Files.createTempDirectory("durable-write");
+            repository = new DurableItemRepository(directory, "sync".equals(mode), 64 << 20, Duration.ofMillis(10));
+        }
+        repository.saveAll(BenchmarkDataSources.items(rows, 42));
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        if (directory != null) {
+            ((DurableItemRepository) repository).close();
+            FileSystemUtils.deleteRecursively(directory);
+        }
+    }
+
+    @Benchmark
+    public Item save() {
+        return repository.save(new Item("item", 1000, 10));
+    }
+}
@@ -0,0 +1,63 @@
+package hello.itemservice.repository.feed;
+
+import hello.itemservice.domain.Item;
+import hello.itemservice.repository.ItemRepository;
+import hello.itemservice.repository.memory.MemoryItemRepository;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 변경 피드가 쓰기 경로에 더하는 비용
+ * NOTE : memory 는 MemoryItemRepository 그대로, feed 는 구독자 없이 발행만, subscribed 는 구독자 하나가 이벤트를 읽는 상태다.
+ *  reserve 와 release 를 번갈아 호출해 재고를 유지한다. gc 프로파일러의 gc.alloc.rate.norm 이 memory 와 같으면 발행할 때 할당이 없는 것이다.
+ *  ./gradlew jmh -Pjmh.includes=ChangeFeedBenchmark
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ChangeFeedBenchmark {
+
+    @Param({"memory", "feed", "subscribed"})
+    String mode;
+
+    ItemRepository repository;
+    ItemChangeFeed feed;
+    AtomicLong consumed = new AtomicLong();
+    long itemId;
+
+    @Setup
+    public void setUp() {
+        MemoryItemRepository memory = new MemoryItemRepository();
+        itemId = memory.save(new Item("item", 1000, 1_000_000)).getId();
+        if ("memory".equals(mode)) {
+            repository = memory;
+            return;
+        }
+        feed = new ItemChangeFeed();
+        repository = new ChangeFeedItemRepository(memory, feed);
+        if ("subscribed".equals(mode)) {
+            feed.subscribe("benchmark-subscriber", (event, sequence, endOfBatch) -> {
+                if (endOfBatch) {
+                    consumed.lazySet(sequence);
+                }
+            });
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        if (feed != null) {
+            feed.close();
+        }
+    }
+
+    @Benchmark
+    public boolean reserveAndRelease() {
+        return repository.reserve(itemId, 1) & repository.release(itemId, 1);
+    }
+}
@@ -0,0 +1,69 @@
+package hello.itemservice.repository.jdbctemplate;
+
+import hello.itemservice.domain.Item;
+import hello.itemservice.domain.ItemView;
+import hello.itemservice.repository.BenchmarkDataSources;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.jdbc.core.BeanPropertyRowMapper;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * BeanPropertyRowMapper 와 ItemRowMapper, ItemViewRowMapper 의 조회 결과 변환 비용 비교
+ * NOTE : 같은 select 문으로 rows 건을 읽어 Item(bean, compiled) 또는 ItemView(view) 목록으로 만드는 시간을 잰다. (DB 는 내장 H2 메모리 모드)
+ *  gc 프로파일러의 gc.alloc.rate.norm(조회 한 번의 할당 byte)을 rows 로 나누면 행 하나의 할당량이다.
+ *  compiled 와 view 의 차이가 Item 의 Long, Integer 객체와 setter 호출 대신 기본형 생성자를 사용해서 줄어든 할당량이다.
+ *  ./gradlew jmh -Pjmh.includes=ItemRowMapperBenchmark
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ItemRowMapperBenchmark {
+
+    private static final String SQL = "select id, item_name, price, quantity from item order by id";
+
+    @Param({"bean", "compiled", "view"})
+    String mapper;
+
+    @Param({"20", "1000"})
+    int rows;
+
+    EmbeddedDatabase dataSource;
+    JdbcTemplate template;
+
+    @Setup
+    public void setUp() {
+        dataSource = BenchmarkDataSources.h2();
+        template = new JdbcTemplate(dataSource);
+        List<Item> items = BenchmarkDataSources.items(rows, 42);
+        ItemBatchInsert.insert(template, items);
+    }
+
+    @TearDown
+    public void tearDown() {
+        dataSource.shutdown();
+    }
+
+    @Benchmark
+    public List<?> query() {
+        if ("view".equals(mapper)) {
+            return template.query(SQL, ItemViewRowMapper.INSTANCE);
+        }
+        return template.query(SQL, rowMapper());
+    }
+
+    private RowMapper<Item> rowMapper() {
+        //리포지토리와 같이 쿼리마다 새로 만든다.
+        if ("bean".equals(mapper)) {
+            return BeanPropertyRowMapper.newInstance(Item.class);
+        }
+        return new ItemRowMapper();
+    }
+}
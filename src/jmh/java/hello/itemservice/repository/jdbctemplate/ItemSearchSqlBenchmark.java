@@ -0,0 +1,92 @@
+package hello.itemservice.repository.jdbctemplate;
+
+import hello.itemservice.domain.Item;
+import hello.itemservice.repository.BenchmarkDataSources;
+import hello.itemservice.repository.ItemSearchCond;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.BeanPropertySqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterUtils;
+import org.springframework.jdbc.core.namedparam.ParsedSql;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.util.StringUtils;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 검색 SQL 을 호출마다 만드는 방식(dynamic)과 ItemSearchSql 로 미리 만들어 둔 방식(shape) 비교
+ * NOTE : prepare 는 DB 없이 SQL 과 파라미터를 준비하는 비용만, query 는 내장 H2 에 실제로 조회하는 비용을 잰다.
+ *  할당량은 gc 프로파일러의 gc.alloc.rate.norm(B/op)으로 확인한다.
+ *  ./gradlew jmh -Pjmh.includes=ItemSearchSqlBenchmark
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ItemSearchSqlBenchmark {
+
+    @Param({"dynamic", "shape"})
+    String sql;
+
+    ItemSearchCond cond = new ItemSearchCond("item1", 50_000);
+
+    EmbeddedDatabase dataSource;
+    JdbcTemplate template;
+    NamedParameterJdbcTemplate namedTemplate;
+
+    @Setup
+    public void setUp() {
+        dataSource = BenchmarkDataSources.h2();
+        template = new JdbcTemplate(dataSource);
+        namedTemplate = new NamedParameterJdbcTemplate(template);
+        ItemBatchInsert.insert(template, BenchmarkDataSources.items(1000, 42));
+    }
+
+    @TearDown
+    public void tearDown() {
+        dataSource.shutdown();
+    }
+
+    @Benchmark
+    public Object prepare() {
+        if ("dynamic".equals(sql)) {
+            //NamedParameterJdbcTemplate 가 실행할 때마다 하는 일 (파싱 결과는 캐시되므로 치환과 값 배열 생성만)
+            String namedSql = dynamicSql(cond);
+            SqlParameterSource param = new BeanPropertySqlParameterSource(cond);
+            ParsedSql parsedSql = NamedParameterUtils.parseSqlStatement(namedSql);
+            String substituted = NamedParameterUtils.substituteNamedParameters(parsedSql, param);
+            Object[] args = NamedParameterUtils.buildValueArray(parsedSql, param, null);
+            return args.length == 0 ? substituted : args;
+        }
+        ItemSearchSql search = ItemSearchSql.of(cond);
+        return search.findAllParams(cond) == null ? null : search.findAllSql();
+    }
+
+    @Benchmark
+    public List<Item> query() {
+        if ("dynamic".equals(sql)) {
+            return namedTemplate.query(dynamicSql(cond), new BeanPropertySqlParameterSource(cond), new ItemRowMapper());
+        }
+        ItemSearchSql search = ItemSearchSql.of(cond);
+        return template.query(search.findAllSql(), search.findAllParams(cond), new ItemRowMapper());
+    }
+
+    /**
+     * 변경 전 JdbcTemplateItemRepositoryV2 의 검색 SQL 생성 방식
+     */
+    private static String dynamicSql(ItemSearchCond cond) {
+        String sql = "select id, item_name, price, quantity from item where id > :cursor";
+        if (StringUtils.hasText(cond.getItemName())) {
+            sql += " and item_name like concat('%',:itemName,'%')";
+        }
+        if (cond.getMaxPrice() != null) {
+            sql += " and price <= :maxPrice";
+        }
+        return sql + " order by id limit :limit";
+    }
+}
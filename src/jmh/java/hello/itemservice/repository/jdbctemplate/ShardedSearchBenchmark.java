@@ -0,0 +1,70 @@
+package hello.itemservice.repository.jdbctemplate;
+
+import hello.itemservice.domain.Item;
+import hello.itemservice.repository.BenchmarkDataSources;
+import hello.itemservice.repository.ItemSearchCond;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 샤드 수에 따른 검색 지연 시간 비교
+ * NOTE : 전체 상품 수(tableSize)는 같고 샤드 수만 바꾼다. 샤드가 많을수록 샤드마다 읽는 행은 줄지만 조회 횟수와 합치는 비용이 늘어난다.
+ *  - firstPage : 조건 없는 첫 페이지. 샤드마다 인덱스(id)로 limit 개만 읽으므로 샤드 수만큼 조회가 늘어나는 비용만 보인다.
+ *  - byName : 상품명 부분 일치 검색. 인덱스를 쓸 수 없어 샤드마다 자기 행을 모두 읽으므로 나누어 읽는 효과가 보인다.
+ *  동시 실행의 효과는 CPU 코어 수에 달려 있으므로 결과를 볼 때 실행한 장비의 코어 수를 함께 확인해야 한다.
+ *  ./gradlew jmh -Pjmh.includes=ShardedSearchBenchmark
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ShardedSearchBenchmark {
+
+    @Param({"1", "2", "4"})
+    int shards;
+
+    @Param({"100000"})
+    int tableSize;
+
+    List<EmbeddedDatabase> databases = new ArrayList<>();
+    ExecutorService executor;
+    ShardedJdbcTemplateItemRepository repository;
+
+    ItemSearchCond firstPage = new ItemSearchCond(null, null);
+    ItemSearchCond byName = new ItemSearchCond("item9999", null);
+
+    @Setup
+    public void setUp() {
+        for (int i = 0; i < shards; i++) {
+            databases.add(BenchmarkDataSources.h2());
+        }
+        executor = Executors.newFixedThreadPool(Math.max(1, shards - 1));
+        repository = new ShardedJdbcTemplateItemRepository(new ArrayList<DataSource>(databases), executor);
+        repository.saveAll(BenchmarkDataSources.items(tableSize, 42));
+    }
+
+    @TearDown
+    public void tearDown() {
+        executor.shutdown();
+        databases.forEach(EmbeddedDatabase::shutdown);
+    }
+
+    @Benchmark
+    public List<Item> firstPage() {
+        return repository.findAll(firstPage);
+    }
+
+    @Benchmark
+    public List<Item> byName() {
+        return repository.findAll(byName);
+    }
+}
@@ -0,0 +1,78 @@
+package hello.itemservice.repository.offheap;
+
+import hello.itemservice.domain.Item;
+import hello.itemservice.repository.BenchmarkDataSources;
+import hello.itemservice.repository.ItemRepository;
+import hello.itemservice.repository.ItemSearchCond;
+import hello.itemservice.repository.memory.MemoryItemRepository;
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * MemoryItemRepository 와 OffHeapItemRepository 의 힙 사용량, 검색 비용 비교
+ * NOTE : 힙 사용량은 상품을 저장하기 전후로 GC 를 실행하고 사용 중인 힙 크기의 차이로 잰다(setUp 에서 출력).
+ *  - byPrice : 가격 조건을 만족하는 상품이 약 0.1% 인 검색. offheap 은 price 컬럼을 처음부터 훑고, memory 는 가격 인덱스를 사용한다.
+ *  - byName : 상품명 부분 일치 검색. offheap 은 UTF-8 바이트를 비교하며 훑고, memory 는 trigram 인덱스를 사용한다.
+ *  - noMatch : 만족하는 상품이 없어 끝까지 읽는 검색. offheap 의 전체 스캔 속도(행/초)를 보여준다.
+ *  ./gradlew jmh -Pjmh.includes=OffHeapScanBenchmark
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgs = {"-Xmx2g"})
+public class OffHeapScanBenchmark {
+
+    @Param({"memory", "offheap"})
+    String impl;
+
+    @Param({"1000000"})
+    int rows;
+
+    ItemRepository repository;
+
+    ItemSearchCond byPrice = new ItemSearchCond(null, BenchmarkDataSources.MAX_PRICE / 1000);
+    ItemSearchCond byName = new ItemSearchCond("item99999", null);
+    ItemSearchCond noMatch = new ItemSearchCond(null, 0);
+
+    @Setup
+    public void setUp() {
+        long before = usedHeap();
+        repository = "offheap".equals(impl) ? new OffHeapItemRepository() : new MemoryItemRepository();
+        //저장할 목록은 저장 후에 버려지므로 차이에는 저장소가 들고 있는 것만 남는다.
+        repository.saveAll(BenchmarkDataSources.items(rows, 42));
+        long after = usedHeap();
+        String offHeap = repository instanceof OffHeapItemRepository
+                ? ((OffHeapItemRepository) repository).offHeapBytes() / (1024 * 1024) + "MB"
+                + " (wasted " + ((OffHeapItemRepository) repository).wastedNameBytes() / (1024 * 1024) + "MB)" : "0MB";
+        System.out.printf("%n[%s] rows=%d heap=%dMB offHeap=%s%n", impl, rows, (after - before) / (1024 * 1024), offHeap);
+    }
+
+    @Benchmark
+    public List<Item> byPrice() {
+        return repository.findAll(byPrice);
+    }
+
+    @Benchmark
+    public List<Item> byName() {
+        return repository.findAll(byName);
+    }
+
+    @Benchmark
+    public List<Item> noMatch() {
+        return repository.findAll(noMatch);
+    }
+
+    private static long usedHeap() {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+}
@@ -0,0 +1,78 @@
+package hello.itemservice.repository.suggest;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * 상품명 100만 개에서 자동완성 조회 시간과 색인 크기
+ * NOTE : 상품명은 "item0" ~ "item999999" 이다. 매번 임의의 상품 번호 앞 3자리로 prefix("item123")를 만들어 10개를 조회한다.
+ *  delta 는 상품명 10,000 개를 압축하지 않은 변경분으로 더 넣어 기본 색인과 합치는 비용을 함께 잰다.
+ *  색인 크기(memoryBytes)는 설정할 때 한 번 출력한다. String[]로 두면 상품명마다 약 56 byte 가 드는 것과 비교한다.
+ *  ./gradlew jmh -Pjmh.includes=NameSuggestBenchmark
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgs = "-Xmx2g")
+public class NameSuggestBenchmark {
+
+    private static final int NAMES = 1_000_000;
+
+    @Param({"base", "delta"})
+    String mode;
+
+    NameSuggestIndex index;
+
+    @Setup
+    public void setUp() {
+        index = new NameSuggestIndex(Integer.MAX_VALUE);
+        index.load(IntStream.range(0, NAMES).mapToObj(i -> "item" + i).iterator());
+        if ("delta".equals(mode)) {
+            for (int i = 0; i < 10_000; i++) {
+                index.add("item" + (NAMES + i));
+            }
+        }
+        System.out.printf("%n[%s] names=%d, memoryBytes=%d (%.1f byte/name)%n", mode, NAMES,
+                index.memoryBytes(), (double) index.memoryBytes() / NAMES);
+    }
+
+    @TearDown
+    public void tearDown() {
+        index.close();
+    }
+
+    @Benchmark
+    public List<String> suggest() {
+        int number = ThreadLocalRandom.current().nextInt(100, 1000);
+        return index.suggest("item" + number, 10);
+    }
+
+    @Benchmark
+    public List<String> suggestMiss() {
+        //prefix 로 시작하는 상품명이 없을 때. 이진 탐색만 한다.
+        return index.suggest("itex", 10);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 2)
+    @Measurement(iterations = 5)
+    public int load() {
+        List<String> names = new ArrayList<>(NAMES);
+        for (int i = 0; i < NAMES; i++) {
+            names.add("item" + i);
+        }
+        NameSuggestIndex loaded = new NameSuggestIndex();
+        loaded.load(names.iterator());
+        loaded.close();
+        return loaded.baseSize();
+    }
+}
@@ -0,0 +1,68 @@
+package hello.itemservice.service;
+
+import hello.itemservice.domain.Item;
+import hello.itemservice.repository.BenchmarkDataSources;
+import hello.itemservice.repository.ItemSearchCond;
+import hello.itemservice.repository.jdbctemplate.JdbcTemplateItemRepositoryV3;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 같은 검색 조건의 목록 조회가 한꺼번에 몰릴 때(burst) DB 조회 수와 지연 시간 비교
+ * NOTE : direct 는 ItemServiceV1 을 그대로, singleFlight 는 SingleFlightItemService 로 감싸서 호출한다.
+ *  검색 결과 캐시 없이 100,000 행에서 상품명 부분 일치(like '%..%') 검색을 실행하므로 매 조회가 전체 스캔이다.
+ *  TearDown 에서 호출 수 대비 실제 DB 조회(findAll) 수를 출력한다. 지연 시간 분포는 SampleTime 의 p99 를 본다.
+ *  ./gradlew jmh -Pjmh.includes=SingleFlightBenchmark
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(32)
+public class SingleFlightBenchmark {
+
+    @Param({"direct", "singleFlight"})
+    String mode;
+
+    @Param({"100000"})
+    int tableSize;
+
+    EmbeddedDatabase dataSource;
+    ItemService itemService;
+    ItemSearchCond cond = new ItemSearchCond("item9999", null);
+    AtomicLong calls = new AtomicLong();
+    AtomicLong queries = new AtomicLong();
+
+    @Setup
+    public void setUp() {
+        dataSource = BenchmarkDataSources.h2();
+        JdbcTemplateItemRepositoryV3 repository = new JdbcTemplateItemRepositoryV3(dataSource) {
+            @Override
+            public List<Item> findAll(ItemSearchCond cond) {
+                queries.incrementAndGet();
+                return super.findAll(cond);
+            }
+        };
+        repository.saveAll(BenchmarkDataSources.items(tableSize, 42));
+        ItemService target = new ItemServiceV1(repository);
+        itemService = "singleFlight".equals(mode) ? new SingleFlightItemService(target) : target;
+    }
+
+    @TearDown
+    public void tearDown() {
+        System.out.printf("%n%s: findItems=%d, db findAll=%d%n", mode, calls.get(), queries.get());
+        dataSource.shutdown();
+    }
+
+    @Benchmark
+    public List<Item> findItems() {
+        calls.incrementAndGet();
+        return itemService.findItems(cond);
+    }
+}
@@ -0,0 +1,67 @@
+package hello.itemservice.service.stock;
+
+import hello.itemservice.domain.Item;
+import hello.itemservice.repository.BenchmarkDataSources;
+import hello.itemservice.repository.jdbctemplate.JdbcTemplateItemRepositoryV1;
+import hello.itemservice.service.ItemService;
+import hello.itemservice.service.ItemServiceV1;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 하나의 인기 상품에 주문이 몰릴 때 재고 차감 처리량 비교
+ * NOTE : db 는 매 주문마다 조건부 update(JdbcTemplateItemRepositoryV1.reserve)를, striped 는 HotStockItemService 를 사용한다.
+ *  스레드 수를 바꿔 가며 실행해서 처리량이 코어 수에 비례해 늘어나는지 확인한다.
+ *  ./gradlew jmh -Pjmh.includes=HotStockBenchmark   (스레드 수는 java -jar build/libs/*-jmh.jar HotStockBenchmark -t 4 처럼 지정)
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(Threads.MAX)
+public class HotStockBenchmark {
+
+    @Param({"db", "striped"})
+    String mode;
+
+    @Param({"100"})
+    int leaseSize;
+
+    EmbeddedDatabase dataSource;
+    ItemService itemService;
+    HotStockItemService hotStockItemService;
+    long itemId;
+
+    @Setup
+    public void setUp() {
+        dataSource = BenchmarkDataSources.h2();
+        ItemService target = new ItemServiceV1(new JdbcTemplateItemRepositoryV1(dataSource));
+        itemId = target.save(new Item("hot", 1000, Integer.MAX_VALUE)).getId();
+        if ("striped".equals(mode)) {
+            hotStockItemService = new HotStockItemService(target, Set.of(itemId), leaseSize);
+            hotStockItemService.start(Duration.ofSeconds(1));
+            itemService = hotStockItemService;
+        } else {
+            itemService = target;
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        if (hotStockItemService != null) {
+            hotStockItemService.close();
+        }
+        dataSource.shutdown();
+    }
+
+    @Benchmark
+    public boolean reserve() {
+        return itemService.reserve(itemId, 1);
+    }
+}
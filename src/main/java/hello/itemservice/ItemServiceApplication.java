@@ -4,6 +4,7 @@ import hello.itemservice.config.*;
 import hello.itemservice.repository.ItemRepository;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Import;
@@ -19,6 +20,14 @@ import javax.sql.DataSource;
 //@Import(JdbcTemplateV2Config.class)
 //@Import(JdbcTemplateV3Config.class)
 @Import(MyBatisConfig.class)
+// NOTE : 아래 설정은 각각 지정한 속성이 있을 때만 동작하므로 저장소 설정과 상관없이 함께 가져온다.
+//  - HotStockConfig : itemservice.stock.hot-item-ids (인기 상품 재고를 메모리에서 차감)
+//  - ReadWriteDataSourceConfig : itemservice.datasource.replicas[0].url (읽기 전용 트랜잭션을 replica 로 라우팅)
+//  - ChangeFeedConfig : itemservice.feed.enabled=true (상품 변경을 ItemChangeFeed 로 발행)
+//  - SuggestConfig : itemservice.suggest.enabled=true (상품명 자동완성 색인)
+//  - StatementProfilerConfig : itemservice.profiler.enabled=true 일 때 (SQL 별 실행 시간, 느린 SQL, N+1 기록)
+@ImportAutoConfiguration({HotStockConfig.class, ReadWriteDataSourceConfig.class, ChangeFeedConfig.class,
+		SuggestConfig.class, StatementProfilerConfig.class})
 @Slf4j
 @SpringBootApplication(scanBasePackages = "hello.itemservice.web")
 public class ItemServiceApplication {
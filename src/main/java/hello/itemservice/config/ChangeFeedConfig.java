@@ -0,0 +1,47 @@
+package hello.itemservice.config;
+
+import hello.itemservice.repository.ItemRepository;
+import hello.itemservice.repository.feed.ChangeFeedItemRepository;
+import hello.itemservice.repository.feed.ChangeFeedProperties;
+import hello.itemservice.repository.feed.ItemChangeFeed;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 상품 변경 피드(ItemChangeFeed) 설정
+ * NOTE : itemservice.feed.enabled=true 일 때만 등록된다.
+ *  저장소 설정(MyBatisConfig 등)이 만든 itemRepository 빈을 ChangeFeedItemRepository 로 감싼다.
+ *  설정 클래스의 itemService()가 호출하는 itemRepository()는 컨테이너의 빈을 반환하므로 서비스도 감싼 저장소를 사용한다.
+ *  구독자는 ItemChangeFeed 빈을 주입받아 subscribe 한다.
+ */
+@Configuration
+@EnableConfigurationProperties(ChangeFeedProperties.class)
+@ConditionalOnProperty(prefix = "itemservice.feed", name = "enabled", havingValue = "true")
+public class ChangeFeedConfig {
+
+    @Bean(destroyMethod = "close")
+    public ItemChangeFeed itemChangeFeed(ChangeFeedProperties properties) {
+        return new ItemChangeFeed(properties.getBufferSize());
+    }
+
+    // NOTE : 설정 클래스를 고치지 않고 이미 등록된 빈을 데코레이터로 감쌀 때는 BeanPostProcessor 를 사용한다. (SuggestConfig, StatementProfilerConfig 도 같다)
+    //  BeanPostProcessor 는 다른 빈보다 먼저 만들어진다. 인스턴스 메소드로 등록하면 이 설정 클래스가 일찍 만들어지고,
+    //  피드를 바로 주입받으면 피드와 그 의존 빈도 후처리 대상이 되기 전에 만들어진다.
+    //  그래서 static 메소드로 등록하고 피드는 ObjectProvider 로 받아 실제로 감쌀 때 가져온다.
+    @Bean
+    public static BeanPostProcessor changeFeedItemRepositoryPostProcessor(ObjectProvider<ItemChangeFeed> feed) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if ("itemRepository".equals(beanName) && bean instanceof ItemRepository) {
+                    return new ChangeFeedItemRepository((ItemRepository) bean, feed.getObject());
+                }
+                return bean;
+            }
+        };
+    }
+}
@@ -0,0 +1,51 @@
+package hello.itemservice.config;
+
+import hello.itemservice.repository.ItemRepository;
+import hello.itemservice.repository.durable.DurableItemRepository;
+import hello.itemservice.repository.durable.DurableMemoryProperties;
+import hello.itemservice.repository.metrics.MeteredItemRepository;
+import hello.itemservice.service.ItemService;
+import hello.itemservice.service.ItemServiceV1;
+import hello.itemservice.service.MeteredItemService;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.annotation.PreDestroy;
+import java.nio.file.Path;
+
+/**
+ * 재시작해도 데이터가 남는 메모리 저장소 설정. ItemServiceApplication 의 @Import 를 이 설정으로 바꿔서 사용한다.
+ * NOTE : 종료할 때 마지막 스냅샷을 뜨고 로그를 닫는다. 비정상 종료되었다면 다음 시작 때 스냅샷과 로그로 복구한다.
+ */
+@Configuration
+@RequiredArgsConstructor
+@EnableConfigurationProperties(DurableMemoryProperties.class)
+public class DurableMemoryConfig {
+
+    private final MeterRegistry meterRegistry;
+    private final DurableMemoryProperties properties;
+    private DurableItemRepository repository;
+
+    @Bean
+    public ItemService itemService() {
+        return new MeteredItemService(new ItemServiceV1(itemRepository()), meterRegistry);
+    }
+
+    @Bean
+    public ItemRepository itemRepository() {
+        repository = new DurableItemRepository(Path.of(properties.getDirectory()), properties.isSyncOnWrite(),
+                (int) properties.getSegmentSize().toBytes(), properties.getFlushInterval());
+        repository.startSnapshots(properties.getSnapshotInterval());
+        return new MeteredItemRepository(repository, meterRegistry, repository.getClass());
+    }
+
+    @PreDestroy
+    public void closeRepository() {
+        if (repository != null) {
+            repository.close();
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package hello.itemservice.config;
+
+import hello.itemservice.service.ItemService;
+import hello.itemservice.service.stock.HotStockItemService;
+import hello.itemservice.service.stock.HotStockProperties;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+
+/**
+ * 인기 상품 재고를 메모리에서 차감하는 HotStockItemService 설정
+ * NOTE : itemservice.stock.hot-item-ids=1,2 처럼 인기 상품 id 를 지정했을 때만 등록된다.
+ *  저장소 설정(MyBatisConfig 등)이 만든 itemService 를 감싸고 @Primary 로 등록되어 컨트롤러는 이 빈을 주입받는다.
+ */
+@Configuration
+@EnableConfigurationProperties(HotStockProperties.class)
+@ConditionalOnProperty(prefix = "itemservice.stock", name = "hot-item-ids")
+public class HotStockConfig {
+
+    @Bean(destroyMethod = "close")
+    @Primary
+    public HotStockItemService hotStockItemService(@Qualifier("itemService") ItemService itemService,
+                                                   HotStockProperties properties) {
+        HotStockItemService hotStockItemService =
+                new HotStockItemService(itemService, properties.getHotItemIds(), properties.getLeaseSize());
+        hotStockItemService.start(properties.getReconcileInterval());
+        return hotStockItemService;
+    }
+}
@@ -1,28 +1,51 @@
 package hello.itemservice.config;
 
 import hello.itemservice.repository.ItemRepository;
+import hello.itemservice.repository.cache.CachingItemRepository;
+import hello.itemservice.repository.cache.SearchResultCachingItemRepository;
 import hello.itemservice.repository.jdbctemplate.JdbcTemplateItemRepositoryV2;
+import hello.itemservice.repository.metrics.MeteredItemRepository;
 import hello.itemservice.service.ItemService;
+import hello.itemservice.service.ItemServiceProperties;
 import hello.itemservice.service.ItemServiceV1;
+import hello.itemservice.service.MeteredItemService;
+import hello.itemservice.service.SingleFlightItemService;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.RequiredArgsConstructor;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
 import javax.sql.DataSource;
 
 @Configuration
+@EnableConfigurationProperties(ItemServiceProperties.class)
 @RequiredArgsConstructor
 public class JdbcTemplateV2Config {
 
     private final DataSource dataSource;
+    private final MeterRegistry meterRegistry;
+    private final ItemServiceProperties itemServiceProperties;
 
     @Bean
     public ItemService itemService() {
-        return new ItemServiceV1(itemRepository());
+        // NOTE : 같은 검색 조건으로 동시에 들어온 상품 목록 조회는 SingleFlightItemService 가 DB 조회 한 번으로 합친다.
+        //  itemservice.find-by-id-window 를 지정하면 동시에 들어온 상품 상세 조회도 findAllByIds 한 번으로 모은다.
+        ItemService itemService = ItemServiceV1.of(itemRepository(), itemServiceProperties.getFindByIdWindow());
+        return new MeteredItemService(new SingleFlightItemService(itemService, itemServiceProperties.getSingleFlightTimeout()), meterRegistry);
     }
 
     @Bean
     public ItemRepository itemRepository() {
-        return new JdbcTemplateItemRepositoryV2(dataSource);
+        // NOTE : 상품 상세(findById) 조회는 CachingItemRepository 가 먼저 받아서 캐시에 없을 때만 DB 에 간다.
+        //  상품 목록(findAll) 검색 결과는 SearchResultCachingItemRepository 가 검색 조건별로 캐시한다.
+        JdbcTemplateItemRepositoryV2 repository = new JdbcTemplateItemRepositoryV2(dataSource);
+        CachingItemRepository byId = new CachingItemRepository(repository);
+        SearchResultCachingItemRepository cached = new SearchResultCachingItemRepository(byId);
+        //캐시의 hit/miss/eviction 수를 cache.* 지표로 노출한다.
+        byId.bindTo(meterRegistry);
+        cached.bindTo(meterRegistry);
+        // NOTE : 가장 바깥에서 메소드별 실행 시간을 기록한다. impl 태그는 캐시가 아닌 실제 구현체(repository)로 남긴다.
+        return new MeteredItemRepository(cached, meterRegistry, repository.getClass());
     }
 }
@@ -2,22 +2,30 @@ package hello.itemservice.config;
 
 import hello.itemservice.repository.ItemRepository;
 import hello.itemservice.repository.memory.MemoryItemRepository;
+import hello.itemservice.repository.metrics.MeteredItemRepository;
 import hello.itemservice.service.ItemService;
 import hello.itemservice.service.ItemServiceV1;
+import hello.itemservice.service.MeteredItemService;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
 @Configuration
+@RequiredArgsConstructor
 public class MemoryConfig {
 
+    private final MeterRegistry meterRegistry;
+
     @Bean
     public ItemService itemService() {
-        return new ItemServiceV1(itemRepository());
+        return new MeteredItemService(new ItemServiceV1(itemRepository()), meterRegistry);
     }
 
     @Bean
     public ItemRepository itemRepository() {
-        return new MemoryItemRepository();
+        MemoryItemRepository repository = new MemoryItemRepository();
+        return new MeteredItemRepository(repository, meterRegistry, repository.getClass());
     }
 
 }
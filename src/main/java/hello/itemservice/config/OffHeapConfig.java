@@ -0,0 +1,43 @@
+package hello.itemservice.config;
+
+import hello.itemservice.repository.ItemRepository;
+import hello.itemservice.repository.offheap.OffHeapItemRepository;
+import hello.itemservice.repository.metrics.MeteredItemRepository;
+import hello.itemservice.service.ItemService;
+import hello.itemservice.service.ItemServiceV1;
+import hello.itemservice.service.MeteredItemService;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * off-heap 메모리 저장소 설정. 상품이 많아 힙과 GC 부담이 클 때 ItemServiceApplication 의 @Import 를 이 설정으로 바꿔서 사용한다.
+ * NOTE : direct ByteBuffer 는 -XX:MaxDirectMemorySize 의 제한을 받는다. (기본값은 최대 힙 크기와 같다)
+ *  상품명을 바꾸면 새 이름을 덧붙여 기록하고 이전 이름의 공간은 회수하지 않는다. (압축하지 않는다)
+ *  따라서 direct 메모리는 "저장된 이름 크기 + 지금까지 바뀐 이름 크기" 만큼 쓰이고 재시작해야 돌아온다.
+ *  이름 수정이 잦은 경우에는 offheap.bytes 와 offheap.name.wasted.bytes 지표를 보고 MaxDirectMemorySize 를 잡아야 한다.
+ */
+@Configuration
+@RequiredArgsConstructor
+public class OffHeapConfig {
+
+    private final MeterRegistry meterRegistry;
+
+    @Bean
+    public ItemService itemService() {
+        return new MeteredItemService(new ItemServiceV1(itemRepository()), meterRegistry);
+    }
+
+    @Bean
+    public ItemRepository itemRepository() {
+        OffHeapItemRepository repository = new OffHeapItemRepository();
+        Gauge.builder("offheap.bytes", repository, OffHeapItemRepository::offHeapBytes)
+                .baseUnit("bytes").register(meterRegistry);
+        Gauge.builder("offheap.name.wasted.bytes", repository, OffHeapItemRepository::wastedNameBytes)
+                .baseUnit("bytes").register(meterRegistry);
+        return new MeteredItemRepository(repository, meterRegistry, repository.getClass());
+    }
+
+}
@@ -0,0 +1,54 @@
+package hello.itemservice.config;
+
+import hello.itemservice.datasource.ReadWriteRoutingDataSource;
+import hello.itemservice.datasource.ReadYourWritesFilter;
+import hello.itemservice.datasource.ReplicaDataSourceProperties;
+import org.springframework.boot.autoconfigure.AutoConfigureBefore;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 읽기/쓰기 DataSource 분리 설정
+ * NOTE : itemservice.datasource.replicas[0].url 이 있을 때만 등록된다.
+ *  spring.datasource.* 로 만든 primary 와 replica 들을 ReadWriteRoutingDataSource 로 묶어 DataSource 빈으로 등록하므로
+ *  JdbcTemplateV*Config, MyBatisConfig 와 리포지토리는 그대로 DataSource 를 주입받아 사용한다.
+ *  어떤 DataSource 를 사용할지는 ItemService 의 @Transactional(readOnly) 속성으로 정해진다.
+ */
+@Configuration
+@AutoConfigureBefore(DataSourceAutoConfiguration.class)
+@EnableConfigurationProperties({DataSourceProperties.class, ReplicaDataSourceProperties.class})
+@ConditionalOnProperty(prefix = "itemservice.datasource", name = "replicas[0].url")
+public class ReadWriteDataSourceConfig {
+
+    @Bean
+    @Primary
+    public DataSource dataSource(DataSourceProperties primaryProperties, ReplicaDataSourceProperties replicaProperties) {
+        DataSource primary = primaryProperties.initializeDataSourceBuilder().build();
+        List<DataSource> replicas = new ArrayList<>();
+        for (ReplicaDataSourceProperties.Replica replica : replicaProperties.getReplicas()) {
+            replicas.add(DataSourceBuilder.create()
+                    .url(replica.getUrl())
+                    .username(replica.getUsername())
+                    .password(replica.getPassword())
+                    .build());
+        }
+        // NOTE : 트랜잭션이 시작될 때가 아니라 첫 SQL 을 실행할 때 커넥션을 얻도록 지연시켜야 readOnly 여부로 라우팅할 수 있다.
+        return new LazyConnectionDataSourceProxy(new ReadWriteRoutingDataSource(primary, replicas));
+    }
+
+    @Bean
+    public ReadYourWritesFilter readYourWritesFilter() {
+        return new ReadYourWritesFilter();
+    }
+}
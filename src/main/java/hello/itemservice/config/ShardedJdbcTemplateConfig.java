@@ -0,0 +1,100 @@
+package hello.itemservice.config;
+
+import hello.itemservice.datasource.ShardDataSourceProperties;
+import hello.itemservice.repository.ItemRepository;
+import hello.itemservice.repository.cache.CachingItemRepository;
+import hello.itemservice.repository.cache.SearchResultCachingItemRepository;
+import hello.itemservice.repository.jdbctemplate.ShardedJdbcTemplateItemRepository;
+import hello.itemservice.repository.metrics.MeteredItemRepository;
+import hello.itemservice.service.ItemService;
+import hello.itemservice.service.ItemServiceProperties;
+import hello.itemservice.service.ItemServiceV1;
+import hello.itemservice.service.MeteredItemService;
+import hello.itemservice.service.SingleFlightItemService;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import org.flywaydb.core.Flyway;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.annotation.PreDestroy;
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 샤딩 저장소 설정. ItemServiceApplication 의 @Import 를 이 설정으로 바꾸고 itemservice.shard.datasources 를 지정해서 사용한다.
+ * NOTE : 샤드 DB 의 스키마는 각 샤드에 Flyway 마이그레이션(db/migration)을 실행해서 만든다.
+ */
+@Configuration
+@RequiredArgsConstructor
+@EnableConfigurationProperties({ShardDataSourceProperties.class, ItemServiceProperties.class})
+public class ShardedJdbcTemplateConfig {
+
+    private final ShardDataSourceProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final ItemServiceProperties itemServiceProperties;
+    private final List<DataSource> shardDataSources = new ArrayList<>();
+
+    @Bean
+    public ItemService itemService() {
+        // NOTE : 같은 검색 조건으로 동시에 들어온 상품 목록 조회는 SingleFlightItemService 가 DB 조회 한 번으로 합친다.
+        //  itemservice.find-by-id-window 를 지정하면 동시에 들어온 상품 상세 조회도 findAllByIds 한 번으로 모은다.
+        ItemService itemService = ItemServiceV1.of(itemRepository(), itemServiceProperties.getFindByIdWindow());
+        return new MeteredItemService(new SingleFlightItemService(itemService, itemServiceProperties.getSingleFlightTimeout()), meterRegistry);
+    }
+
+    @Bean
+    public ItemRepository itemRepository() {
+        for (ShardDataSourceProperties.Shard shard : properties.getDatasources()) {
+            DataSource dataSource = DataSourceBuilder.create()
+                    .url(shard.getUrl())
+                    .username(shard.getUsername())
+                    .password(shard.getPassword())
+                    .build();
+            Flyway.configure().dataSource(dataSource).baselineOnMigrate(true).load().migrate();
+            shardDataSources.add(dataSource);
+        }
+        ShardedJdbcTemplateItemRepository repository =
+                new ShardedJdbcTemplateItemRepository(shardDataSources, shardSearchExecutor());
+        CachingItemRepository byId = new CachingItemRepository(repository);
+        SearchResultCachingItemRepository cached = new SearchResultCachingItemRepository(byId);
+        //캐시의 hit/miss/eviction 수를 cache.* 지표로 노출한다.
+        byId.bindTo(meterRegistry);
+        cached.bindTo(meterRegistry);
+        return new MeteredItemRepository(cached, meterRegistry, repository.getClass());
+    }
+
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService shardSearchExecutor() {
+        int shards = properties.getDatasources().size();
+        int threads = properties.getSearchThreads() > 0 ? properties.getSearchThreads() : Math.max(1, shards - 1);
+        AtomicInteger sequence = new AtomicInteger();
+        // NOTE : 스레드 수와 대기열 크기를 모두 제한한다. 대기열까지 가득 차면 요청 스레드가 직접 샤드를 조회(CallerRunsPolicy)하므로
+        //  검색이 몰려도 스레드와 대기 작업이 끝없이 늘어나지 않고 요청 스레드가 자연스럽게 느려진다(backpressure).
+        return new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(threads * 64),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "item-shard-search-" + sequence.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    @PreDestroy
+    public void closeShardDataSources() throws Exception {
+        for (DataSource dataSource : shardDataSources) {
+            if (dataSource instanceof AutoCloseable) {
+                ((AutoCloseable) dataSource).close();
+            }
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package hello.itemservice.config;
+
+import hello.itemservice.datasource.profiler.ProfilingDataSource;
+import hello.itemservice.datasource.profiler.StatementProfiler;
+import hello.itemservice.datasource.profiler.StatementProfilerEndpoint;
+import hello.itemservice.datasource.profiler.StatementProfilerFilter;
+import hello.itemservice.datasource.profiler.StatementProfilerProperties;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+
+/**
+ * SQL 프로파일러 설정
+ * NOTE : itemservice.profiler.enabled=true 일 때만 켜진다. (기본은 꺼져 있고 local 프로필에서만 켠다. application-local.properties 참고)
+ *  모든 커넥션과 Statement 를 리플렉션 프록시로 감싸므로 운영에서는 원인을 찾는 동안에만 켠다.
+ *  DataSource 빈을 ProfilingDataSource 로 감싸므로 DataSource 를 주입받는 JdbcTemplateV*Config 와
+ *  DataSource 로 SqlSessionFactory 를 만드는 MyBatisConfig 모두 설정을 바꾸지 않고 SQL 실행 시간이 기록된다.
+ *  ReadWriteDataSourceConfig 를 사용할 때는 라우팅 DataSource 바깥을 감싸므로 primary, replica 의 SQL 이 함께 기록된다.
+ *  ShardedJdbcTemplateConfig 는 샤드 DataSource 를 빈으로 등록하지 않으므로 기록되지 않는다.
+ *  실행 시간 합계가 큰 SQL 목록은 /actuator/statements 에서 볼 수 있다.
+ */
+@Configuration
+@EnableConfigurationProperties(StatementProfilerProperties.class)
+@ConditionalOnProperty(prefix = "itemservice.profiler", name = "enabled", havingValue = "true")
+public class StatementProfilerConfig {
+
+    @Bean(destroyMethod = "close")
+    public StatementProfiler statementProfiler(StatementProfilerProperties properties) {
+        return new StatementProfiler(properties.getSlowThreshold(), properties.getNPlusOneThreshold());
+    }
+
+    @Bean
+    public StatementProfilerFilter statementProfilerFilter(StatementProfiler statementProfiler) {
+        return new StatementProfilerFilter(statementProfiler);
+    }
+
+    @Bean
+    public StatementProfilerEndpoint statementProfilerEndpoint(StatementProfiler statementProfiler) {
+        return new StatementProfilerEndpoint(statementProfiler);
+    }
+
+    // static 으로 등록하고 프로파일러를 감쌀 때 가져오는 이유는 ChangeFeedConfig 참고
+    @Bean
+    public static BeanPostProcessor profilingDataSourcePostProcessor(ObjectProvider<StatementProfiler> profiler) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource && !(bean instanceof ProfilingDataSource)) {
+                    return new ProfilingDataSource((DataSource) bean, profiler.getObject());
+                }
+                return bean;
+            }
+        };
+    }
+}
@@ -0,0 +1,62 @@
+package hello.itemservice.config;
+
+import hello.itemservice.domain.Item;
+import hello.itemservice.repository.ItemRepository;
+import hello.itemservice.repository.ItemSearchCond;
+import hello.itemservice.repository.suggest.NameSuggestIndex;
+import hello.itemservice.repository.suggest.SuggestIndexItemRepository;
+import hello.itemservice.repository.suggest.SuggestProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.stream.Stream;
+
+/**
+ * 상품명 자동완성(NameSuggestIndex) 설정
+ * NOTE : itemservice.suggest.enabled=true 일 때만 등록된다. 등록되지 않으면 /items/suggest 는 404 를 반환한다.
+ *  저장소 설정(MyBatisConfig 등)이 만든 itemRepository 빈을 SuggestIndexItemRepository 로 감싸 save/update 를 색인에 반영한다.
+ *  색인은 모든 싱글톤 빈이 만들어진 뒤, 웹 서버가 요청을 받기 전에 저장소의 전체 상품명으로 채운다.
+ */
+@Slf4j
+@Configuration
+@EnableConfigurationProperties(SuggestProperties.class)
+@ConditionalOnProperty(prefix = "itemservice.suggest", name = "enabled", havingValue = "true")
+public class SuggestConfig {
+
+    @Bean(destroyMethod = "close")
+    public NameSuggestIndex nameSuggestIndex(SuggestProperties properties) {
+        return new NameSuggestIndex(properties.getCompactThreshold());
+    }
+
+    @Bean
+    public SmartInitializingSingleton nameSuggestIndexLoader(NameSuggestIndex index, ItemRepository itemRepository) {
+        return () -> {
+            long started = System.nanoTime();
+            try (Stream<Item> items = itemRepository.streamAll(new ItemSearchCond())) {
+                index.load(items.map(Item::getItemName).iterator());
+            }
+            log.info("자동완성 색인 적재 names={}, bytes={}, {}ms", index.baseSize(), index.memoryBytes(),
+                    (System.nanoTime() - started) / 1_000_000);
+        };
+    }
+
+    // static 으로 등록하고 색인을 감쌀 때 가져오는 이유는 ChangeFeedConfig 참고
+    @Bean
+    public static BeanPostProcessor suggestIndexItemRepositoryPostProcessor(ObjectProvider<NameSuggestIndex> index) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if ("itemRepository".equals(beanName) && bean instanceof ItemRepository) {
+                    return new SuggestIndexItemRepository((ItemRepository) bean, index.getObject());
+                }
+                return bean;
+            }
+        };
+    }
+}
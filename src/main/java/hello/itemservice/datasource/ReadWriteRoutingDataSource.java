@@ -0,0 +1,59 @@
+package hello.itemservice.datasource;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 읽기 전용 트랜잭션은 replica 로, 그 외에는 primary 로 보내는 DataSource
+ * NOTE : AbstractRoutingDataSource 는 커넥션을 얻을 때마다 determineCurrentLookupKey()로 사용할 DataSource 를 고른다.
+ *  - @Transactional(readOnly = true) 안에서 얻는 커넥션은 replica 들을 돌아가며(round-robin) 사용한다.
+ *  - 같은 요청에서 쓰기가 있었다면(ReadYourWrites) 읽기도 primary 로 보내 방금 쓴 데이터를 읽을 수 있게 한다.
+ *  - 트랜잭션 밖(스트리밍 조회, Flyway 등)의 커넥션은 primary 를 사용한다.
+ *  - replica 를 고르면 ReplicaReads 에 표시한다. 캐시 데코레이터는 replica 에서 읽은 값을 캐시에 남기지 않으므로
+ *      공유 캐시는 primary 에서 읽은 값(쓰기 이후의 읽기, 트랜잭션 밖의 읽기)으로만 채워진다.
+ *  트랜잭션 매니저는 readOnly 속성을 등록하기 전에 커넥션을 먼저 얻으므로
+ *  반드시 LazyConnectionDataSourceProxy 로 감싸서 실제 SQL 을 실행할 때 커넥션을 얻도록 해야 한다.
+ */
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource {
+
+    static final String PRIMARY = "primary";
+    private static final String REPLICA_PREFIX = "replica-";
+
+    private final List<String> replicaKeys;
+    private final AtomicInteger next = new AtomicInteger();
+
+    public ReadWriteRoutingDataSource(DataSource primary, List<DataSource> replicas) {
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(PRIMARY, primary);
+        String[] keys = new String[replicas.size()];
+        for (int i = 0; i < replicas.size(); i++) {
+            keys[i] = REPLICA_PREFIX + i;
+            targets.put(keys[i], replicas.get(i));
+        }
+        this.replicaKeys = List.of(keys);
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+        afterPropertiesSet();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            if (ReadYourWrites.isMarked() || replicaKeys.isEmpty()) {
+                return PRIMARY;
+            }
+            ReplicaReads.markUsed();
+            return replicaKeys.get(Math.floorMod(next.getAndIncrement(), replicaKeys.size()));
+        }
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            ReadYourWrites.mark();
+        }
+        return PRIMARY;
+    }
+}
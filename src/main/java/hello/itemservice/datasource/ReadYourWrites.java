@@ -0,0 +1,27 @@
+package hello.itemservice.datasource;
+
+/**
+ * 쓰기 이후 같은 요청(스레드)의 읽기를 primary 로 고정하기 위한 표시
+ * NOTE : replica 는 primary 의 변경을 조금 늦게 받으므로, 방금 저장한 상품을 바로 조회하면 replica 에는 아직 없을 수 있다.
+ *  ReadWriteRoutingDataSource 가 쓰기 트랜잭션에서 커넥션을 얻을 때 mark()를 호출하고, 이후 읽기는 primary 로 보낸다.
+ *  요청이 끝나면 ReadYourWritesFilter 가 clear()를 호출한다. 웹 요청이 아닌 스레드에서는 직접 clear()를 호출해야 한다.
+ */
+public final class ReadYourWrites {
+
+    private static final ThreadLocal<Boolean> WROTE = new ThreadLocal<>();
+
+    private ReadYourWrites() {
+    }
+
+    public static void mark() {
+        WROTE.set(Boolean.TRUE);
+    }
+
+    public static boolean isMarked() {
+        return WROTE.get() != null;
+    }
+
+    public static void clear() {
+        WROTE.remove();
+    }
+}
@@ -0,0 +1,26 @@
+package hello.itemservice.datasource;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 읽기 전용 replica 접속 정보
+ * ex) itemservice.datasource.replicas[0].url=jdbc:h2:tcp://replica1/~/myStudyDB/DB_Part2
+ *     itemservice.datasource.replicas[0].username=sa
+ */
+@Data
+@ConfigurationProperties("itemservice.datasource")
+public class ReplicaDataSourceProperties {
+
+    private List<Replica> replicas = new ArrayList<>();
+
+    @Data
+    public static class Replica {
+        private String url;
+        private String username;
+        private String password;
+    }
+}
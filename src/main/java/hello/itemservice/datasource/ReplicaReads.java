@@ -0,0 +1,37 @@
+package hello.itemservice.datasource;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * 현재 트랜잭션(읽기 전용 범위)이 replica 커넥션을 사용했는지를 나타내는 표시
+ * NOTE : replica 에서 읽은 값은 primary 보다 늦을 수 있으므로 여러 요청이 공유하는 캐시에 넣으면
+ *  복제 지연이 지난 뒤에도 ttl 이 끝나거나 다음 쓰기가 일어날 때까지 오래된 값이 남는다.
+ *  ReadWriteRoutingDataSource 가 replica 를 고를 때 markUsed()를 호출하고, 캐시 데코레이터는 inCurrentTransaction()이면
+ *  방금 조회한 값을 캐시에 남기지 않는다. 표시는 트랜잭션(동기화 범위)이 끝나면 지워진다.
+ */
+public final class ReplicaReads {
+
+    private static final ThreadLocal<Boolean> USED = new ThreadLocal<>();
+
+    private ReplicaReads() {
+    }
+
+    static void markUsed() {
+        //동기화 범위 밖이라면 지울 시점이 없으므로 표시하지 않는다. (readOnly 속성은 동기화 범위 안에서만 주어진다)
+        if (!TransactionSynchronizationManager.isSynchronizationActive() || USED.get() != null) {
+            return;
+        }
+        USED.set(Boolean.TRUE);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                USED.remove();
+            }
+        });
+    }
+
+    public static boolean inCurrentTransaction() {
+        return USED.get() != null;
+    }
+}
@@ -0,0 +1,31 @@
+package hello.itemservice.datasource;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 샤드 접속 정보. 목록 순서가 샤드 번호이므로 순서와 개수를 바꾸면 안 된다.
+ * ex) itemservice.shard.datasources[0].url=jdbc:h2:tcp://shard0/~/myStudyDB/DB_Part2
+ *     itemservice.shard.datasources[1].url=jdbc:h2:tcp://shard1/~/myStudyDB/DB_Part2
+ */
+@Data
+@ConfigurationProperties("itemservice.shard")
+public class ShardDataSourceProperties {
+
+    private List<Shard> datasources = new ArrayList<>();
+
+    /**
+     * 샤드 검색(scatter-gather)에 사용할 스레드 수. 0 이면 샤드 수 - 1 (첫 번째 샤드는 요청 스레드가 직접 조회한다)
+     */
+    private int searchThreads;
+
+    @Data
+    public static class Shard {
+        private String url;
+        private String username;
+        private String password;
+    }
+}
@@ -0,0 +1,144 @@
+package hello.itemservice.datasource.profiler;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * SQL 실행 시간을 StatementProfiler 에 기록하는 DataSource
+ * NOTE : 커넥션과 Statement 를 JDK 동적 프록시로 감싸 execute* 메소드(execute, executeQuery, executeUpdate, executeBatch 등)의 시간을 잰다.
+ *  executeQuery 는 첫 결과를 받을 때까지의 시간이며 ResultSet 을 읽는 시간은 포함하지 않는다.
+ *  PreparedStatement 는 prepareStatement 에 넘긴 SQL 로, Statement 는 execute 에 넘긴 SQL 로 기록한다.
+ *  close()는 감싼 DataSource(커넥션 풀)를 닫는다. 빈으로 등록하면 컨테이너가 종료할 때 호출한다.
+ */
+public class ProfilingDataSource extends DelegatingDataSource implements AutoCloseable {
+
+    private static final String BATCH = "(batch)";
+
+    private final StatementProfiler profiler;
+
+    public ProfilingDataSource(DataSource target, StatementProfiler profiler) {
+        super(target);
+        this.profiler = profiler;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return wrap(super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return wrap(super.getConnection(username, password));
+    }
+
+    @Override
+    public void close() throws Exception {
+        DataSource target = obtainTargetDataSource();
+        if (target instanceof AutoCloseable) {
+            ((AutoCloseable) target).close();
+        }
+    }
+
+    private Connection wrap(Connection connection) {
+        return (Connection) Proxy.newProxyInstance(ProfilingDataSource.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, new ConnectionHandler(connection));
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getTargetException();
+        }
+    }
+
+    private final class ConnectionHandler implements InvocationHandler {
+
+        private final Connection target;
+
+        private ConnectionHandler(Connection target) {
+            this.target = target;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "unwrap":
+                    if (((Class<?>) args[0]).isInstance(proxy)) {
+                        return proxy;
+                    }
+                    break;
+                default:
+            }
+            Object result = ProfilingDataSource.invoke(target, method, args);
+            if (result instanceof Statement) {
+                String sql = args != null && args.length > 0 && args[0] instanceof String ? (String) args[0] : null;
+                return wrap((Statement) result, sql, method.getReturnType());
+            }
+            return result;
+        }
+
+        private Statement wrap(Statement statement, String sql, Class<?> type) {
+            Class<?> statementType = type == CallableStatement.class || type == PreparedStatement.class
+                    ? type : Statement.class;
+            return (Statement) Proxy.newProxyInstance(ProfilingDataSource.class.getClassLoader(),
+                    new Class<?>[]{statementType}, new StatementHandler(statement, sql));
+        }
+    }
+
+    private final class StatementHandler implements InvocationHandler {
+
+        private final Statement target;
+        //PreparedStatement 의 SQL. Statement 는 null
+        private final String sql;
+
+        private StatementHandler(Statement target, String sql) {
+            this.target = target;
+            this.sql = sql;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if ("equals".equals(name)) {
+                return proxy == args[0];
+            }
+            if ("hashCode".equals(name)) {
+                return System.identityHashCode(proxy);
+            }
+            if (!name.startsWith("execute")) {
+                return ProfilingDataSource.invoke(target, method, args);
+            }
+            long start = System.nanoTime();
+            try {
+                return ProfilingDataSource.invoke(target, method, args);
+            } finally {
+                profiler.record(sqlOf(name, args), System.nanoTime() - start);
+            }
+        }
+
+        private String sqlOf(String name, Object[] args) {
+            if (args != null && args.length > 0 && args[0] instanceof String) {
+                return (String) args[0];
+            }
+            if (sql != null) {
+                return sql;
+            }
+            return name.contains("Batch") ? BATCH : name;
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package hello.itemservice.datasource.profiler;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 같은 형태의 SQL 을 같은 문자열로 정리한다.
+ * NOTE : 공백을 하나로 줄이고, 문자열/숫자 리터럴은 ? 로, "in (?, ?, ...)" 목록은 길이와 상관없이 "in (?...)"로 바꾼다.
+ *  같은 SQL 문자열은 반복해서 실행되므로 결과를 MAX_CACHED 개까지 기억해 두고 다시 계산하지 않는다.
+ */
+final class SqlNormalizer {
+
+    static final int MAX_CACHED = 4096;
+
+    private final ConcurrentHashMap<String, String> cache = new ConcurrentHashMap<>();
+
+    String normalize(String sql) {
+        String normalized = cache.get(sql);
+        if (normalized != null) {
+            return normalized;
+        }
+        normalized = collapseInLists(replaceLiterals(sql));
+        if (cache.size() < MAX_CACHED) {
+            cache.putIfAbsent(sql, normalized);
+        }
+        return normalized;
+    }
+
+    private static String replaceLiterals(String sql) {
+        StringBuilder out = new StringBuilder(sql.length());
+        int i = 0;
+        while (i < sql.length()) {
+            char c = sql.charAt(i);
+            if (Character.isWhitespace(c)) {
+                while (i < sql.length() && Character.isWhitespace(sql.charAt(i))) {
+                    i++;
+                }
+                if (out.length() > 0 && i < sql.length()) {
+                    out.append(' ');
+                }
+                continue;
+            }
+            if (c == '\'') {
+                //'' 는 문자열 안의 작은따옴표
+                i++;
+                while (i < sql.length()) {
+                    if (sql.charAt(i) == '\'') {
+                        if (i + 1 < sql.length() && sql.charAt(i + 1) == '\'') {
+                            i += 2;
+                            continue;
+                        }
+                        break;
+                    }
+                    i++;
+                }
+                out.append('?');
+                i++;
+                continue;
+            }
+            if (Character.isDigit(c) && (out.length() == 0 || !isIdentifierPart(out.charAt(out.length() - 1)))) {
+                while (i < sql.length() && (Character.isDigit(sql.charAt(i)) || sql.charAt(i) == '.')) {
+                    i++;
+                }
+                out.append('?');
+                continue;
+            }
+            out.append(c);
+            i++;
+        }
+        return out.toString();
+    }
+
+    /**
+     * "in (?, ?, ?)" 처럼 in 뒤에 ? 만 있는 괄호를 "(?...)"로 바꾼다.
+     */
+    private static String collapseInLists(String sql) {
+        StringBuilder out = new StringBuilder(sql.length());
+        int i = 0;
+        while (i < sql.length()) {
+            char c = sql.charAt(i);
+            if (c == '(' && endsWithIn(out)) {
+                int end = placeholderListEnd(sql, i + 1);
+                if (end > 0) {
+                    out.append("(?...)");
+                    i = end + 1;
+                    continue;
+                }
+            }
+            out.append(c);
+            i++;
+        }
+        return out.toString();
+    }
+
+    /**
+     * from 부터 "?, ?, ... )" 형태이면 닫는 괄호의 위치를, 아니면 -1 을 반환한다. ? 가 둘 이상일 때만 바꾼다.
+     */
+    private static int placeholderListEnd(String sql, int from) {
+        int placeholders = 0;
+        boolean expectPlaceholder = true;
+        for (int i = from; i < sql.length(); i++) {
+            char c = sql.charAt(i);
+            if (c == ' ') {
+                continue;
+            }
+            if (expectPlaceholder && c == '?') {
+                placeholders++;
+                expectPlaceholder = false;
+            } else if (!expectPlaceholder && c == ',') {
+                expectPlaceholder = true;
+            } else if (!expectPlaceholder && c == ')') {
+                return placeholders > 1 ? i : -1;
+            } else {
+                return -1;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean endsWithIn(StringBuilder out) {
+        int end = out.length();
+        if (end > 0 && out.charAt(end - 1) == ' ') {
+            end--;
+        }
+        return end >= 2
+                && Character.toLowerCase(out.charAt(end - 2)) == 'i'
+                && Character.toLowerCase(out.charAt(end - 1)) == 'n'
+                && (end == 2 || !isIdentifierPart(out.charAt(end - 3)));
+    }
+
+    private static boolean isIdentifierPart(char c) {
+        return Character.isLetterOrDigit(c) || c == '_' || c == '$';
+    }
+}
@@ -0,0 +1,169 @@
+package hello.itemservice.datasource.profiler;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * SQL 실행 시간을 정리한 SQL(SqlNormalizer)별로 모으고, 느린 SQL 과 N+1 의심 요청을 로그로 남긴다.
+ * NOTE : ProfilingDataSource 가 실행할 때마다 record()를 호출한다.
+ *  - 통계 : 정리한 SQL 별 StatementStats 에 기록한다. 서로 다른 SQL 은 MAX_STATEMENTS 개까지만 따로 모으고 나머지는 OTHER 로 합친다.
+ *  - 느린 SQL : slowThreshold 이상 걸린 SQL 은 큐에 넣고 별도 스레드가 로그를 남긴다. 요청 스레드는 로그 출력을 기다리지 않는다.
+ *      큐가 가득 차면 버리고 버린 수(droppedLogs)만 센다.
+ *  - N+1 : beginRequest()와 endRequest() 사이(한 요청)에 같은 SQL 을 nPlusOneThreshold 번 이상 실행하면 N+1 로 보고 로그를 남긴다.
+ *      요청 단위는 StatementProfilerFilter 가 정한다. 요청 밖(스케줄러, 배치 등)의 실행은 세지 않는다.
+ */
+@Slf4j
+public class StatementProfiler implements AutoCloseable {
+
+    public static final int MAX_STATEMENTS = 1000;
+    static final String OTHER = "(other)";
+
+    private static final int LOG_QUEUE_SIZE = 1024;
+
+    private final long slowThresholdNanos;
+    private final int nPlusOneThreshold;
+    private final SqlNormalizer normalizer = new SqlNormalizer();
+    private final ConcurrentHashMap<String, StatementStats> statements = new ConcurrentHashMap<>();
+    private final ThreadLocal<RequestStatements> request = new ThreadLocal<>();
+    private final BlockingQueue<String> logQueue = new ArrayBlockingQueue<>(LOG_QUEUE_SIZE);
+    private final LongAdder droppedLogs = new LongAdder();
+    private final Thread logger;
+    private volatile boolean running = true;
+
+    public StatementProfiler(Duration slowThreshold, int nPlusOneThreshold) {
+        this.slowThresholdNanos = slowThreshold.toNanos();
+        this.nPlusOneThreshold = nPlusOneThreshold;
+        this.logger = new Thread(this::drainLogs, "statement-profiler-log");
+        this.logger.setDaemon(true);
+        this.logger.start();
+    }
+
+    /**
+     * SQL 한 번의 실행 시간을 기록한다.
+     */
+    public void record(String sql, long nanos) {
+        String normalized = normalizer.normalize(sql);
+        boolean slow = nanos >= slowThresholdNanos;
+        stats(normalized).record(nanos, slow);
+        if (slow) {
+            enqueue("느린 SQL " + nanos / 1_000_000 + "ms : " + sql);
+        }
+        RequestStatements current = request.get();
+        if (current != null) {
+            current.executed(normalized);
+        }
+    }
+
+    /**
+     * 현재 스레드에서 요청이 시작되었다. name 은 N+1 로그에 남길 요청 이름(ex: GET /items)
+     */
+    public void beginRequest(String name) {
+        request.set(new RequestStatements(name));
+    }
+
+    /**
+     * 현재 스레드의 요청이 끝났다. 같은 SQL 을 nPlusOneThreshold 번 이상 실행했으면 N+1 로 기록한다.
+     */
+    public void endRequest() {
+        RequestStatements current = request.get();
+        if (current == null) {
+            return;
+        }
+        request.remove();
+        if (current.maxRepeat < nPlusOneThreshold) {
+            return;
+        }
+        current.counts.forEach((sql, count) -> {
+            if (count[0] >= nPlusOneThreshold) {
+                stats(sql).nPlusOne();
+                enqueue("N+1 의심 " + current.name + " : 같은 SQL 을 " + count[0] + "번 실행 : " + sql);
+            }
+        });
+    }
+
+    /**
+     * 실행 시간 합계가 큰 순서로 limit 개
+     */
+    public List<StatementSummary> top(int limit) {
+        List<StatementStats> sorted = new ArrayList<>(statements.values());
+        sorted.sort(Comparator.comparingLong(StatementStats::totalNanos).reversed());
+        List<StatementSummary> result = new ArrayList<>(Math.min(limit, sorted.size()));
+        for (int i = 0; i < sorted.size() && i < limit; i++) {
+            result.add(sorted.get(i).summary());
+        }
+        return result;
+    }
+
+    /**
+     * 로그 큐가 가득 차서 버린 로그 수
+     */
+    public long droppedLogs() {
+        return droppedLogs.sum();
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        logger.interrupt();
+    }
+
+    private StatementStats stats(String normalized) {
+        StatementStats stats = statements.get(normalized);
+        if (stats != null) {
+            return stats;
+        }
+        if (statements.size() >= MAX_STATEMENTS) {
+            return statements.computeIfAbsent(OTHER, StatementStats::new);
+        }
+        return statements.computeIfAbsent(normalized, StatementStats::new);
+    }
+
+    private void enqueue(String message) {
+        if (!logQueue.offer(message)) {
+            droppedLogs.increment();
+        }
+    }
+
+    private void drainLogs() {
+        while (running) {
+            try {
+                String message = logQueue.poll(1, TimeUnit.SECONDS);
+                if (message != null) {
+                    log.warn(message);
+                }
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * 한 요청에서 실행한 SQL 별 횟수. 요청 스레드 하나만 사용한다.
+     */
+    private static final class RequestStatements {
+
+        private final String name;
+        private final Map<String, int[]> counts = new HashMap<>();
+        private int maxRepeat;
+
+        private RequestStatements(String name) {
+            this.name = name;
+        }
+
+        void executed(String sql) {
+            int[] count = counts.computeIfAbsent(sql, key -> new int[1]);
+            maxRepeat = Math.max(maxRepeat, ++count[0]);
+        }
+    }
+}
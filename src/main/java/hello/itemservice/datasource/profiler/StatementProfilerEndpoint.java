@@ -0,0 +1,27 @@
+package hello.itemservice.datasource.profiler;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.lang.Nullable;
+
+import java.util.List;
+
+/**
+ * 실행 시간 합계가 큰 SQL 목록 (/actuator/statements?limit=20)
+ */
+@Endpoint(id = "statements")
+public class StatementProfilerEndpoint {
+
+    private static final int DEFAULT_LIMIT = 20;
+
+    private final StatementProfiler profiler;
+
+    public StatementProfilerEndpoint(StatementProfiler profiler) {
+        this.profiler = profiler;
+    }
+
+    @ReadOperation
+    public List<StatementSummary> statements(@Nullable Integer limit) {
+        return profiler.top(limit == null || limit <= 0 ? DEFAULT_LIMIT : limit);
+    }
+}
@@ -0,0 +1,33 @@
+package hello.itemservice.datasource.profiler;
+
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * 요청 하나를 N+1 검사 단위로 StatementProfiler 에 알린다.
+ * NOTE : StreamingResponseBody(/items/export)처럼 다른 스레드에서 실행한 SQL 은 요청에 포함되지 않는다.
+ */
+public class StatementProfilerFilter extends OncePerRequestFilter {
+
+    private final StatementProfiler profiler;
+
+    public StatementProfilerFilter(StatementProfiler profiler) {
+        this.profiler = profiler;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        profiler.beginRequest(request.getMethod() + " " + request.getRequestURI());
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            profiler.endRequest();
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package hello.itemservice.datasource.profiler;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * SQL 프로파일러 설정
+ * ex) itemservice.profiler.enabled=true
+ *     itemservice.profiler.slow-threshold=100ms
+ *     itemservice.profiler.n-plus-one-threshold=10
+ */
+@Data
+@ConfigurationProperties("itemservice.profiler")
+public class StatementProfilerProperties {
+
+    private boolean enabled = false;
+
+    /**
+     * 이 시간 이상 걸린 SQL 을 로그로 남긴다.
+     */
+    private Duration slowThreshold = Duration.ofMillis(100);
+
+    /**
+     * 한 요청에서 같은 SQL 을 이 횟수 이상 실행하면 N+1 로 본다.
+     */
+    private int nPlusOneThreshold = 10;
+}
@@ -0,0 +1,73 @@
+package hello.itemservice.datasource.profiler;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 정리한 SQL 하나의 실행 횟수, 실행 시간 합계, 최대 실행 시간과 실행 시간 분포
+ * NOTE : 분포는 마이크로초 단위의 2의 거듭제곱 구간(1, 2, 4, ... 2^31 us)에 몇 번 들어왔는지만 센다.
+ *  백분위수는 해당 구간의 상한으로 계산하므로 최대 2배까지 크게 나올 수 있다. 대신 기록할 때 할당이나 락이 없다.
+ */
+final class StatementStats {
+
+    private static final int BUCKETS = 32;
+
+    private final String sql;
+    private final LongAdder count = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+    private final LongAdder slowCount = new LongAdder();
+    private final LongAdder nPlusOneRequests = new LongAdder();
+
+    StatementStats(String sql) {
+        this.sql = sql;
+    }
+
+    void record(long nanos, boolean slow) {
+        count.increment();
+        totalNanos.add(nanos);
+        maxNanos.accumulate(nanos);
+        buckets.incrementAndGet(bucketOf(nanos / 1000));
+        if (slow) {
+            slowCount.increment();
+        }
+    }
+
+    void nPlusOne() {
+        nPlusOneRequests.increment();
+    }
+
+    long totalNanos() {
+        return totalNanos.sum();
+    }
+
+    StatementSummary summary() {
+        long executions = count.sum();
+        long total = totalNanos.sum();
+        return new StatementSummary(sql, executions, total / 1_000_000,
+                executions == 0 ? 0 : total / executions / 1000,
+                percentileMicros(executions, 0.5), percentileMicros(executions, 0.99),
+                maxNanos.get() / 1000, slowCount.sum(), nPlusOneRequests.sum());
+    }
+
+    private long percentileMicros(long executions, double quantile) {
+        long rank = (long) Math.ceil(executions * quantile);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += buckets.get(i);
+            if (seen >= rank && seen > 0) {
+                return 1L << (i + 1);
+            }
+        }
+        return 0;
+    }
+
+    private static int bucketOf(long micros) {
+        if (micros <= 1) {
+            return 0;
+        }
+        return Math.min(BUCKETS - 1, 63 - Long.numberOfLeadingZeros(micros));
+    }
+}
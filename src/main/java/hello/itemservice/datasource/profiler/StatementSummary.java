@@ -0,0 +1,27 @@
+package hello.itemservice.datasource.profiler;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.ToString;
+
+/**
+ * /actuator/statements 가 반환하는 SQL 별 실행 통계. 시간은 밀리초(Millis) 또는 마이크로초(Micros) 단위
+ */
+@Getter
+@ToString
+@RequiredArgsConstructor
+public class StatementSummary {
+
+    private final String sql;
+    private final long count;
+    private final long totalMillis;
+    private final long meanMicros;
+    private final long p50Micros;
+    private final long p99Micros;
+    private final long maxMicros;
+    private final long slowCount;
+    /**
+     * 한 요청에서 이 SQL 을 nPlusOneThreshold 번 이상 실행한 요청 수
+     */
+    private final long nPlusOneRequests;
+}
@@ -0,0 +1,58 @@
+package hello.itemservice.domain;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * 조회 전용 상품 (ItemService.findItemViews, findItemView)
+ * NOTE : Item 은 값이 없을 수 있는 Long, Integer 필드를 setter 로 채우므로 행마다 Item 과 함께 Long, Integer 객체가 만들어진다.
+ *  (Integer.valueOf 는 -128~127 만 캐시한다)
+ *  ItemView 는 기본형(long, int) 필드를 생성자로 한 번에 채우므로 행마다 ItemView 하나와 상품명 String 만 만들어진다.
+ *  - 값이 없는(null) 가격과 수량은 NO_VALUE 로 채우고 hasPrice(), hasQuantity() 로 구분한다. (0 은 실제 값이다)
+ *  - 수정할 수 없으므로 여러 요청이 같은 객체를 복사하지 않고 함께 사용할 수 있다.
+ */
+@Getter
+@ToString
+@EqualsAndHashCode
+public final class ItemView {
+
+    /**
+     * 값이 없는(null) 가격, 수량. (OffHeapItemRepository 의 NULL_INT 와 같은 값)
+     */
+    public static final int NO_VALUE = Integer.MIN_VALUE;
+
+    private final long id;
+    private final String itemName;
+    private final int price;
+    private final int quantity;
+
+    public ItemView(long id, String itemName, int price, int quantity) {
+        this.id = id;
+        this.itemName = itemName;
+        this.price = price;
+        this.quantity = quantity;
+    }
+
+    public static ItemView of(Item item) {
+        return new ItemView(item.getId(),
+                item.getItemName(),
+                item.getPrice() == null ? NO_VALUE : item.getPrice(),
+                item.getQuantity() == null ? NO_VALUE : item.getQuantity());
+    }
+
+    public boolean hasPrice() {
+        return price != NO_VALUE;
+    }
+
+    public boolean hasQuantity() {
+        return quantity != NO_VALUE;
+    }
+
+    /**
+     * 수량만 바꾼 ItemView
+     */
+    public ItemView withQuantity(int quantity) {
+        return quantity == this.quantity ? this : new ItemView(id, itemName, price, quantity);
+    }
+}
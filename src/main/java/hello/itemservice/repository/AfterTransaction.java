@@ -0,0 +1,48 @@
+package hello.itemservice.repository;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * 트랜잭션이 끝난 뒤에 실행할 작업을 등록하는 도우미 (캐시 정리, 변경 발행, 자동완성 색인 반영)
+ * NOTE : 트랜잭션 안에서 수정한 내용은 커밋 전까지 다른 트랜잭션에 보이지 않는다.
+ *  그 사이에 다른 트랜잭션이 이전 값을 읽어 캐시에 넣을 수 있으므로, 캐시는 트랜잭션이 끝난 뒤(afterCompletion)에 한 번 더 정리한다.
+ *  저장소 밖으로 내보내는 변경(캐시 채우기, ItemChangeFeed, NameSuggestIndex)은 롤백될 수 있으므로 커밋된 뒤(afterCommit)에 반영한다.
+ *  진행 중인 트랜잭션이 없다면 onCompletion 은 아무것도 하지 않고 onCommit 은 바로 실행한다.
+ */
+public final class AfterTransaction {
+
+    private AfterTransaction() {
+    }
+
+    /**
+     * 트랜잭션이 커밋 또는 롤백으로 끝나면 action 을 실행한다.
+     */
+    public static void onCompletion(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                action.run();
+            }
+        });
+    }
+
+    /**
+     * 트랜잭션이 커밋되면 action 을 실행한다. 진행 중인 트랜잭션이 없다면 바로 실행한다.
+     */
+    public static void onCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
@@ -1,18 +1,73 @@
 package hello.itemservice.repository;
 
 import hello.itemservice.domain.Item;
+import hello.itemservice.domain.ItemView;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface ItemRepository {
 
+    /**
+     * streamAll()에서 드라이버가 한 번에 가져올 행 수
+     */
+    int STREAM_FETCH_SIZE = 1000;
+
     Item save(Item item);
 
+    List<Item> saveAll(List<Item> items);
+
     void update(Long itemId, ItemUpdateDto updateParam);
 
+    /**
+     * 재고가 quantity 이상 남아 있을 때만 quantity 만큼 차감한다. 차감했다면 true, 재고가 부족하거나 상품이 없으면 false 를 반환한다.
+     * update()처럼 읽고 나서 쓰는 것이 아니라 한 번의 조건부 변경으로 처리하므로 동시에 호출해도 재고가 음수가 되지 않는다.
+     */
+    boolean reserve(Long itemId, int quantity);
+
+    /**
+     * reserve()로 차감한 재고를 quantity 만큼 되돌린다. 상품이 없으면 false 를 반환한다.
+     */
+    boolean release(Long itemId, int quantity);
+
     Optional<Item> findById(Long id);
 
+    /**
+     * ids 에 해당하는 상품을 한 번에 조회하여 id 순으로 반환한다. 없는 id 는 건너뛰고 중복된 id 는 한 번만 반환한다.
+     * findById 를 반복 호출하는 것과 달리 DB 왕복이 한 번(또는 IN 목록 크기로 나눈 횟수)으로 끝난다.
+     */
+    List<Item> findAllByIds(Collection<Long> ids);
+
     List<Item> findAll(ItemSearchCond cond);
 
+    /**
+     * 검색 조건에 맞는 상품을 id 순으로 하나씩 읽어오는 Stream 을 반환한다.
+     * afterId 이후부터 읽으며 size(limit)는 적용하지 않는다. 사용 후에는 반드시 close() 해야 한다.
+     */
+    Stream<Item> streamAll(ItemSearchCond cond);
+
+    /**
+     * findById 와 같지만 조회 전용 ItemView 로 반환한다.
+     * 기본 구현은 Item 을 조회해서 변환하며, DB 구현체는 조회 결과를 바로 ItemView 로 만든다.
+     * 데코레이터는 target 의 findViewById 를 호출해야 한다. (기본 구현을 쓰면 target 의 구현을 건너뛴다)
+     */
+    default Optional<ItemView> findViewById(Long id) {
+        return findById(id).map(ItemView::of);
+    }
+
+    /**
+     * findAll 과 같지만 조회 전용 ItemView 로 반환한다. (findViewById 참고)
+     */
+    default List<ItemView> findAllViews(ItemSearchCond cond) {
+        List<Item> items = findAll(cond);
+        List<ItemView> views = new ArrayList<>(items.size());
+        for (Item item : items) {
+            views.add(ItemView.of(item));
+        }
+        return views;
+    }
+
 }
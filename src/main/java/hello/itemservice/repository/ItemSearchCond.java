@@ -1,12 +1,29 @@
 package hello.itemservice.repository;
 
 import lombok.Data;
+import org.springframework.util.StringUtils;
 
 @Data
 public class ItemSearchCond {
 
+    public static final int DEFAULT_PAGE_SIZE = 20;
+    public static final int MAX_PAGE_SIZE = 100;
+
     private String itemName;
+    private Integer minPrice;
     private Integer maxPrice;
+    private Integer minQuantity;
+    private ItemSort sort;
+
+    // NOTE : 키셋(keyset) 페이징
+    //  offset 방식은 앞 페이지의 행을 모두 읽고 버려야 하므로 뒤로 갈수록 느려진다.
+    //  대신 이전 페이지의 마지막 id(afterId)를 받아 "where id > ? order by id limit ?" 로 다음 페이지를 조회한다.
+    private Long afterId;
+    private Integer size;
+
+    // NOTE : 가격순 정렬은 (price, id) 순서로 이어서 조회하므로 이전 페이지의 마지막 가격(afterPrice)도 함께 받는다.
+    //  afterId 와 afterPrice 가 모두 있을 때만 커서로 사용한다.
+    private Integer afterPrice;
 
     public ItemSearchCond() {
     }
@@ -15,4 +32,82 @@ public class ItemSearchCond {
         this.itemName = itemName;
         this.maxPrice = maxPrice;
     }
+
+    public ItemSearchCond(String itemName, Integer maxPrice, Long afterId, Integer size) {
+        this.itemName = itemName;
+        this.maxPrice = maxPrice;
+        this.afterId = afterId;
+        this.size = size;
+    }
+
+    /**
+     * 같은 결과를 내는 조건이 같은 값(equals)이 되도록 정리한 복사본을 반환한다.
+     * 빈 상품명은 null 로, sort 는 getSortOrder() 로, afterId 와 size 는 실제로 바인딩되는 cursor, limit 값으로 바꾼다.
+     * 가격순 정렬은 커서로 쓰이지 않는 afterId, afterPrice 를 null 로, id 순 정렬은 afterPrice 를 null 로 바꾼다.
+     */
+    public ItemSearchCond normalized() {
+        String name = StringUtils.hasText(itemName) ? itemName : null;
+        ItemSearchCond normalized = new ItemSearchCond(name, maxPrice, getCursor(), getLimit());
+        normalized.setMinPrice(minPrice);
+        normalized.setMinQuantity(minQuantity);
+        normalized.setSort(getSortOrder());
+        if (getSortOrder().byPrice()) {
+            normalized.setAfterId(isPriceCursor() ? afterId : null);
+            normalized.setAfterPrice(isPriceCursor() ? afterPrice : null);
+        }
+        return normalized;
+    }
+
+    /**
+     * 정렬 순서. sort 가 없으면 id 순으로 조회한다.
+     */
+    public ItemSort getSortOrder() {
+        return sort == null ? ItemSort.ID : sort;
+    }
+
+    /**
+     * 가격순 정렬의 키셋 커서(afterPrice, afterId)가 있는지 여부
+     */
+    public boolean isPriceCursor() {
+        return getSortOrder().byPrice() && afterId != null && afterPrice != null;
+    }
+
+    /**
+     * 가격순 정렬에서 "price between ? and ?" 의 하한. 오름차순의 다음 페이지는 이전 페이지의 마지막 가격부터 읽는다.
+     */
+    public int getPriceFrom() {
+        int from = minPrice == null ? Integer.MIN_VALUE : minPrice;
+        if (getSortOrder() == ItemSort.PRICE_ASC && isPriceCursor()) {
+            return Math.max(from, afterPrice);
+        }
+        return from;
+    }
+
+    /**
+     * 가격순 정렬에서 "price between ? and ?" 의 상한. 내림차순의 다음 페이지는 이전 페이지의 마지막 가격까지 읽는다.
+     */
+    public int getPriceTo() {
+        int to = maxPrice == null ? Integer.MAX_VALUE : maxPrice;
+        if (getSortOrder() == ItemSort.PRICE_DESC && isPriceCursor()) {
+            return Math.min(to, afterPrice);
+        }
+        return to;
+    }
+
+    /**
+     * 키셋 조건에 바인딩할 값. afterId 가 없으면 첫 페이지(0 보다 큰 id)부터 조회한다.
+     */
+    public long getCursor() {
+        return afterId == null ? 0L : afterId;
+    }
+
+    /**
+     * 한 번에 조회할 최대 행 수. size 가 없거나 범위를 벗어나면 기본값 또는 최대값으로 제한한다.
+     */
+    public int getLimit() {
+        if (size == null || size <= 0) {
+            return DEFAULT_PAGE_SIZE;
+        }
+        return Math.min(size, MAX_PAGE_SIZE);
+    }
 }
@@ -0,0 +1,34 @@
+package hello.itemservice.repository;
+
+import hello.itemservice.domain.Item;
+
+import java.util.Comparator;
+
+/**
+ * 검색 결과의 정렬 순서
+ * NOTE : 모든 정렬은 id 를 마지막 기준으로 두어 순서가 항상 하나로 정해진다. (키셋 페이징의 커서가 한 행을 가리키도록)
+ *  가격순 정렬은 (price, id) 인덱스를 정방향 또는 역방향으로 읽는 순서와 같으며, 가격이 없는(null) 상품은 결과에서 빠진다.
+ */
+public enum ItemSort {
+
+    ID(Comparator.comparing(Item::getId)),
+    PRICE_ASC(Comparator.comparing(Item::getPrice).thenComparing(Item::getId)),
+    PRICE_DESC(Comparator.comparing(Item::getPrice).thenComparing(Item::getId).reversed());
+
+    private final Comparator<Item> comparator;
+
+    ItemSort(Comparator<Item> comparator) {
+        this.comparator = comparator;
+    }
+
+    /**
+     * 여러 저장소의 결과를 합칠 때 사용하는 정렬 기준
+     */
+    public Comparator<Item> comparator() {
+        return comparator;
+    }
+
+    public boolean byPrice() {
+        return this != ID;
+    }
+}
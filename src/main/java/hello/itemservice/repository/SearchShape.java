@@ -0,0 +1,29 @@
+package hello.itemservice.repository;
+
+import org.springframework.util.StringUtils;
+
+/**
+ * 검색 조건의 형태. 어떤 조건이 들어왔는지에 따라 실행되는 쿼리(와 인덱스 사용 여부)가 달라지므로 지표를 나누는 기준으로 사용한다.
+ * NOTE : 가격, 수량의 범위 조건(minPrice, maxPrice, minQuantity)은 모두 PRICE 로 묶는다.
+ *  정렬 순서는 지표 태그의 수가 늘어나지 않도록 나누지 않는다.
+ */
+public enum SearchShape {
+
+    NONE, NAME, PRICE, NAME_AND_PRICE;
+
+    public static SearchShape of(ItemSearchCond cond) {
+        boolean name = StringUtils.hasText(cond.getItemName());
+        boolean price = cond.getMinPrice() != null || cond.getMaxPrice() != null || cond.getMinQuantity() != null;
+        if (name) {
+            return price ? NAME_AND_PRICE : NAME;
+        }
+        return price ? PRICE : NONE;
+    }
+
+    /**
+     * 지표 태그 값. ex) NAME_AND_PRICE -> name_and_price
+     */
+    public String tag() {
+        return name().toLowerCase();
+    }
+}
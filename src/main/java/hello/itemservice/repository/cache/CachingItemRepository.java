@@ -0,0 +1,216 @@
+package hello.itemservice.repository.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import hello.itemservice.datasource.ReplicaReads;
+import hello.itemservice.domain.Item;
+import hello.itemservice.domain.ItemView;
+import hello.itemservice.repository.AfterTransaction;
+import hello.itemservice.repository.ItemRepository;
+import hello.itemservice.repository.ItemSearchCond;
+import hello.itemservice.repository.ItemUpdateDto;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Stream;
+
+/**
+ * findById 결과를 캐시하는 ItemRepository 데코레이터
+ * NOTE : 어떤 ItemRepository 구현체든 감싸서 사용할 수 있다. (ex. new CachingItemRepository(new JdbcTemplateItemRepositoryV3(dataSource)))
+ *  - 캐시 : Caffeine(W-TinyLFU)으로 최대 개수(maximumSize)를 넘으면 자주 쓰이지 않는 항목부터 내보내고, ttl 이 지나면 만료시킨다.
+ *  - 부정 캐시 : 없는 id 도 Optional.empty() 로 캐시하여 같은 id 를 반복 조회할 때 DB 에 가지 않는다.
+ *  - 여러 건 조회 : findAllByIds 는 캐시에 없는 id 만 모아 target.findAllByIds 한 번으로 채운다.
+ *  - 갱신 : save 는 커밋된 뒤에 저장한 상품으로 캐시를 채우고, update 와 재고 변경(reserve, release)은 캐시를 무효화한다.
+ *  - replica : replica 에서 읽은 값(ReplicaReads)은 복제 지연 동안 오래된 값일 수 있으므로 조회 결과로 반환만 하고 캐시에 남기지 않는다.
+ *      따라서 replica 를 사용하면 캐시는 primary 에서 읽은 값(쓰기 이후의 읽기, 트랜잭션 밖의 읽기)으로만 채워진다.
+ *  - 통계 : recordStats()로 hit/miss/eviction 수를 기록하며 stats()로 확인할 수 있다.
+ *      bindTo(MeterRegistry)로 등록하면 cache.gets, cache.evictions 등의 지표(cache=item.findById)로 노출된다.
+ *  캐시에는 복사본을 넣고 꺼낼 때도 복사본을 반환하여, 호출하는 쪽에서 Item 을 수정해도 캐시가 오염되지 않도록 한다.
+ *  (findViewById 는 수정할 수 없는 ItemView 를 반환하므로 복사하지 않는다)
+ */
+public class CachingItemRepository implements ItemRepository, MeterBinder {
+
+    public static final long DEFAULT_MAXIMUM_SIZE = 10_000;
+    public static final Duration DEFAULT_TTL = Duration.ofMinutes(5);
+    public static final String CACHE_NAME = "item.findById";
+
+    private final ItemRepository target;
+    private final Cache<Long, Optional<Item>> cache;
+
+    public CachingItemRepository(ItemRepository target) {
+        this(target, DEFAULT_MAXIMUM_SIZE, DEFAULT_TTL);
+    }
+
+    public CachingItemRepository(ItemRepository target, long maximumSize, Duration ttl) {
+        this.target = target;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+    }
+
+    @Override
+    public Item save(Item item) {
+        Item savedItem = target.save(item);
+        fill(savedItem);
+        return savedItem;
+    }
+
+    @Override
+    public List<Item> saveAll(List<Item> items) {
+        List<Item> savedItems = target.saveAll(items);
+        for (Item savedItem : savedItems) {
+            fill(savedItem);
+        }
+        return savedItems;
+    }
+
+    @Override
+    public void update(Long itemId, ItemUpdateDto updateParam) {
+        target.update(itemId, updateParam);
+        evict(itemId);
+    }
+
+    @Override
+    public boolean reserve(Long itemId, int quantity) {
+        boolean reserved = target.reserve(itemId, quantity);
+        if (reserved) {
+            evict(itemId);
+        }
+        return reserved;
+    }
+
+    @Override
+    public boolean release(Long itemId, int quantity) {
+        boolean released = target.release(itemId, quantity);
+        if (released) {
+            evict(itemId);
+        }
+        return released;
+    }
+
+    @Override
+    public Optional<Item> findById(Long id) {
+        return cached(id).map(CachingItemRepository::copy);
+    }
+
+    @Override
+    public List<Item> findAllByIds(Collection<Long> ids) {
+        TreeSet<Long> sorted = new TreeSet<>();
+        for (Long id : ids) {
+            if (id != null) {
+                sorted.add(id);
+            }
+        }
+        Set<Long> loadedIds = new HashSet<>();
+        Map<Long, Optional<Item>> cached = cache.getAll(sorted, missing -> {
+            Map<Long, Optional<Item>> loaded = loadAll(missing);
+            loadedIds.addAll(loaded.keySet());
+            return loaded;
+        });
+        if (!loadedIds.isEmpty() && ReplicaReads.inCurrentTransaction()) {
+            cache.invalidateAll(loadedIds);
+        }
+        List<Item> result = new ArrayList<>(sorted.size());
+        for (Long id : sorted) {
+            cached.get(id).map(CachingItemRepository::copy).ifPresent(result::add);
+        }
+        return result;
+    }
+
+    @Override
+    public Optional<ItemView> findViewById(Long id) {
+        // NOTE : ItemView 는 수정할 수 없으므로 캐시된 Item 을 복사하지 않고 바로 변환한다.
+        return cached(id).map(ItemView::of);
+    }
+
+    @Override
+    public List<Item> findAll(ItemSearchCond cond) {
+        return target.findAll(cond);
+    }
+
+    @Override
+    public List<ItemView> findAllViews(ItemSearchCond cond) {
+        return target.findAllViews(cond);
+    }
+
+    @Override
+    public Stream<Item> streamAll(ItemSearchCond cond) {
+        return target.streamAll(cond);
+    }
+
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, cache, CACHE_NAME);
+    }
+
+    public void clear() {
+        cache.invalidateAll();
+    }
+
+    /**
+     * 캐시된 Item 을 반환한다. 반환한 Item 은 캐시 안의 객체이므로 수정하지 말고 복사하거나 변환해서 사용한다.
+     */
+    private Optional<Item> cached(Long id) {
+        // NOTE : Caffeine 의 get(key, mappingFunction)은 같은 key 에 대한 동시 조회를 한 번의 DB 조회로 합친다.
+        //  조회 중에 invalidate 가 호출되면 조회가 끝난 뒤에 제거되므로 오래된 값이 남지 않는다.
+        boolean[] loaded = new boolean[1];
+        Optional<Item> item = cache.get(id, key -> {
+            loaded[0] = true;
+            return target.findById(key).map(CachingItemRepository::copy);
+        });
+        // replica 에서 읽었다면 이번 조회에만 사용하고 캐시에서는 지운다.
+        if (loaded[0] && ReplicaReads.inCurrentTransaction()) {
+            cache.invalidate(id);
+        }
+        return item;
+    }
+
+    private Map<Long, Optional<Item>> loadAll(Iterable<? extends Long> missing) {
+        List<Long> ids = new ArrayList<>();
+        missing.forEach(ids::add);
+        Map<Long, Optional<Item>> loaded = new HashMap<>();
+        for (Long id : ids) {
+            loaded.put(id, Optional.empty());
+        }
+        for (Item item : target.findAllByIds(ids)) {
+            loaded.put(item.getId(), Optional.of(copy(item)));
+        }
+        return loaded;
+    }
+
+    private void fill(Item savedItem) {
+        Long id = savedItem.getId();
+        Optional<Item> copied = Optional.of(copy(savedItem));
+        // 커밋 전에 넣으면 다른 요청이 아직 커밋되지 않은(롤백될 수도 있는) 상품을 보게 되므로 커밋된 뒤에 넣는다.
+        AfterTransaction.onCommit(() -> cache.put(id, copied));
+    }
+
+    private void evict(Long id) {
+        cache.invalidate(id);
+        AfterTransaction.onCompletion(() -> cache.invalidate(id));
+    }
+
+    private static Item copy(Item item) {
+        Item copy = new Item(item.getItemName(), item.getPrice(), item.getQuantity());
+        copy.setId(item.getId());
+        return copy;
+    }
+}
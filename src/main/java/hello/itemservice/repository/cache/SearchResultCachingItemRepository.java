@@ -0,0 +1,213 @@
+package hello.itemservice.repository.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import hello.itemservice.datasource.ReplicaReads;
+import hello.itemservice.domain.Item;
+import hello.itemservice.domain.ItemView;
+import hello.itemservice.repository.AfterTransaction;
+import hello.itemservice.repository.ItemRepository;
+import hello.itemservice.repository.ItemSearchCond;
+import hello.itemservice.repository.ItemUpdateDto;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * findAll 검색 결과를 캐시하는 ItemRepository 데코레이터
+ * NOTE : 캐시 key 는 정리된 검색 조건(ItemSearchCond.normalized())과 카탈로그 버전(version)의 조합이다.
+ *  - 무효화 : save/update/reserve/release 가 일어나면 버전만 1 올린다. 이전 버전의 key 로는 더 이상 조회되지 않으므로
+ *      어떤 검색 결과에 어떤 상품이 들어 있는지 추적하지 않고도 O(1)로 모든 검색 결과를 무효화할 수 있다.
+ *      쓸모 없어진 이전 버전의 항목은 용량이 부족할 때 자연스럽게 밀려난다.
+ *  - 용량 : 항목 수가 아니라 캐시된 전체 행 수(maximumRows)로 제한한다. (Caffeine weigher)
+ *      findAllViews 의 결과(ItemView)는 따로 같은 용량의 캐시(viewCache)에 둔다.
+ *  - 읽기/쓰기 트랜잭션 : 아직 커밋되지 않은 자신의 변경 내용을 캐시에 넣지 않도록 캐시를 사용하지 않는다.
+ *  - replica : replica 에서 읽은 결과(ReplicaReads)는 복제 지연 때문에 쓰기 이후의 새 버전 key 에도 오래된 결과가 들어갈 수 있으므로
+ *      반환만 하고 캐시에 남기지 않는다.
+ *  - 통계 : bindTo(MeterRegistry)로 등록하면 두 캐시의 hit/miss/eviction 수가 cache.* 지표(cache=item.findAll, item.findAllViews)로 노출된다.
+ *  반환하는 목록은 여러 요청이 공유하므로 수정할 수 없는 목록이며, 안의 Item 도 읽기 전용으로 다뤄야 한다.
+ */
+public class SearchResultCachingItemRepository implements ItemRepository, MeterBinder {
+
+    public static final long DEFAULT_MAXIMUM_ROWS = 100_000;
+    public static final String CACHE_NAME = "item.findAll";
+    public static final String VIEW_CACHE_NAME = "item.findAllViews";
+
+    private final ItemRepository target;
+    private final Cache<SearchKey, List<Item>> cache;
+    private final Cache<SearchKey, List<ItemView>> viewCache;
+    private final AtomicLong version = new AtomicLong();
+
+    public SearchResultCachingItemRepository(ItemRepository target) {
+        this(target, DEFAULT_MAXIMUM_ROWS);
+    }
+
+    public SearchResultCachingItemRepository(ItemRepository target, long maximumRows) {
+        this.target = target;
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maximumRows)
+                .weigher((SearchKey key, List<Item> items) -> items.size() + 1)
+                .recordStats()
+                .build();
+        this.viewCache = Caffeine.newBuilder()
+                .maximumWeight(maximumRows)
+                .weigher((SearchKey key, List<ItemView> views) -> views.size() + 1)
+                .recordStats()
+                .build();
+    }
+
+    @Override
+    public Item save(Item item) {
+        Item savedItem = target.save(item);
+        changed();
+        return savedItem;
+    }
+
+    @Override
+    public List<Item> saveAll(List<Item> items) {
+        List<Item> savedItems = target.saveAll(items);
+        changed();
+        return savedItems;
+    }
+
+    @Override
+    public void update(Long itemId, ItemUpdateDto updateParam) {
+        target.update(itemId, updateParam);
+        changed();
+    }
+
+    @Override
+    public boolean reserve(Long itemId, int quantity) {
+        boolean reserved = target.reserve(itemId, quantity);
+        if (reserved) {
+            changed();
+        }
+        return reserved;
+    }
+
+    @Override
+    public boolean release(Long itemId, int quantity) {
+        boolean released = target.release(itemId, quantity);
+        if (released) {
+            changed();
+        }
+        return released;
+    }
+
+    @Override
+    public Optional<Item> findById(Long id) {
+        return target.findById(id);
+    }
+
+    @Override
+    public List<Item> findAllByIds(Collection<Long> ids) {
+        return target.findAllByIds(ids);
+    }
+
+    @Override
+    public List<Item> findAll(ItemSearchCond cond) {
+        if (inReadWriteTransaction()) {
+            return target.findAll(cond);
+        }
+        // NOTE : 버전은 조회 전에 읽는다. 조회 도중 변경이 일어나면 그 결과는 이미 지난 버전의 key 에 저장되므로 다시 사용되지 않는다.
+        SearchKey key = new SearchKey(version.get(), cond.normalized());
+        return cached(cache, key, target::findAll);
+    }
+
+    @Override
+    public Optional<ItemView> findViewById(Long id) {
+        return target.findViewById(id);
+    }
+
+    @Override
+    public List<ItemView> findAllViews(ItemSearchCond cond) {
+        if (inReadWriteTransaction()) {
+            return target.findAllViews(cond);
+        }
+        // NOTE : findAll 과 같은 key(버전 + 정리된 조건)를 사용하므로 같은 방법으로 무효화된다.
+        //  ItemView 는 수정할 수 없으므로 캐시된 목록을 그대로 여러 요청이 함께 사용한다.
+        SearchKey key = new SearchKey(version.get(), cond.normalized());
+        return cached(viewCache, key, target::findAllViews);
+    }
+
+    @Override
+    public Stream<Item> streamAll(ItemSearchCond cond) {
+        return target.streamAll(cond);
+    }
+
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    public CacheStats viewStats() {
+        return viewCache.stats();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, cache, CACHE_NAME);
+        CaffeineCacheMetrics.monitor(registry, viewCache, VIEW_CACHE_NAME);
+    }
+
+    private static <T> List<T> cached(Cache<SearchKey, List<T>> cache, SearchKey key,
+                                      Function<ItemSearchCond, List<T>> query) {
+        boolean[] loaded = new boolean[1];
+        List<T> result = cache.get(key, k -> {
+            loaded[0] = true;
+            return List.copyOf(query.apply(k.cond));
+        });
+        // replica 에서 읽었다면 이번 조회에만 사용하고 캐시에서는 지운다.
+        if (loaded[0] && ReplicaReads.inCurrentTransaction()) {
+            cache.invalidate(key);
+        }
+        return result;
+    }
+
+    private void changed() {
+        version.incrementAndGet();
+        // 트랜잭션 안의 변경이라면 커밋(또는 롤백)된 뒤에도 한 번 더 올려서, 그 사이에 캐시된 결과를 버린다.
+        AfterTransaction.onCompletion(version::incrementAndGet);
+    }
+
+    private static boolean inReadWriteTransaction() {
+        return TransactionSynchronizationManager.isActualTransactionActive()
+                && !TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+    }
+
+    private static final class SearchKey {
+        private final long version;
+        private final ItemSearchCond cond;
+
+        private SearchKey(long version, ItemSearchCond cond) {
+            this.version = version;
+            this.cond = cond;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof SearchKey)) {
+                return false;
+            }
+            SearchKey that = (SearchKey) o;
+            return version == that.version && cond.equals(that.cond);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(version, cond);
+        }
+    }
+}
@@ -0,0 +1,217 @@
+package hello.itemservice.repository.durable;
+
+import hello.itemservice.domain.Item;
+import hello.itemservice.repository.ItemRepository;
+import hello.itemservice.repository.ItemSearchCond;
+import hello.itemservice.repository.ItemUpdateDto;
+import hello.itemservice.repository.memory.MemoryItemRepository;
+import lombok.extern.slf4j.Slf4j;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * 재시작해도 데이터가 남는 메모리 저장소
+ * NOTE : 조회는 모두 MemoryItemRepository 가 처리하고, 변경(save, update, reserve, release)은 메모리에 반영한 뒤
+ *  변경 후의 상품 전체를 WriteAheadLog 에 기록한다.
+ *  - 순서 : 같은 상품의 변경은 줄무늬(stripe) 락 안에서 "메모리 반영 -> 로그 기록" 을 하므로 로그의 순서가 메모리의 순서와 같다.
+ *      서로 다른 상품의 레코드는 순서가 바뀌어도 결과가 같다.
+ *  - 내구성 : syncOnWrite 가 true 면 로그가 디스크에 반영(fsync)될 때까지 기다린 뒤 반환한다. 동시에 들어온 쓰기는 fsync 한 번을 함께 기다린다(group commit).
+ *      false 면 flushInterval 마다 반영하므로 장애 시 그 사이의 변경을 잃을 수 있다.
+ *  - 스냅샷 : snapshot()은 현재 로그 위치를 기억하고 전체 상품을 파일로 쓴 뒤, 그 위치 이전의 로그 세그먼트를 지운다.
+ *      스냅샷을 뜨는 동안의 변경도 로그에 남으므로 복구할 때 다시 적용된다.
+ *  - 복구 : 생성할 때 최신 스냅샷을 읽고 그 위치 이후의 로그를 다시 적용한다.
+ */
+@Slf4j
+public class DurableItemRepository implements ItemRepository, AutoCloseable {
+
+    private static final int LOCK_STRIPES = 64;
+
+    private final Path directory;
+    private final boolean syncOnWrite;
+    private final MemoryItemRepository memory = new MemoryItemRepository();
+    private final WriteAheadLog wal;
+    private final AtomicLong sequence = new AtomicLong();
+    private final Object[] writeLocks = new Object[LOCK_STRIPES];
+    private final Object snapshotLock = new Object();
+    private final ScheduledExecutorService snapshotter = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "durable-snapshot");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public DurableItemRepository(Path directory, boolean syncOnWrite, int segmentSize, Duration flushInterval) {
+        this.directory = directory;
+        this.syncOnWrite = syncOnWrite;
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            writeLocks[i] = new Object();
+        }
+        long started = System.nanoTime();
+        long snapshotLsn = SnapshotFile.loadLatest(directory, this::restore);
+        this.wal = new WriteAheadLog(directory, segmentSize, flushInterval.toMillis(), snapshotLsn,
+                record -> restore(ItemRecords.decode(record)));
+        log.info("복구 완료 directory={}, lastId={}, {}ms", directory, sequence.get(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+    }
+
+    /**
+     * interval 마다 스냅샷을 뜬다.
+     */
+    public void startSnapshots(Duration interval) {
+        long millis = interval.toMillis();
+        snapshotter.scheduleWithFixedDelay(this::snapshotQuietly, millis, millis, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public Item save(Item item) {
+        item.setId(sequence.incrementAndGet());
+        long lsn;
+        synchronized (lockFor(item.getId())) {
+            memory.restore(item);
+            lsn = wal.append(ItemRecords.encode(item));
+        }
+        awaitDurable(lsn);
+        return item;
+    }
+
+    @Override
+    public List<Item> saveAll(List<Item> items) {
+        long lsn = 0L;
+        for (Item item : items) {
+            item.setId(sequence.incrementAndGet());
+            synchronized (lockFor(item.getId())) {
+                memory.restore(item);
+                lsn = wal.append(ItemRecords.encode(item));
+            }
+        }
+        //마지막 레코드까지 반영되면 앞의 레코드도 모두 반영된 것이므로 한 번만 기다린다.
+        awaitDurable(lsn);
+        return items;
+    }
+
+    @Override
+    public void update(Long itemId, ItemUpdateDto updateParam) {
+        long lsn;
+        synchronized (lockFor(itemId)) {
+            memory.update(itemId, updateParam);
+            lsn = logCurrent(itemId);
+        }
+        awaitDurable(lsn);
+    }
+
+    @Override
+    public boolean reserve(Long itemId, int quantity) {
+        long lsn;
+        synchronized (lockFor(itemId)) {
+            if (!memory.reserve(itemId, quantity)) {
+                return false;
+            }
+            lsn = logCurrent(itemId);
+        }
+        awaitDurable(lsn);
+        return true;
+    }
+
+    @Override
+    public boolean release(Long itemId, int quantity) {
+        long lsn;
+        synchronized (lockFor(itemId)) {
+            if (!memory.release(itemId, quantity)) {
+                return false;
+            }
+            lsn = logCurrent(itemId);
+        }
+        awaitDurable(lsn);
+        return true;
+    }
+
+    @Override
+    public Optional<Item> findById(Long id) {
+        return memory.findById(id);
+    }
+
+    @Override
+    public List<Item> findAllByIds(Collection<Long> ids) {
+        return memory.findAllByIds(ids);
+    }
+
+    @Override
+    public List<Item> findAll(ItemSearchCond cond) {
+        return memory.findAll(cond);
+    }
+
+    @Override
+    public Stream<Item> streamAll(ItemSearchCond cond) {
+        return memory.streamAll(cond);
+    }
+
+    /**
+     * 전체 상품을 스냅샷 파일로 쓰고 더 이상 필요 없는 로그 세그먼트와 이전 스냅샷을 지운다.
+     */
+    public void snapshot() {
+        synchronized (snapshotLock) {
+            long started = System.nanoTime();
+            long lsn = wal.position();
+            try (Stream<Item> items = memory.streamAll(new ItemSearchCond())) {
+                Iterator<Item> iterator = items.iterator();
+                SnapshotFile.write(directory, lsn, iterator);
+            }
+            SnapshotFile.deleteOlderThan(directory, lsn);
+            wal.deleteBefore(lsn);
+            log.info("스냅샷 완료 lsn={}, {}ms", lsn, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+        }
+    }
+
+    /**
+     * 스냅샷을 멈추고 마지막 스냅샷을 뜬 뒤 로그를 닫는다.
+     */
+    @Override
+    public void close() {
+        snapshotter.shutdown();
+        try {
+            snapshotter.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        snapshot();
+        wal.close();
+    }
+
+    private void restore(Item item) {
+        memory.restore(item);
+        sequence.accumulateAndGet(item.getId(), Math::max);
+    }
+
+    private long logCurrent(Long itemId) {
+        Item current = memory.findById(itemId).orElseThrow();
+        return wal.append(ItemRecords.encode(current));
+    }
+
+    private void awaitDurable(long lsn) {
+        if (syncOnWrite) {
+            wal.awaitDurable(lsn);
+        }
+    }
+
+    private void snapshotQuietly() {
+        try {
+            snapshot();
+        } catch (RuntimeException e) {
+            //예외가 나면 다음 주기가 실행되지 않으므로 기록만 하고 넘어간다.
+            log.error("스냅샷 실패", e);
+        }
+    }
+
+    private Object lockFor(long id) {
+        return writeLocks[(int) (id & (LOCK_STRIPES - 1))];
+    }
+}
@@ -0,0 +1,34 @@
+package hello.itemservice.repository.durable;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+/**
+ * 재시작해도 데이터가 남는 메모리 저장소(DurableItemRepository) 설정
+ */
+@Data
+@ConfigurationProperties("itemservice.durable")
+public class DurableMemoryProperties {
+
+    /**
+     * 로그 세그먼트와 스냅샷 파일을 두는 디렉토리
+     */
+    private String directory = "./data/items";
+
+    /**
+     * true 면 변경할 때마다 로그가 디스크에 반영(fsync)될 때까지 기다린다.
+     */
+    private boolean syncOnWrite = true;
+
+    /**
+     * syncOnWrite 가 false 일 때 로그를 디스크에 반영하는 주기
+     */
+    private Duration flushInterval = Duration.ofMillis(10);
+
+    private DataSize segmentSize = DataSize.ofMegabytes(64);
+
+    private Duration snapshotInterval = Duration.ofMinutes(10);
+}
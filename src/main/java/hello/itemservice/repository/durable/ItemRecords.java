@@ -0,0 +1,61 @@
+package hello.itemservice.repository.durable;
+
+import hello.itemservice.domain.Item;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 로그와 스냅샷에 기록하는 상품 한 건의 바이트 표현
+ * NOTE : 변경 내용이 아니라 변경 후 상품 전체(id, 상품명, 가격, 수량)를 기록한다.
+ *  같은 레코드를 여러 번 적용해도 결과가 같으므로(멱등) 스냅샷을 뜨는 동안 바뀐 상품을 로그에서 다시 적용해도 된다.
+ *  [id(long)][null 표시(byte)][가격(int)][수량(int)][상품명 길이(int)][상품명 UTF-8]
+ */
+final class ItemRecords {
+
+    private static final byte NULL_NAME = 1;
+    private static final byte NULL_PRICE = 1 << 1;
+    private static final byte NULL_QUANTITY = 1 << 2;
+
+    private static final int FIXED_BYTES = Long.BYTES + 1 + Integer.BYTES * 3;
+
+    private ItemRecords() {
+    }
+
+    static byte[] encode(Item item) {
+        byte[] name = item.getItemName() == null ? new byte[0] : item.getItemName().getBytes(StandardCharsets.UTF_8);
+        byte nulls = 0;
+        if (item.getItemName() == null) {
+            nulls |= NULL_NAME;
+        }
+        if (item.getPrice() == null) {
+            nulls |= NULL_PRICE;
+        }
+        if (item.getQuantity() == null) {
+            nulls |= NULL_QUANTITY;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(FIXED_BYTES + name.length);
+        buffer.putLong(item.getId())
+                .put(nulls)
+                .putInt(item.getPrice() == null ? 0 : item.getPrice())
+                .putInt(item.getQuantity() == null ? 0 : item.getQuantity())
+                .putInt(name.length)
+                .put(name);
+        return buffer.array();
+    }
+
+    static Item decode(ByteBuffer buffer) {
+        long id = buffer.getLong();
+        byte nulls = buffer.get();
+        int price = buffer.getInt();
+        int quantity = buffer.getInt();
+        byte[] name = new byte[buffer.getInt()];
+        buffer.get(name);
+        Item item = new Item(
+                (nulls & NULL_NAME) != 0 ? null : new String(name, StandardCharsets.UTF_8),
+                (nulls & NULL_PRICE) != 0 ? null : price,
+                (nulls & NULL_QUANTITY) != 0 ? null : quantity);
+        item.setId(id);
+        return item;
+    }
+}
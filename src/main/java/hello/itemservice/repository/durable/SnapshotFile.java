@@ -0,0 +1,158 @@
+package hello.itemservice.repository.durable;
+
+import hello.itemservice.domain.Item;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * 저장소 전체를 담은 스냅샷 파일(snapshot-{LSN}.snap)
+ * NOTE : 파일명의 LSN 은 스냅샷을 뜨기 시작한 시점의 로그 위치다. 복구할 때는 스냅샷을 읽고 로그를 그 위치부터 다시 적용한다.
+ *  [ItemRecords 레코드 길이(int)와 내용 x 상품 수][끝 표시(-1)][CRC32(long)]
+ *  임시 파일에 모두 쓰고 fsync 한 뒤 이름을 바꾸므로 중간에 멈춘 스냅샷이 최신 스냅샷으로 읽히지 않는다.
+ *  마지막 CRC 가 맞지 않는 스냅샷은 버리고 그 이전 스냅샷을 사용한다.
+ */
+@Slf4j
+final class SnapshotFile {
+
+    private SnapshotFile() {
+    }
+
+    static void write(Path directory, long lsn, Iterator<Item> items) {
+        Path target = directory.resolve(String.format("snapshot-%016d.snap", lsn));
+        Path temp = directory.resolve(target.getFileName() + ".tmp");
+        try (FileOutputStream file = new FileOutputStream(temp.toFile())) {
+            CRC32 crc = new CRC32();
+            DataOutputStream out = new DataOutputStream(new CheckedOutputStream(new BufferedOutputStream(file, 1 << 16), crc));
+            //스냅샷을 뜨는 동안에도 상품이 늘어날 수 있으므로 개수를 먼저 쓰지 않고 끝 표시(-1)로 구분한다.
+            while (items.hasNext()) {
+                byte[] record = ItemRecords.encode(items.next());
+                out.writeInt(record.length);
+                out.write(record);
+            }
+            out.writeInt(-1);
+            out.flush();
+            long checksum = crc.getValue();
+            out.writeLong(checksum);
+            out.flush();
+            file.getChannel().force(true);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        try {
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * 가장 최근의 올바른 스냅샷을 읽어 restore 에 넘기고 그 LSN 을 반환한다. 스냅샷이 없으면 0
+     */
+    static long loadLatest(Path directory, Consumer<Item> restore) {
+        List<Path> snapshots = list(directory);
+        for (int i = snapshots.size() - 1; i >= 0; i--) {
+            Path snapshot = snapshots.get(i);
+            if (isValid(snapshot)) {
+                read(snapshot, restore);
+                return lsnOf(snapshot);
+            }
+            log.warn("손상된 스냅샷을 건너뜁니다. {}", snapshot);
+        }
+        return 0L;
+    }
+
+    /**
+     * keepLsn 보다 오래된 스냅샷과 남아 있는 임시 파일을 지운다.
+     */
+    static void deleteOlderThan(Path directory, long keepLsn) {
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : files.collect(Collectors.toList())) {
+                String name = file.getFileName().toString();
+                if (name.endsWith(".snap.tmp") || (name.endsWith(".snap") && lsnOf(file) < keepLsn)) {
+                    Files.deleteIfExists(file);
+                }
+            }
+        } catch (IOException e) {
+            log.warn("스냅샷 삭제 실패 {}", directory, e);
+        }
+    }
+
+    private static boolean isValid(Path snapshot) {
+        CRC32 crc = new CRC32();
+        try (DataInputStream in = open(snapshot, crc)) {
+            int length;
+            while ((length = in.readInt()) >= 0) {
+                skipFully(in, length);
+            }
+            long expected = crc.getValue();
+            return in.readLong() == expected;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private static void skipFully(DataInputStream in, int length) throws IOException {
+        int remaining = length;
+        while (remaining > 0) {
+            int skipped = in.skipBytes(remaining);
+            if (skipped <= 0) {
+                throw new IOException("unexpected end of snapshot");
+            }
+            remaining -= skipped;
+        }
+    }
+
+    private static void read(Path snapshot, Consumer<Item> restore) {
+        try (DataInputStream in = open(snapshot, new CRC32())) {
+            int length;
+            byte[] record = new byte[256];
+            while ((length = in.readInt()) >= 0) {
+                if (record.length < length) {
+                    record = new byte[length];
+                }
+                in.readFully(record, 0, length);
+                restore.accept(ItemRecords.decode(ByteBuffer.wrap(record, 0, length)));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static DataInputStream open(Path snapshot, CRC32 crc) throws IOException {
+        return new DataInputStream(new CheckedInputStream(new BufferedInputStream(Files.newInputStream(snapshot), 1 << 16), crc));
+    }
+
+    private static List<Path> list(Path directory) {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> file.getFileName().toString().matches("snapshot-\\d{16}\\.snap"))
+                    .sorted()
+                    .collect(Collectors.toList());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static long lsnOf(Path snapshot) {
+        String name = snapshot.getFileName().toString();
+        return Long.parseLong(name.substring("snapshot-".length(), name.indexOf('.')));
+    }
+}
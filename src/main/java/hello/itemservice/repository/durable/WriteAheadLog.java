@@ -0,0 +1,317 @@
+package hello.itemservice.repository.durable;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * 메모리 맵(mmap) 파일에 기록하는 write-ahead log
+ * NOTE : 로그는 segmentSize 크기의 파일(wal-{번호}.log) 여러 개로 나뉘며, 파일을 통째로 메모리에 매핑해 두고 기록은 메모리 복사로 끝난다.
+ *  - 레코드 : [길이(int)][CRC32(int)][내용]. 길이가 0 이면 그 뒤로는 기록이 없다. CRC 가 맞지 않으면 기록 도중 멈춘 것(torn write)으로 본다.
+ *  - 위치(LSN) : 세그먼트 번호 x segmentSize + 세그먼트 안의 offset. 항상 증가한다.
+ *  - 그룹 fsync : append()는 기록만 하고 위치를 반환한다. 디스크 반영(force)은 flusher 스레드 하나가 맡고,
+ *      awaitDurable(lsn)로 기다리는 스레드가 여럿이면 force 한 번으로 함께 깨운다. 기다리는 스레드가 없으면 flushInterval 마다 반영한다.
+ *      flusher 를 깨우는 조건(flushNeeded)과 기다리는 스레드를 깨우는 조건(flushDone)을 나누어, 기다리는 스레드끼리 서로 깨우지 않게 한다.
+ *  - 세그먼트 교체 : 현재 세그먼트가 가득 차면 먼저 force 한 뒤 다음 세그먼트로 넘어간다. 따라서 중간이 끊긴 레코드는 마지막 세그먼트에만 있을 수 있다.
+ */
+@Slf4j
+final class WriteAheadLog implements AutoCloseable {
+
+    static final int HEADER_BYTES = Integer.BYTES * 2;
+
+    private final Path directory;
+    private final int segmentSize;
+    private final long flushIntervalMillis;
+    private final Thread flusher;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition flushNeeded = lock.newCondition();
+    private final Condition flushDone = lock.newCondition();
+
+    private MappedByteBuffer segment;
+    private long segmentIndex;
+    //기록이 끝난 위치, 디스크에 반영된 위치
+    private long written;
+    private long flushed;
+    private boolean flushRequested;
+    private boolean closed;
+
+    /**
+     * fromLsn 부터 남아 있는 레코드를 replay 에 넘긴 뒤, 마지막 레코드 다음부터 이어서 기록할 수 있도록 연다.
+     */
+    WriteAheadLog(Path directory, int segmentSize, long flushIntervalMillis, long fromLsn, Consumer<ByteBuffer> replay) {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.flushIntervalMillis = flushIntervalMillis;
+        try {
+            Files.createDirectories(directory);
+            recover(fromLsn, replay);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        this.flusher = new Thread(this::flushLoop, "wal-flusher");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    /**
+     * 레코드를 기록하고 레코드 끝의 위치(LSN)를 반환한다. 디스크 반영을 기다리지는 않는다.
+     */
+    long append(byte[] record) {
+        int required = HEADER_BYTES + record.length;
+        if (required + Integer.BYTES > segmentSize) {
+            throw new IllegalArgumentException("record is larger than segment: " + record.length);
+        }
+        CRC32 crc = new CRC32();
+        crc.update(record);
+        lock.lock();
+        try {
+            if (closed) {
+                throw new IllegalStateException("write-ahead log is closed");
+            }
+            //다음 레코드의 길이(0) 자리까지 남아 있어야 끝을 표시할 수 있다.
+            if (segment.position() + required + Integer.BYTES > segmentSize) {
+                roll();
+            }
+            segment.putInt(record.length).putInt((int) crc.getValue()).put(record);
+            written = segmentIndex * segmentSize + segment.position();
+            return written;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * lsn 까지 디스크에 반영될 때까지 기다린다.
+     */
+    void awaitDurable(long lsn) {
+        lock.lock();
+        try {
+            while (flushed < lsn) {
+                if (closed) {
+                    throw new IllegalStateException("write-ahead log is closed");
+                }
+                if (!flushRequested) {
+                    flushRequested = true;
+                    flushNeeded.signal();
+                }
+                flushDone.awaitUninterruptibly();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    long position() {
+        lock.lock();
+        try {
+            return written;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * lsn 이전의 레코드만 담고 있는 세그먼트 파일을 지운다. (스냅샷에 반영된 구간)
+     */
+    void deleteBefore(long lsn) {
+        long firstNeeded = lsn / segmentSize;
+        for (Path file : segmentFiles()) {
+            if (indexOf(file) < firstNeeded) {
+                try {
+                    Files.deleteIfExists(file);
+                } catch (IOException e) {
+                    log.warn("세그먼트 삭제 실패 {}", file, e);
+                }
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            flushNeeded.signal();
+        } finally {
+            lock.unlock();
+        }
+        try {
+            flusher.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        lock.lock();
+        try {
+            segment.force();
+            flushed = written;
+            flushDone.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void flushLoop() {
+        while (true) {
+            long target;
+            MappedByteBuffer current;
+            lock.lock();
+            try {
+                if (!closed && !flushRequested) {
+                    try {
+                        flushNeeded.await(flushIntervalMillis, TimeUnit.MILLISECONDS);
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+                if (closed) {
+                    return;
+                }
+                flushRequested = false;
+                if (written == flushed) {
+                    continue;
+                }
+                target = written;
+                current = segment;
+            } finally {
+                lock.unlock();
+            }
+            //force 하는 동안에도 다른 스레드는 계속 append 할 수 있다. 그동안 기록된 레코드는 다음 force 에 반영된다.
+            current.force();
+            lock.lock();
+            try {
+                flushed = Math.max(flushed, target);
+                flushDone.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private void roll() {
+        segment.force();
+        flushed = written;
+        flushDone.signalAll();
+        segment = map(segmentIndex + 1);
+        segmentIndex++;
+    }
+
+    private void recover(long fromLsn, Consumer<ByteBuffer> replay) {
+        List<Path> files = segmentFiles();
+        long startIndex = fromLsn / segmentSize;
+        long lastIndex = files.isEmpty() ? startIndex : Math.max(startIndex, indexOf(files.get(files.size() - 1)));
+        for (long index = startIndex; index <= lastIndex; index++) {
+            MappedByteBuffer buffer = map(index);
+            int offset = index == startIndex ? (int) (fromLsn % segmentSize) : 0;
+            int end = replaySegment(buffer, offset, replay);
+            if (index < lastIndex && end + HEADER_BYTES + Integer.BYTES <= segmentSize && hasRecordAt(buffer, end)) {
+                throw new IllegalStateException("write-ahead log is corrupted at segment " + index + ", offset " + end);
+            }
+            if (index == lastIndex) {
+                //끊긴 레코드 뒤에 남아 있을 수 있는 바이트를 지워서 다음 복구 때 오래된 레코드로 읽히지 않게 한다.
+                if (clearFrom(buffer, end)) {
+                    buffer.force();
+                }
+                buffer.position(end);
+                segment = buffer;
+                segmentIndex = index;
+                written = index * segmentSize + end;
+                flushed = written;
+            }
+        }
+    }
+
+    /**
+     * offset 부터 올바른 레코드를 차례로 replay 하고, 마지막 올바른 레코드의 끝 위치를 반환한다.
+     */
+    private static int replaySegment(MappedByteBuffer buffer, int offset, Consumer<ByteBuffer> replay) {
+        int position = offset;
+        while (position + HEADER_BYTES <= buffer.capacity()) {
+            int length = buffer.getInt(position);
+            if (length <= 0 || position + HEADER_BYTES + length > buffer.capacity()) {
+                break;
+            }
+            ByteBuffer record = buffer.duplicate();
+            record.position(position + HEADER_BYTES).limit(position + HEADER_BYTES + length);
+            CRC32 crc = new CRC32();
+            crc.update(record.duplicate());
+            if ((int) crc.getValue() != buffer.getInt(position + Integer.BYTES)) {
+                break;
+            }
+            replay.accept(record.slice());
+            position += HEADER_BYTES + length;
+        }
+        return position;
+    }
+
+    /**
+     * from 부터 세그먼트 끝까지 0 이 아닌 바이트를 지운다. 이미 0 인 구간은 건드리지 않으므로 새로 만든 세그먼트는 그대로 둔다.
+     */
+    private static boolean clearFrom(ByteBuffer buffer, int from) {
+        boolean cleared = false;
+        int position = from;
+        for (; position < buffer.capacity() && position % Long.BYTES != 0; position++) {
+            cleared |= buffer.get(position) != 0;
+            buffer.put(position, (byte) 0);
+        }
+        for (; position + Long.BYTES <= buffer.capacity(); position += Long.BYTES) {
+            if (buffer.getLong(position) != 0L) {
+                buffer.putLong(position, 0L);
+                cleared = true;
+            }
+        }
+        for (; position < buffer.capacity(); position++) {
+            cleared |= buffer.get(position) != 0;
+            buffer.put(position, (byte) 0);
+        }
+        return cleared;
+    }
+
+    private static boolean hasRecordAt(ByteBuffer buffer, int position) {
+        return buffer.getInt(position) != 0;
+    }
+
+    private MappedByteBuffer map(long index) {
+        Path file = directory.resolve(String.format("wal-%016d.log", index));
+        try (FileChannel channel = FileChannel.open(file,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            //매핑은 채널을 닫아도 유지된다.
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private List<Path> segmentFiles() {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> file.getFileName().toString().matches("wal-\\d{16}\\.log"))
+                    .sorted()
+                    .collect(Collectors.toCollection(ArrayList::new));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static long indexOf(Path file) {
+        String name = file.getFileName().toString();
+        return Long.parseLong(name.substring(4, name.length() - 4));
+    }
+}
@@ -0,0 +1,112 @@
+package hello.itemservice.repository.feed;
+
+import hello.itemservice.domain.Item;
+import hello.itemservice.domain.ItemView;
+import hello.itemservice.repository.AfterTransaction;
+import hello.itemservice.repository.ItemRepository;
+import hello.itemservice.repository.ItemSearchCond;
+import hello.itemservice.repository.ItemUpdateDto;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * 상품 변경을 ItemChangeFeed 로 발행하는 ItemRepository 데코레이터
+ * NOTE : 변경이 성공한 뒤에 발행한다. 진행 중인 트랜잭션이 있으면 커밋된 뒤(afterCommit)에 발행하므로 롤백된 변경은 발행되지 않는다.
+ *  - update 는 변경 전 가격(oldPrice)을 위해 먼저 findById 로 조회한다. (캐시 데코레이터 바깥에 두면 대부분 캐시에서 읽힌다)
+ *  - 트랜잭션 밖에서는 발행할 때 객체를 만들지 않는다. 트랜잭션 안에서는 커밋 후 발행을 등록하는 객체가 변경마다 하나씩 생긴다.
+ */
+public class ChangeFeedItemRepository implements ItemRepository {
+
+    private final ItemRepository target;
+    private final ItemChangeFeed feed;
+
+    public ChangeFeedItemRepository(ItemRepository target, ItemChangeFeed feed) {
+        this.target = target;
+        this.feed = feed;
+    }
+
+    @Override
+    public Item save(Item item) {
+        Item savedItem = target.save(item);
+        publishSaved(savedItem);
+        return savedItem;
+    }
+
+    @Override
+    public List<Item> saveAll(List<Item> items) {
+        List<Item> savedItems = target.saveAll(items);
+        for (Item savedItem : savedItems) {
+            publishSaved(savedItem);
+        }
+        return savedItems;
+    }
+
+    @Override
+    public void update(Long itemId, ItemUpdateDto updateParam) {
+        Integer oldPrice = target.findById(itemId).map(Item::getPrice).orElse(null);
+        target.update(itemId, updateParam);
+        publish(ItemChangeType.UPDATED, itemId, oldPrice, updateParam.getPrice(),
+                updateParam.getQuantity(), 0, updateParam.getItemName());
+    }
+
+    @Override
+    public boolean reserve(Long itemId, int quantity) {
+        boolean reserved = target.reserve(itemId, quantity);
+        if (reserved) {
+            publish(ItemChangeType.RESERVED, itemId, null, null, null, -quantity, null);
+        }
+        return reserved;
+    }
+
+    @Override
+    public boolean release(Long itemId, int quantity) {
+        boolean released = target.release(itemId, quantity);
+        if (released) {
+            publish(ItemChangeType.RELEASED, itemId, null, null, null, quantity, null);
+        }
+        return released;
+    }
+
+    @Override
+    public Optional<Item> findById(Long id) {
+        return target.findById(id);
+    }
+
+    @Override
+    public List<Item> findAllByIds(Collection<Long> ids) {
+        return target.findAllByIds(ids);
+    }
+
+    @Override
+    public List<Item> findAll(ItemSearchCond cond) {
+        return target.findAll(cond);
+    }
+
+    @Override
+    public Stream<Item> streamAll(ItemSearchCond cond) {
+        return target.streamAll(cond);
+    }
+
+    @Override
+    public Optional<ItemView> findViewById(Long id) {
+        return target.findViewById(id);
+    }
+
+    @Override
+    public List<ItemView> findAllViews(ItemSearchCond cond) {
+        return target.findAllViews(cond);
+    }
+
+    private void publishSaved(Item savedItem) {
+        publish(ItemChangeType.SAVED, savedItem.getId(), null, savedItem.getPrice(),
+                savedItem.getQuantity(), 0, savedItem.getItemName());
+    }
+
+    private void publish(ItemChangeType type, long itemId, Integer oldPrice, Integer newPrice,
+                         Integer quantity, int quantityDelta, String itemName) {
+        AfterTransaction.onCommit(() -> feed.publish(type, itemId, oldPrice, newPrice, quantity, quantityDelta, itemName));
+    }
+}
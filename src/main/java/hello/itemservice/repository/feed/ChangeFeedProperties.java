@@ -0,0 +1,21 @@
+package hello.itemservice.repository.feed;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * 상품 변경 피드 설정
+ * ex) itemservice.feed.enabled=true
+ *     itemservice.feed.buffer-size=8192
+ */
+@Data
+@ConfigurationProperties("itemservice.feed")
+public class ChangeFeedProperties {
+
+    private boolean enabled;
+
+    /**
+     * 링 버퍼의 칸 수(2의 거듭제곱). 가장 느린 구독자가 이만큼 뒤처지면 상품 변경이 기다린다.
+     */
+    private int bufferSize = ItemChangeFeed.DEFAULT_BUFFER_SIZE;
+}
@@ -0,0 +1,38 @@
+package hello.itemservice.repository.feed;
+
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * 상품 변경 이벤트
+ * NOTE : ItemChangeFeed 가 미리 만들어 둔 칸(slot)을 다시 채워 쓰므로, 구독자는 onEvent 안에서만 값을 읽어야 한다.
+ *  나중에 쓸 값은 복사해 두어야 한다. (onEvent 가 끝나면 같은 객체에 다른 변경이 기록될 수 있다)
+ *  - SAVED, UPDATED : newPrice, quantity, itemName 은 변경 후의 값, oldPrice 는 UPDATED 일 때만 변경 전 가격
+ *  - RESERVED, RELEASED : quantityDelta 만 채워진다. (차감은 음수, 되돌림은 양수)
+ */
+@Getter
+@ToString
+public final class ItemChangeEvent {
+
+    private ItemChangeType type;
+    private long itemId;
+    private Integer oldPrice;
+    private Integer newPrice;
+    private Integer quantity;
+    private int quantityDelta;
+    private String itemName;
+
+    ItemChangeEvent() {
+    }
+
+    void set(ItemChangeType type, long itemId, Integer oldPrice, Integer newPrice,
+             Integer quantity, int quantityDelta, String itemName) {
+        this.type = type;
+        this.itemId = itemId;
+        this.oldPrice = oldPrice;
+        this.newPrice = newPrice;
+        this.quantity = quantity;
+        this.quantityDelta = quantityDelta;
+        this.itemName = itemName;
+    }
+}
@@ -0,0 +1,183 @@
+package hello.itemservice.repository.feed;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 상품 변경 이벤트를 담는 링 버퍼(ring buffer)
+ * NOTE : bufferSize 개의 ItemChangeEvent 를 미리 만들어 두고 돌려 쓰므로 발행할 때 객체를 만들지 않는다.
+ *  - 발행 : publishLock 안에서 칸을 채운 뒤 cursor 를 올린다. 칸에 쓰는 스레드는 항상 하나(single writer)이고,
+ *      cursor 는 volatile 쓰기이므로 cursor 를 읽은 구독자에게는 그 전까지 채운 칸이 모두 보인다.
+ *  - 구독 : 구독자마다 자기 스레드에서 cursor 까지 쌓인 이벤트를 한 번에(batch) 처리하고 자기 위치(sequence)를 올린다.
+ *  - 배압(backpressure) : 가장 느린 구독자가 아직 읽지 않은 칸은 덮어쓰지 않는다. 버퍼가 가득 차면 발행하는 쪽이 기다린다.
+ *      구독자가 없으면 기다리지 않고 덮어쓴다.
+ *  구독자의 예외는 기록만 하고 다음 이벤트로 넘어간다.
+ */
+@Slf4j
+public class ItemChangeFeed implements AutoCloseable {
+
+    public static final int DEFAULT_BUFFER_SIZE = 8192;
+
+    private static final long IDLE_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+    private static final long FULL_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(1);
+
+    private final ItemChangeEvent[] slots;
+    private final int mask;
+    //마지막으로 발행한 이벤트의 번호
+    private final AtomicLong cursor = new AtomicLong(-1);
+    private final Object publishLock = new Object();
+    private volatile Subscription[] subscriptions = new Subscription[0];
+    //가장 느린 구독자의 위치를 기억해 두어 그 앞까지는 구독자 목록을 보지 않고 발행한다. (publishLock 안에서만 사용)
+    private long gate = -1;
+
+    public ItemChangeFeed() {
+        this(DEFAULT_BUFFER_SIZE);
+    }
+
+    public ItemChangeFeed(int bufferSize) {
+        if (bufferSize <= 0 || Integer.bitCount(bufferSize) != 1) {
+            throw new IllegalArgumentException("bufferSize must be a power of 2: " + bufferSize);
+        }
+        this.slots = new ItemChangeEvent[bufferSize];
+        this.mask = bufferSize - 1;
+        for (int i = 0; i < bufferSize; i++) {
+            slots[i] = new ItemChangeEvent();
+        }
+    }
+
+    public void publish(ItemChangeType type, long itemId, Integer oldPrice, Integer newPrice,
+                        Integer quantity, int quantityDelta, String itemName) {
+        synchronized (publishLock) {
+            long sequence = cursor.get() + 1;
+            long wrapPoint = sequence - slots.length;
+            if (wrapPoint > gate) {
+                long minimum;
+                while (wrapPoint > (minimum = minimumSequence(sequence - 1))) {
+                    LockSupport.parkNanos(FULL_PARK_NANOS);
+                }
+                gate = minimum;
+            }
+            slots[(int) (sequence & mask)].set(type, itemId, oldPrice, newPrice, quantity, quantityDelta, itemName);
+            cursor.set(sequence);
+        }
+    }
+
+    /**
+     * 구독 이후에 발행되는 이벤트를 name 이름의 스레드에서 handler 로 넘긴다.
+     */
+    public Subscription subscribe(String name, ItemChangeHandler handler) {
+        Subscription subscription;
+        synchronized (publishLock) {
+            subscription = new Subscription(name, handler, cursor.get());
+            Subscription[] current = subscriptions;
+            Subscription[] added = Arrays.copyOf(current, current.length + 1);
+            added[current.length] = subscription;
+            subscriptions = added;
+        }
+        subscription.thread.start();
+        return subscription;
+    }
+
+    public long cursor() {
+        return cursor.get();
+    }
+
+    public int bufferSize() {
+        return slots.length;
+    }
+
+    @Override
+    public void close() {
+        for (Subscription subscription : subscriptions) {
+            subscription.close();
+        }
+    }
+
+    private long minimumSequence(long defaultSequence) {
+        long minimum = defaultSequence;
+        for (Subscription subscription : subscriptions) {
+            minimum = Math.min(minimum, subscription.sequence.get());
+        }
+        return minimum;
+    }
+
+    private void remove(Subscription subscription) {
+        synchronized (publishLock) {
+            subscriptions = Arrays.stream(subscriptions)
+                    .filter(current -> current != subscription)
+                    .toArray(Subscription[]::new);
+        }
+    }
+
+    public final class Subscription implements AutoCloseable {
+
+        //마지막으로 처리한 이벤트의 번호
+        private final AtomicLong sequence;
+        private final ItemChangeHandler handler;
+        private final Thread thread;
+        private volatile boolean running = true;
+
+        private Subscription(String name, ItemChangeHandler handler, long start) {
+            this.sequence = new AtomicLong(start);
+            this.handler = handler;
+            this.thread = new Thread(this::run, name);
+            thread.setDaemon(true);
+        }
+
+        /**
+         * 발행되었지만 아직 처리하지 않은 이벤트 수
+         */
+        public long lag() {
+            return cursor.get() - sequence.get();
+        }
+
+        /**
+         * 지금까지 발행된 이벤트를 모두 처리한 뒤 구독을 멈춘다.
+         */
+        @Override
+        public void close() {
+            if (!running) {
+                return;
+            }
+            running = false;
+            LockSupport.unpark(thread);
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            remove(this);
+        }
+
+        private void run() {
+            while (running) {
+                if (!processAvailable()) {
+                    LockSupport.parkNanos(IDLE_PARK_NANOS);
+                }
+            }
+            processAvailable();
+        }
+
+        private boolean processAvailable() {
+            long next = sequence.get() + 1;
+            long available = cursor.get();
+            if (available < next) {
+                return false;
+            }
+            for (long current = next; current <= available; current++) {
+                try {
+                    handler.onEvent(slots[(int) (current & mask)], current, current == available);
+                } catch (RuntimeException e) {
+                    log.error("상품 변경 이벤트 처리 실패 sequence={}", current, e);
+                }
+            }
+            //처리한 칸을 발행하는 쪽에 돌려준다.
+            sequence.set(available);
+            return true;
+        }
+    }
+}
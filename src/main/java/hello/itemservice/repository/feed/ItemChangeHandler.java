@@ -0,0 +1,11 @@
+package hello.itemservice.repository.feed;
+
+/**
+ * ItemChangeFeed 구독자
+ * endOfBatch 는 지금까지 발행된 이벤트 중 마지막이라는 뜻이다. 모아서 처리하는 구독자는 이때 한 번에 반영(flush)하면 된다.
+ */
+@FunctionalInterface
+public interface ItemChangeHandler {
+
+    void onEvent(ItemChangeEvent event, long sequence, boolean endOfBatch);
+}
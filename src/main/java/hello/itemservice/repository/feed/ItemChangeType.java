@@ -0,0 +1,5 @@
+package hello.itemservice.repository.feed;
+
+public enum ItemChangeType {
+    SAVED, UPDATED, RESERVED, RELEASED
+}
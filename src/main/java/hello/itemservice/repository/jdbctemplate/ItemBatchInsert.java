@@ -0,0 +1,50 @@
+package hello.itemservice.repository.jdbctemplate;
+
+import hello.itemservice.domain.Item;
+import org.springframework.jdbc.core.JdbcOperations;
+import org.springframework.jdbc.core.PreparedStatementCallback;
+
+import java.sql.ResultSet;
+import java.sql.Types;
+import java.util.List;
+
+/**
+ * JDBC 배치 insert 와 자동 생성 키 조회
+ * NOTE : JdbcTemplate.batchUpdate(), NamedParameterJdbcTemplate.batchUpdate(), SimpleJdbcInsert.executeBatch()는
+ *  영향받은 행 수(int[])만 반환하고 자동 생성된 id 는 돌려주지 않는다(스프링 5.3 기준).
+ *  그래서 키 컬럼을 지정해 PreparedStatement 를 만들고 addBatch() -> executeBatch() 후 getGeneratedKeys()로 id 를 읽어온다.
+ *  한 번에 너무 많은 행을 드라이버에 쌓지 않도록 BATCH_SIZE 단위로 나누어 실행한다.
+ */
+final class ItemBatchInsert {
+
+    static final int BATCH_SIZE = 1000;
+
+    private static final String SQL = "insert into item(item_name, price, quantity) values (?,?,?)";
+
+    private ItemBatchInsert() {
+    }
+
+    static List<Item> insert(JdbcOperations template, List<Item> items) {
+        for (int from = 0; from < items.size(); from += BATCH_SIZE) {
+            List<Item> chunk = items.subList(from, Math.min(from + BATCH_SIZE, items.size()));
+            template.execute(connection -> connection.prepareStatement(SQL, new String[]{"id"}),
+                    (PreparedStatementCallback<Void>) ps -> {
+                        for (Item item : chunk) {
+                            ps.setString(1, item.getItemName());
+                            ps.setObject(2, item.getPrice(), Types.INTEGER);
+                            ps.setObject(3, item.getQuantity(), Types.INTEGER);
+                            ps.addBatch();
+                        }
+                        ps.executeBatch();
+                        try (ResultSet keys = ps.getGeneratedKeys()) {
+                            int index = 0;
+                            while (keys.next()) {
+                                chunk.get(index++).setId(keys.getLong(1));
+                            }
+                        }
+                        return null;
+                    });
+        }
+        return items;
+    }
+}
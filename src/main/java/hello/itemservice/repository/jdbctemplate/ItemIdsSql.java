@@ -0,0 +1,73 @@
+package hello.itemservice.repository.jdbctemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * findAllByIds 의 "where id in (?, ...)" select 문
+ * NOTE : IN 목록의 크기마다 SQL 이 달라지면 드라이버가 파싱한 문장을 재사용하지 못한다.
+ *  그래서 목록 크기를 2의 거듭제곱(1, 2, 4, ... MAX_IN_LIST)으로 올려 SQL 을 미리 만들어 두고, 남는 자리는 마지막 id 를 반복해서 채운다.
+ *  IN 은 중복된 값이 있어도 결과가 같다. MAX_IN_LIST 보다 많은 id 는 나누어 조회한다.
+ */
+final class ItemIdsSql {
+
+    static final int MAX_IN_LIST = 512;
+
+    private static final String[] SQL = new String[Integer.numberOfTrailingZeros(MAX_IN_LIST) + 1];
+
+    static {
+        for (int i = 0; i < SQL.length; i++) {
+            StringBuilder sql = new StringBuilder("select id, item_name, price, quantity from item where id in (?");
+            for (int j = 1; j < 1 << i; j++) {
+                sql.append(",?");
+            }
+            SQL[i] = sql.append(") order by id").toString();
+        }
+    }
+
+    private ItemIdsSql() {
+    }
+
+    /**
+     * 중복과 null 을 제거하고 id 순으로 정렬한 뒤 MAX_IN_LIST 개씩 나눈다.
+     */
+    static List<List<Long>> chunks(Collection<Long> ids) {
+        TreeSet<Long> sorted = new TreeSet<>();
+        for (Long id : ids) {
+            if (id != null) {
+                sorted.add(id);
+            }
+        }
+        if (sorted.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<Long> distinct = new ArrayList<>(sorted);
+        List<List<Long>> chunks = new ArrayList<>();
+        for (int from = 0; from < distinct.size(); from += MAX_IN_LIST) {
+            chunks.add(distinct.subList(from, Math.min(from + MAX_IN_LIST, distinct.size())));
+        }
+        return chunks;
+    }
+
+    static String sql(List<Long> chunk) {
+        return SQL[bucketOf(chunk.size())];
+    }
+
+    /**
+     * sql(chunk)의 자리 수에 맞춰 마지막 id 를 반복해서 채운 파라미터
+     */
+    static Object[] params(List<Long> chunk) {
+        Object[] params = new Object[1 << bucketOf(chunk.size())];
+        for (int i = 0; i < params.length; i++) {
+            params[i] = chunk.get(Math.min(i, chunk.size() - 1));
+        }
+        return params;
+    }
+
+    private static int bucketOf(int size) {
+        return 32 - Integer.numberOfLeadingZeros(size - 1);
+    }
+}
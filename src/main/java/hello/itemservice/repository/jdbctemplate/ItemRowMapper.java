@@ -0,0 +1,90 @@
+package hello.itemservice.repository.jdbctemplate;
+
+import hello.itemservice.domain.Item;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 리플렉션 없이 Item 으로 변환하는 RowMapper
+ * NOTE : BeanPropertyRowMapper 는 만들 때마다 Item 의 프로퍼티를 리플렉션으로 조사하고,
+ *  행마다 컬럼명 변환과 BeanWrapper 를 통한 setter 호출을 반복한다.
+ *  ItemRowMapper 는 첫 행에서 컬럼 구성(ResultSet 의 컬럼 label 목록)을 보고 "컬럼 index -> setter" 계획(plan)을 정한다.
+ *  계획은 컬럼 구성별로 한 번만 만들어 모든 쿼리가 공유하며, 이후에는 index 와 기본형 getter(getLong, getInt)로 바로 읽는다.
+ *  계획을 기억하므로 쿼리 한 번마다 새로 만들어서 사용한다. (여러 쿼리가 같은 인스턴스를 동시에 사용하면 안 된다)
+ */
+final class ItemRowMapper implements RowMapper<Item> {
+
+    private static final ConcurrentHashMap<String, ColumnBinder[]> PLANS = new ConcurrentHashMap<>();
+
+    private ColumnBinder[] plan;
+
+    @Override
+    public Item mapRow(ResultSet rs, int rowNum) throws SQLException {
+        if (plan == null) {
+            plan = planFor(rs.getMetaData());
+        }
+        Item item = new Item();
+        for (int i = 0; i < plan.length; i++) {
+            plan[i].bind(rs, i + 1, item);
+        }
+        return item;
+    }
+
+    private static ColumnBinder[] planFor(ResultSetMetaData metaData) throws SQLException {
+        int columnCount = metaData.getColumnCount();
+        String[] labels = new String[columnCount];
+        for (int i = 0; i < columnCount; i++) {
+            labels[i] = normalize(metaData.getColumnLabel(i + 1));
+        }
+        return PLANS.computeIfAbsent(String.join(",", labels), key -> {
+            ColumnBinder[] binders = new ColumnBinder[labels.length];
+            for (int i = 0; i < labels.length; i++) {
+                binders[i] = binderFor(labels[i]);
+            }
+            return binders;
+        });
+    }
+
+    /**
+     * item_name, ITEM_NAME, itemName 을 모두 같은 컬럼으로 본다. (BeanPropertyRowMapper 와 같은 규칙)
+     */
+    private static String normalize(String label) {
+        return label.replace("_", "").toLowerCase(Locale.ROOT);
+    }
+
+    private static ColumnBinder binderFor(String label) {
+        switch (label) {
+            case "id":
+                return (rs, index, item) -> {
+                    long id = rs.getLong(index);
+                    item.setId(rs.wasNull() ? null : id);
+                };
+            case "itemname":
+                return (rs, index, item) -> item.setItemName(rs.getString(index));
+            case "price":
+                return (rs, index, item) -> {
+                    int price = rs.getInt(index);
+                    item.setPrice(rs.wasNull() ? null : price);
+                };
+            case "quantity":
+                return (rs, index, item) -> {
+                    int quantity = rs.getInt(index);
+                    item.setQuantity(rs.wasNull() ? null : quantity);
+                };
+            default:
+                //Item 에 없는 컬럼은 무시한다.
+                return (rs, index, item) -> {
+                };
+        }
+    }
+
+    @FunctionalInterface
+    private interface ColumnBinder {
+        void bind(ResultSet rs, int index, Item item) throws SQLException;
+    }
+}
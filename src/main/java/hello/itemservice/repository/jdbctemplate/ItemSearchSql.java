@@ -0,0 +1,172 @@
+package hello.itemservice.repository.jdbctemplate;
+
+import hello.itemservice.repository.ItemSearchCond;
+import hello.itemservice.repository.ItemSort;
+import org.springframework.jdbc.core.PreparedStatementSetter;
+import org.springframework.util.StringUtils;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+/**
+ * 검색 조건 형태와 정렬 순서별로 미리 만들어 둔 findAll, streamAll 의 select 문
+ * NOTE : JdbcTemplate 의 동적 쿼리는 조건에 따라 where 또는 and 를 붙이는 경우의 수를 모두 직접 계산해야 한다.
+ *  들어온 조건(상품명, 최소/최대 가격, 최소 수량, 가격 커서)과 정렬 순서의 조합마다 SQL 을 처음에 한 번씩만 만들고, 호출할 때마다 문자열을 이어 붙이지 않는다.
+ *  - 같은 형태의 검색은 항상 같은 SQL 문자열을 사용하므로 드라이버(H2 의 세션별 쿼리 캐시 등)가 파싱한 문장을 재사용할 수 있다.
+ *  - 파라미터는 BeanPropertySqlParameterSource 처럼 리플렉션으로 읽지 않고 PreparedStatement 에 순서대로 직접 바인딩한다.
+ *  - 가격순 정렬은 항상 "price between ? and ?" 로 (price, id) 인덱스의 범위를 지정하고 인덱스 순서 그대로 읽는다.
+ *      DB 가 따로 정렬하지 않고 limit 개를 읽으면 멈출 수 있으며, 가격 조건이 없으면 int 의 최소/최대값을 바인딩한다.
+ *  - 최소 수량은 인덱스 없이 읽은 행을 거르는 조건이다. 수량은 주문마다 바뀌므로 인덱스를 두면 reserve/release 마다 인덱스도 고쳐야 한다.
+ */
+final class ItemSearchSql {
+
+    private static final String COLUMNS = "select id, item_name, price, quantity from item where ";
+
+    private static final int NAME = 1;
+    private static final int MIN_PRICE = 1 << 1;
+    private static final int MAX_PRICE = 1 << 2;
+    private static final int MIN_QUANTITY = 1 << 3;
+    private static final int PRICE_CURSOR = 1 << 4;
+    private static final int SHAPES = 1 << 5;
+
+    private static final ItemSearchSql[] SEARCHES = new ItemSearchSql[ItemSort.values().length * SHAPES];
+
+    static {
+        for (ItemSort sort : ItemSort.values()) {
+            for (int shape = 0; shape < SHAPES; shape++) {
+                SEARCHES[sort.ordinal() * SHAPES + shape] = new ItemSearchSql(sort, shape);
+            }
+        }
+    }
+
+    private final ItemSort sort;
+    private final int shape;
+    private final String streamAllSql;
+    private final String findAllSql;
+
+    private ItemSearchSql(ItemSort sort, int shape) {
+        this.sort = sort;
+        this.shape = shape;
+        StringBuilder sql = new StringBuilder(COLUMNS);
+        if (sort.byPrice()) {
+            sql.append("price between ? and ?");
+            // NOTE : 커서의 가격은 between 의 하한(상한)으로 이미 들어가 있으므로 같은 가격 안에서만 id 로 이어서 읽는다.
+            if (has(PRICE_CURSOR)) {
+                sql.append(sort == ItemSort.PRICE_ASC ? " and (price > ? or id > ?)" : " and (price < ? or id < ?)");
+            }
+        } else {
+            // NOTE : 키셋 페이징 조건(id > ?)이 항상 들어가므로 where 는 고정되고 나머지 조건은 and 로 붙인다.
+            sql.append("id > ?");
+            if (has(MIN_PRICE)) {
+                sql.append(" and price >= ?");
+            }
+            if (has(MAX_PRICE)) {
+                sql.append(" and price <= ?");
+            }
+        }
+        if (has(NAME)) {
+            sql.append(" and item_name like concat('%',?,'%')");
+        }
+        if (has(MIN_QUANTITY)) {
+            sql.append(" and quantity >= ?");
+        }
+        sql.append(orderBy(sort));
+        this.streamAllSql = sql.toString();
+        this.findAllSql = streamAllSql + " limit ?";
+    }
+
+    static ItemSearchSql of(ItemSearchCond cond) {
+        ItemSort sort = cond.getSortOrder();
+        int shape = 0;
+        if (StringUtils.hasText(cond.getItemName())) {
+            shape |= NAME;
+        }
+        if (cond.getMinQuantity() != null) {
+            shape |= MIN_QUANTITY;
+        }
+        //가격순 정렬은 가격 조건을 항상 between 으로 바인딩하므로 커서만 구분한다.
+        if (sort.byPrice()) {
+            if (cond.isPriceCursor()) {
+                shape |= PRICE_CURSOR;
+            }
+        } else {
+            if (cond.getMinPrice() != null) {
+                shape |= MIN_PRICE;
+            }
+            if (cond.getMaxPrice() != null) {
+                shape |= MAX_PRICE;
+            }
+        }
+        return SEARCHES[sort.ordinal() * SHAPES + shape];
+    }
+
+    /**
+     * "order by ... limit ?" 까지 포함한 select 문
+     */
+    String findAllSql() {
+        return findAllSql;
+    }
+
+    /**
+     * 페이지 크기 제한(limit)이 없는 select 문
+     */
+    String streamAllSql() {
+        return streamAllSql;
+    }
+
+    PreparedStatementSetter findAllParams(ItemSearchCond cond) {
+        return ps -> {
+            int index = bindConditions(ps, cond);
+            ps.setInt(index, cond.getLimit());
+        };
+    }
+
+    PreparedStatementSetter streamAllParams(ItemSearchCond cond) {
+        return ps -> bindConditions(ps, cond);
+    }
+
+    /**
+     * 커서(또는 가격 범위), 상품명, 최소 수량을 SQL 에 나온 순서대로 바인딩하고 다음 파라미터 위치를 반환한다.
+     */
+    private int bindConditions(PreparedStatement ps, ItemSearchCond cond) throws SQLException {
+        int index = 1;
+        if (sort.byPrice()) {
+            ps.setInt(index++, cond.getPriceFrom());
+            ps.setInt(index++, cond.getPriceTo());
+            if (has(PRICE_CURSOR)) {
+                ps.setInt(index++, cond.getAfterPrice());
+                ps.setLong(index++, cond.getAfterId());
+            }
+        } else {
+            ps.setLong(index++, cond.getCursor());
+            if (has(MIN_PRICE)) {
+                ps.setInt(index++, cond.getMinPrice());
+            }
+            if (has(MAX_PRICE)) {
+                ps.setInt(index++, cond.getMaxPrice());
+            }
+        }
+        if (has(NAME)) {
+            ps.setString(index++, cond.getItemName());
+        }
+        if (has(MIN_QUANTITY)) {
+            ps.setInt(index++, cond.getMinQuantity());
+        }
+        return index;
+    }
+
+    private boolean has(int condition) {
+        return (shape & condition) != 0;
+    }
+
+    private static String orderBy(ItemSort sort) {
+        switch (sort) {
+            case PRICE_ASC:
+                return " order by price, id";
+            case PRICE_DESC:
+                return " order by price desc, id desc";
+            default:
+                return " order by id";
+        }
+    }
+}
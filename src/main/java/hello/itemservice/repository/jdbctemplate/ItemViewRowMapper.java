@@ -0,0 +1,32 @@
+package hello.itemservice.repository.jdbctemplate;
+
+import hello.itemservice.domain.ItemView;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * ItemView 로 변환하는 RowMapper
+ * NOTE : "select id, item_name, price, quantity" 순서의 조회에만 사용한다. 컬럼 label 을 보지 않고 index 로 바로 읽는다.
+ *  기본형 getter(getLong, getInt)의 값을 생성자에 그대로 넘기므로 행마다 ItemView 와 상품명 String 외에는 만들지 않는다.
+ *  getInt 는 null 을 0 으로 읽으므로 wasNull 이면 ItemView.NO_VALUE 로 바꾼다.
+ *  상태가 없으므로 하나의 인스턴스(INSTANCE)를 모든 쿼리가 함께 사용한다.
+ */
+final class ItemViewRowMapper implements RowMapper<ItemView> {
+
+    static final ItemViewRowMapper INSTANCE = new ItemViewRowMapper();
+
+    private ItemViewRowMapper() {
+    }
+
+    @Override
+    public ItemView mapRow(ResultSet rs, int rowNum) throws SQLException {
+        return new ItemView(rs.getLong(1), rs.getString(2), intOrNoValue(rs, 3), intOrNoValue(rs, 4));
+    }
+
+    private static int intOrNoValue(ResultSet rs, int index) throws SQLException {
+        int value = rs.getInt(index);
+        return rs.wasNull() ? ItemView.NO_VALUE : value;
+    }
+}
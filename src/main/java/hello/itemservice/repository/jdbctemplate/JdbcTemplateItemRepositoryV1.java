@@ -1,22 +1,26 @@
 package hello.itemservice.repository.jdbctemplate;
 
 import hello.itemservice.domain.Item;
+import hello.itemservice.domain.ItemView;
 import hello.itemservice.repository.ItemRepository;
 import hello.itemservice.repository.ItemSearchCond;
 import hello.itemservice.repository.ItemUpdateDto;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.dao.support.DataAccessUtils;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.RowMapper;
 import org.springframework.jdbc.support.GeneratedKeyHolder;
 import org.springframework.jdbc.support.KeyHolder;
-import org.springframework.util.StringUtils;
+import org.springframework.util.Assert;
 
 import javax.sql.DataSource;
 import java.sql.PreparedStatement;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * JdbcTemplate
@@ -25,9 +29,13 @@ import java.util.Optional;
 public class JdbcTemplateItemRepositoryV1 implements ItemRepository {
 
     private final JdbcTemplate template;
+    private final JdbcTemplate streamTemplate;
 
     public JdbcTemplateItemRepositoryV1(DataSource dataSource) {
         this.template = new JdbcTemplate(dataSource);
+        // NOTE : 스트리밍 조회 전용 JdbcTemplate. fetchSize 만큼씩 나누어 가져오므로 전체 결과를 한 번에 메모리에 올리지 않는다.
+        this.streamTemplate = new JdbcTemplate(dataSource);
+        this.streamTemplate.setFetchSize(STREAM_FETCH_SIZE);
     }
 
     @Override
@@ -50,6 +58,13 @@ public class JdbcTemplateItemRepositoryV1 implements ItemRepository {
         return item;
     }
 
+    @Override
+    public List<Item> saveAll(List<Item> items) {
+        // NOTE : 한 행씩 save()를 호출하면 행마다 DB 왕복과 키 조회가 발생한다.
+        //  ItemBatchInsert는 같은 PreparedStatement에 addBatch()로 모아서 한 번에 전송한다.
+        return ItemBatchInsert.insert(template, items);
+    }
+
     @Override
     public void update(Long itemId, ItemUpdateDto updateParam) {
         String sql = "update item set item_name=?, price=?, quantity=? where id=?";
@@ -60,6 +75,22 @@ public class JdbcTemplateItemRepositoryV1 implements ItemRepository {
                 itemId);
     }
 
+    @Override
+    public boolean reserve(Long itemId, int quantity) {
+        Assert.isTrue(quantity > 0, "quantity must be positive");
+        // NOTE : 재고 확인과 차감을 한 문장으로 실행한다. 조건(quantity >= ?)을 만족하지 않으면 변경된 행이 0건이다.
+        //  DB 는 이 행에 대해서만 잠깐 쓰기 락을 잡으므로 애플리케이션에서 select ... for update 로 미리 잠글 필요가 없다.
+        String sql = "update item set quantity = quantity - ? where id = ? and quantity >= ?";
+        return template.update(sql, quantity, itemId, quantity) == 1;
+    }
+
+    @Override
+    public boolean release(Long itemId, int quantity) {
+        Assert.isTrue(quantity > 0, "quantity must be positive");
+        String sql = "update item set quantity = quantity + ? where id = ?";
+        return template.update(sql, quantity, itemId) == 1;
+    }
+
     @Override
     public Optional<Item> findById(Long id) {
         String sql = "select id, item_name, price, quantity from item where id = ?";
@@ -74,35 +105,44 @@ public class JdbcTemplateItemRepositoryV1 implements ItemRepository {
     }
 
     @Override
-    public List<Item> findAll(ItemSearchCond cond) {
-        String itemName = cond.getItemName();
-        Integer maxPrice = cond.getMaxPrice();
-
-        String sql = "select id, item_name, price, quantity from item";
-        //동적 쿼리
-        // NOTE : JdbcTemplate의 단점
-        //  아래의 코드처럼 조건에 따라 where 또는 and를 넣는 등 경우의 수를 모두 계산하여 작성해야 하므로 복잡하며
-        //  각 상황에 맞게 파라미터도 생성해야 하는 단점이 있다. 이후에 배울 MyBatis의 장점은 이런 동적 쿼리를 쉽게 작성할 수 있다는 것이다.
-        if (StringUtils.hasText(itemName) || maxPrice != null) {
-            sql += " where";
+    public List<Item> findAllByIds(Collection<Long> ids) {
+        // NOTE : "?" 바인딩은 목록 하나를 통째로 넣을 수 없으므로 id 개수만큼 "?"를 나열한 in 절을 사용한다. (ItemIdsSql 참고)
+        List<Item> result = new ArrayList<>(ids.size());
+        for (List<Long> chunk : ItemIdsSql.chunks(ids)) {
+            result.addAll(template.query(ItemIdsSql.sql(chunk), itemRowMapper(), ItemIdsSql.params(chunk)));
         }
-        boolean andFlag = false;
-        List<Object> param = new ArrayList<>();
-        if (StringUtils.hasText(itemName)) {
-            sql += " item_name like concat('%',?,'%')";
-            param.add(itemName);
-            andFlag = true;
-        }
-        if (maxPrice != null) {
-            if (andFlag) {
-                sql += " and";
-            }
-            sql += " price <= ?";
-            param.add(maxPrice);
-        }
-        log.info("sql={}", sql);
+        return result;
+    }
+
+    @Override
+    public List<Item> findAll(ItemSearchCond cond) {
+        // NOTE : 검색 조건 형태별로 미리 만들어 둔 SQL 을 사용하고 파라미터는 순서대로 바인딩한다. (ItemSearchSql 참고)
+        ItemSearchSql search = ItemSearchSql.of(cond);
+        log.debug("sql={}", search.findAllSql());
         // NOTE : queryForObject()는 1개를 가져오며 query()는 여려개를 가져올 떄 사용한다.
-        return template.query(sql, itemRowMapper(), param.toArray());
+        return template.query(search.findAllSql(), search.findAllParams(cond), itemRowMapper());
+    }
+
+    @Override
+    public Stream<Item> streamAll(ItemSearchCond cond) {
+        ItemSearchSql search = ItemSearchSql.of(cond);
+        // NOTE : queryForStream()은 ResultSet 을 열어 둔 채 한 행씩 RowMapper 를 적용하는 Stream 을 반환한다.
+        //  커넥션은 Stream 이 닫힐 때 반환되므로 호출하는 쪽에서 반드시 try-with-resources 로 닫아야 한다.
+        return streamTemplate.queryForStream(search.streamAllSql(), search.streamAllParams(cond), itemRowMapper());
+    }
+
+    @Override
+    public Optional<ItemView> findViewById(Long id) {
+        String sql = "select id, item_name, price, quantity from item where id = ?";
+        // NOTE : 없는 id 도 예외(EmptyResultDataAccessException) 없이 빈 목록으로 받는다.
+        return Optional.ofNullable(DataAccessUtils.singleResult(template.query(sql, ItemViewRowMapper.INSTANCE, id)));
+    }
+
+    @Override
+    public List<ItemView> findAllViews(ItemSearchCond cond) {
+        // NOTE : findAll 과 같은 SQL 을 실행하고 Item 대신 ItemView 로 바로 변환한다. (ItemViewRowMapper 참고)
+        ItemSearchSql search = ItemSearchSql.of(cond);
+        return template.query(search.findAllSql(), search.findAllParams(cond), ItemViewRowMapper.INSTANCE);
     }
 
     // NOTE : RowMapper는 데이터베이스의 반환 결과인 ResultSet을 객체로 변환합니다.
@@ -111,8 +151,11 @@ public class JdbcTemplateItemRepositoryV1 implements ItemRepository {
             Item item = new Item();
             item.setId(rs.getLong("id"));
             item.setItemName(rs.getString("item_name"));
-            item.setPrice(rs.getInt("price"));
-            item.setQuantity(rs.getInt("quantity"));
+            //getInt 는 null 을 0 으로 읽으므로 wasNull 로 null 을 되살린다. (ItemRowMapper 와 같다)
+            int price = rs.getInt("price");
+            item.setPrice(rs.wasNull() ? null : price);
+            int quantity = rs.getInt("quantity");
+            item.setQuantity(rs.wasNull() ? null : quantity);
             return item;
         });
     }
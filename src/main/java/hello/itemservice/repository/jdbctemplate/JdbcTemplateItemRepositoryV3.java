@@ -1,24 +1,30 @@
 package hello.itemservice.repository.jdbctemplate;
 
 import hello.itemservice.domain.Item;
+import hello.itemservice.domain.ItemView;
 import hello.itemservice.repository.ItemRepository;
 import hello.itemservice.repository.ItemSearchCond;
 import hello.itemservice.repository.ItemUpdateDto;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.dao.support.DataAccessUtils;
 import org.springframework.jdbc.core.BeanPropertyRowMapper;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.RowMapper;
 import org.springframework.jdbc.core.namedparam.BeanPropertySqlParameterSource;
 import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 import org.springframework.jdbc.core.namedparam.SqlParameterSource;
 import org.springframework.jdbc.core.simple.SimpleJdbcInsert;
-import org.springframework.util.StringUtils;
+import org.springframework.util.Assert;
 
 import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * SimpleJdbcInsert
@@ -27,9 +33,23 @@ import java.util.Optional;
 public class JdbcTemplateItemRepositoryV3 implements ItemRepository {
 
     private final NamedParameterJdbcTemplate template;
+    private final JdbcTemplate streamTemplate;
     private final SimpleJdbcInsert jdbcInsert;
+    private final boolean compiledRowMapper;
+
     public JdbcTemplateItemRepositoryV3(DataSource dataSource) {
+        this(dataSource, true);
+    }
+
+    /**
+     * @param compiledRowMapper true 면 ItemRowMapper, false 면 기존 BeanPropertyRowMapper 로 조회 결과를 변환한다.
+     */
+    public JdbcTemplateItemRepositoryV3(DataSource dataSource, boolean compiledRowMapper) {
+        this.compiledRowMapper = compiledRowMapper;
         this.template = new NamedParameterJdbcTemplate(dataSource);
+        // NOTE : 스트리밍 조회 전용 템플릿. fetchSize 만큼씩 나누어 가져오므로 전체 결과를 한 번에 메모리에 올리지 않는다.
+        this.streamTemplate = new JdbcTemplate(dataSource);
+        this.streamTemplate.setFetchSize(STREAM_FETCH_SIZE);
         //NOTE : SimpleJdbcInsert가 dataSource(테이블명, PK 제공받음)를 통해서 메타 데이터를 읽기에
         //  어떤 필드가 있는지 인지가 가능하며 .usingColumns()생략이 가능하다.
         this.jdbcInsert = new SimpleJdbcInsert(dataSource)
@@ -46,6 +66,12 @@ public class JdbcTemplateItemRepositoryV3 implements ItemRepository {
         return item;
     }
 
+    @Override
+    public List<Item> saveAll(List<Item> items) {
+        // NOTE : SimpleJdbcInsert.executeBatch()는 자동 생성된 키를 돌려주지 않기 때문에 ItemBatchInsert를 사용한다.
+        return ItemBatchInsert.insert(template.getJdbcOperations(), items);
+    }
+
     @Override
     public void update(Long itemId, ItemUpdateDto updateParam) {
         String sql = "update item " +
@@ -62,6 +88,27 @@ public class JdbcTemplateItemRepositoryV3 implements ItemRepository {
         template.update(sql, param);
     }
 
+    @Override
+    public boolean reserve(Long itemId, int quantity) {
+        Assert.isTrue(quantity > 0, "quantity must be positive");
+        // NOTE : 재고 확인과 차감을 한 문장으로 실행한다. 조건(quantity >= :quantity)을 만족하지 않으면 변경된 행이 0건이다.
+        String sql = "update item set quantity = quantity - :quantity where id = :id and quantity >= :quantity";
+        SqlParameterSource param = new MapSqlParameterSource()
+                .addValue("quantity", quantity)
+                .addValue("id", itemId);
+        return template.update(sql, param) == 1;
+    }
+
+    @Override
+    public boolean release(Long itemId, int quantity) {
+        Assert.isTrue(quantity > 0, "quantity must be positive");
+        String sql = "update item set quantity = quantity + :quantity where id = :id";
+        SqlParameterSource param = new MapSqlParameterSource()
+                .addValue("quantity", quantity)
+                .addValue("id", itemId);
+        return template.update(sql, param) == 1;
+    }
+
     @Override
     public Optional<Item> findById(Long id) {
         String sql = "select id, item_name, price, quantity from item where id = :id";
@@ -76,39 +123,56 @@ public class JdbcTemplateItemRepositoryV3 implements ItemRepository {
     }
 
     @Override
-    public List<Item> findAll(ItemSearchCond cond) {
-        String itemName = cond.getItemName();
-        Integer maxPrice = cond.getMaxPrice();
-
-        SqlParameterSource param = new BeanPropertySqlParameterSource(cond);
-
-        String sql = "select id, item_name, price, quantity from item";
-        //동적 쿼리
-        // NOTE : JdbcTemplate의 단점
-        //  아래의 코드처럼 조건에 따라 where 또는 and를 넣는 등 경우의 수를 모두 계산하여 작성해야 하므로 복잡하며
-        //  각 상황에 맞게 파라미터도 생성해야 하는 단점이 있다. 이후에 배울 MyBatis의 장점은 이런 동적 쿼리를 쉽게 작성할 수 있다는 것이다.
-        if (StringUtils.hasText(itemName) || maxPrice != null) {
-            sql += " where";
+    public List<Item> findAllByIds(Collection<Long> ids) {
+        // NOTE : findAll 처럼 미리 만들어 둔 "?" SQL 에 순서대로 바인딩한다. (ItemIdsSql 참고)
+        List<Item> result = new ArrayList<>(ids.size());
+        for (List<Long> chunk : ItemIdsSql.chunks(ids)) {
+            result.addAll(template.getJdbcOperations().query(ItemIdsSql.sql(chunk), itemRowMapper(), ItemIdsSql.params(chunk)));
         }
-        boolean andFlag = false;
+        return result;
+    }
 
-        if (StringUtils.hasText(itemName)) {
-            sql += " item_name like concat('%',:itemName,'%')";
-            andFlag = true;
-        }
-        if (maxPrice != null) {
-            if (andFlag) {
-                sql += " and";
-            }
-            sql += " price <= :maxPrice";
-        }
-        log.info("sql={}", sql);
+    @Override
+    public List<Item> findAll(ItemSearchCond cond) {
+        // NOTE : 검색 조건 형태별로 미리 만들어 둔 SQL 을 사용한다. (ItemSearchSql 참고)
+        //  이름 지정 파라미터(:itemName)는 실행할 때마다 "?" 로 바꾼 SQL 을 새로 만들고, BeanPropertySqlParameterSource 는 리플렉션으로 값을 읽는다.
+        //  검색은 가장 자주 호출되는 쿼리이므로 내부 JdbcTemplate(getJdbcOperations())으로 "?" SQL 에 순서대로 바인딩한다.
+        ItemSearchSql search = ItemSearchSql.of(cond);
+        log.debug("sql={}", search.findAllSql());
         // NOTE : queryForObject()는 1개를 가져오며 query()는 여려개를 가져올 떄 사용한다.
-        return template.query(sql, param, itemRowMapper());
+        return template.getJdbcOperations().query(search.findAllSql(), search.findAllParams(cond), itemRowMapper());
+    }
+
+    @Override
+    public Stream<Item> streamAll(ItemSearchCond cond) {
+        ItemSearchSql search = ItemSearchSql.of(cond);
+        // NOTE : queryForStream()은 ResultSet 을 열어 둔 채 한 행씩 RowMapper 를 적용하는 Stream 을 반환한다.
+        //  커넥션은 Stream 이 닫힐 때 반환되므로 호출하는 쪽에서 반드시 try-with-resources 로 닫아야 한다.
+        return streamTemplate.queryForStream(search.streamAllSql(), search.streamAllParams(cond), itemRowMapper());
+    }
+
+    @Override
+    public Optional<ItemView> findViewById(Long id) {
+        String sql = "select id, item_name, price, quantity from item where id = :id";
+        // NOTE : 없는 id 도 예외(EmptyResultDataAccessException) 없이 빈 목록으로 받는다.
+        return Optional.ofNullable(DataAccessUtils.singleResult(
+                template.query(sql, Map.of("id", id), ItemViewRowMapper.INSTANCE)));
+    }
+
+    @Override
+    public List<ItemView> findAllViews(ItemSearchCond cond) {
+        // NOTE : findAll 과 같은 SQL 을 실행하고 Item 대신 ItemView 로 바로 변환한다. (ItemViewRowMapper 참고)
+        ItemSearchSql search = ItemSearchSql.of(cond);
+        return template.getJdbcOperations().query(search.findAllSql(), search.findAllParams(cond), ItemViewRowMapper.INSTANCE);
     }
 
     // NOTE : RowMapper는 데이터베이스의 반환 결과인 ResultSet을 객체로 변환합니다.
     private RowMapper<Item> itemRowMapper() {
+        // NOTE : ItemRowMapper 는 컬럼 구성별로 한 번 만든 변환 계획을 공유하고 index 로 값을 읽는다.
+        //  아래의 BeanPropertyRowMapper 는 호출할 때마다 리플렉션으로 Item 을 조사하므로 비교(벤치마크)용으로 남겨둔다.
+        if (compiledRowMapper) {
+            return new ItemRowMapper();
+        }
         // NOTE : 자바 객체는 camelCase 표기법을 사용하며 관계형 데이터베이스는 snake_case 표기법을 사용한다.
         //  BeanPropertyRowMapper는 ResultSet의 결과를 받고 자바빈 규약에 맞춰 데이터를 변환한다.
         //  ex) select id로 로 조회 시, Item 인스턴스 생성 후 setId(rs.getLong("id"));와 같은 코드를 작성해준다.
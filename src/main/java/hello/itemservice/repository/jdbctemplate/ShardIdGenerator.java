@@ -0,0 +1,63 @@
+package hello.itemservice.repository.jdbctemplate;
+
+import org.springframework.jdbc.core.JdbcOperations;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 샤드 번호를 담은 id 발급기
+ * NOTE : id = 샤드 안에서의 번호(local) x 샤드 수 + 샤드 번호. 따라서 id % 샤드 수 로 항상 어느 샤드에 있는지 알 수 있다.
+ *  local 은 샤드의 item_id_seq 시퀀스 값(hi) 하나로 BLOCK_SIZE 개를 만들어 쓰는 hi/lo 방식으로 발급한다.
+ *  시퀀스는 샤드 DB 에 있으므로 애플리케이션이 여러 대여도, 재시작해도 id 가 겹치지 않는다. (재시작하면 남은 블록만큼 번호가 건너뛴다)
+ *  샤드 수를 바꾸면 기존 id 의 위치 계산이 달라지므로 샤드 수는 처음 정한 값으로 고정해야 한다.
+ */
+final class ShardIdGenerator {
+
+    static final int BLOCK_SIZE = 100;
+
+    private static final String NEXT_HI_SQL = "select next value for item_id_seq";
+
+    private final List<? extends JdbcOperations> shards;
+    private final Block[] blocks;
+    private final AtomicInteger nextShard = new AtomicInteger();
+
+    ShardIdGenerator(List<? extends JdbcOperations> shards) {
+        this.shards = shards;
+        this.blocks = new Block[shards.size()];
+        for (int i = 0; i < blocks.length; i++) {
+            blocks[i] = new Block();
+        }
+    }
+
+    /**
+     * 새 상품을 저장할 샤드. 샤드마다 고르게 돌아가며 배정한다.
+     */
+    int nextShard() {
+        return Math.floorMod(nextShard.getAndIncrement(), shards.size());
+    }
+
+    int shardOf(long id) {
+        return (int) Math.floorMod(id, (long) shards.size());
+    }
+
+    long nextId(int shard) {
+        return blocks[shard].nextLocal(shards.get(shard)) * shards.size() + shard;
+    }
+
+    private static final class Block {
+
+        private long hi;
+        private int lo = BLOCK_SIZE;
+
+        synchronized long nextLocal(JdbcOperations shard) {
+            if (lo == BLOCK_SIZE) {
+                //시퀀스는 1부터 시작하므로 local 은 BLOCK_SIZE 이상의 양수다.
+                Long value = shard.queryForObject(NEXT_HI_SQL, Long.class);
+                hi = value;
+                lo = 0;
+            }
+            return hi * BLOCK_SIZE + lo++;
+        }
+    }
+}
@@ -0,0 +1,298 @@
+package hello.itemservice.repository.jdbctemplate;
+
+import hello.itemservice.domain.Item;
+import hello.itemservice.repository.ItemRepository;
+import hello.itemservice.repository.ItemSearchCond;
+import hello.itemservice.repository.ItemUpdateDto;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.util.Assert;
+
+import javax.sql.DataSource;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.function.IntFunction;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * id 로 여러 DataSource(샤드)에 상품을 나누어 저장하는 저장소
+ * NOTE : 상품은 id % 샤드 수 번째 샤드에 저장된다. id 는 ShardIdGenerator 가 샤드 번호를 담아 발급한다.
+ *  - findById, update, reserve, release : id 로 샤드 하나를 골라 그 샤드에만 실행한다.
+ *  - findAllByIds : id 를 샤드별로 나누어 id 가 있는 샤드에만 동시에 조회하고 id 순으로 합친다.
+ *  - findAll : 모든 샤드에 같은 검색(id > cursor order by id limit ?)을 동시에 실행하고(scatter),
+ *      샤드별로 정렬된 결과를 같은 순서로 합쳐 limit 개만 반환한다(gather). id 가 전체에서 유일하므로 키셋 페이징도 그대로 동작한다.
+ *      가격순 정렬도 (price, id) 순서가 전체에서 하나로 정해지므로 같은 방법으로 합친다. (ItemSort.comparator())
+ *      샤드 쿼리는 executor 에서 실행하고, 첫 번째 샤드는 호출한 스레드가 직접 실행한다.
+ *  - streamAll : 모든 샤드의 Stream 을 열어 검색 조건의 정렬 순서로 합친다. 샤드 수만큼 커넥션을 사용한다.
+ *  - 트랜잭션 : 샤드 DataSource 는 스프링 트랜잭션 매니저에 묶여 있지 않으므로 문장마다 자동 커밋된다.
+ */
+@Slf4j
+public class ShardedJdbcTemplateItemRepository implements ItemRepository {
+
+    private static final String SELECT_BY_ID_SQL = "select id, item_name, price, quantity from item where id = ?";
+    private static final String INSERT_SQL = "insert into item(id, item_name, price, quantity) values (?,?,?,?)";
+    private static final String UPDATE_SQL = "update item set item_name=?, price=?, quantity=? where id=?";
+    private static final String RESERVE_SQL = "update item set quantity = quantity - ? where id = ? and quantity >= ?";
+    private static final String RELEASE_SQL = "update item set quantity = quantity + ? where id = ?";
+
+    private static final Comparator<Item> BY_ID = Comparator.comparing(Item::getId);
+
+    private final List<JdbcTemplate> shards = new ArrayList<>();
+    private final List<JdbcTemplate> streamShards = new ArrayList<>();
+    private final ShardIdGenerator idGenerator;
+    private final Executor executor;
+
+    /**
+     * @param executor 샤드 쿼리를 동시에 실행할 executor. 크기가 정해진(bounded) 스레드 풀을 사용한다.
+     */
+    public ShardedJdbcTemplateItemRepository(List<DataSource> dataSources, Executor executor) {
+        Assert.notEmpty(dataSources, "dataSources must not be empty");
+        for (DataSource dataSource : dataSources) {
+            shards.add(new JdbcTemplate(dataSource));
+            JdbcTemplate streamTemplate = new JdbcTemplate(dataSource);
+            streamTemplate.setFetchSize(STREAM_FETCH_SIZE);
+            streamShards.add(streamTemplate);
+        }
+        this.idGenerator = new ShardIdGenerator(shards);
+        this.executor = executor;
+    }
+
+    @Override
+    public Item save(Item item) {
+        int shard = idGenerator.nextShard();
+        item.setId(idGenerator.nextId(shard));
+        shards.get(shard).update(INSERT_SQL, item.getId(), item.getItemName(), item.getPrice(), item.getQuantity());
+        return item;
+    }
+
+    @Override
+    public List<Item> saveAll(List<Item> items) {
+        List<List<Item>> byShard = new ArrayList<>();
+        for (int i = 0; i < shards.size(); i++) {
+            byShard.add(new ArrayList<>());
+        }
+        for (Item item : items) {
+            int shard = idGenerator.nextShard();
+            item.setId(idGenerator.nextId(shard));
+            byShard.get(shard).add(item);
+        }
+        //샤드별 배치 insert 도 동시에 실행한다.
+        scatter(shard -> {
+            List<Item> chunk = byShard.get(shard);
+            if (!chunk.isEmpty()) {
+                shards.get(shard).batchUpdate(INSERT_SQL, chunk, ItemBatchInsert.BATCH_SIZE, (ps, item) -> {
+                    ps.setLong(1, item.getId());
+                    ps.setString(2, item.getItemName());
+                    ps.setObject(3, item.getPrice(), Types.INTEGER);
+                    ps.setObject(4, item.getQuantity(), Types.INTEGER);
+                });
+            }
+            return null;
+        });
+        return items;
+    }
+
+    @Override
+    public void update(Long itemId, ItemUpdateDto updateParam) {
+        shardFor(itemId).update(UPDATE_SQL,
+                updateParam.getItemName(), updateParam.getPrice(), updateParam.getQuantity(), itemId);
+    }
+
+    @Override
+    public boolean reserve(Long itemId, int quantity) {
+        Assert.isTrue(quantity > 0, "quantity must be positive");
+        return shardFor(itemId).update(RESERVE_SQL, quantity, itemId, quantity) == 1;
+    }
+
+    @Override
+    public boolean release(Long itemId, int quantity) {
+        Assert.isTrue(quantity > 0, "quantity must be positive");
+        return shardFor(itemId).update(RELEASE_SQL, quantity, itemId) == 1;
+    }
+
+    @Override
+    public Optional<Item> findById(Long id) {
+        List<Item> result = shardFor(id).query(SELECT_BY_ID_SQL, new ItemRowMapper(), id);
+        return result.stream().findFirst();
+    }
+
+    @Override
+    public List<Item> findAllByIds(Collection<Long> ids) {
+        List<List<Long>> byShard = new ArrayList<>();
+        for (int i = 0; i < shards.size(); i++) {
+            byShard.add(new ArrayList<>());
+        }
+        for (Long id : ids) {
+            if (id != null) {
+                byShard.get(idGenerator.shardOf(id)).add(id);
+            }
+        }
+        //id 가 하나도 없는 샤드에는 쿼리를 보내지 않는다.
+        int[] targets = IntStream.range(0, shards.size()).filter(shard -> !byShard.get(shard).isEmpty()).toArray();
+        List<List<Item>> results = scatter(targets, shard -> {
+            List<Item> found = new ArrayList<>();
+            for (List<Long> chunk : ItemIdsSql.chunks(byShard.get(shard))) {
+                found.addAll(shards.get(shard).query(ItemIdsSql.sql(chunk), new ItemRowMapper(), ItemIdsSql.params(chunk)));
+            }
+            return found;
+        });
+        return merge(results, results.stream().mapToInt(List::size).sum(), BY_ID);
+    }
+
+    @Override
+    public List<Item> findAll(ItemSearchCond cond) {
+        ItemSearchSql search = ItemSearchSql.of(cond);
+        log.debug("sql={}, shards={}", search.findAllSql(), shards.size());
+        // NOTE : 샤드마다 limit 개까지만 가져오면 합친 결과의 앞 limit 개는 항상 그 안에 있다.
+        List<List<Item>> results = scatter(shard ->
+                shards.get(shard).query(search.findAllSql(), search.findAllParams(cond), new ItemRowMapper()));
+        return merge(results, cond.getLimit(), cond.getSortOrder().comparator());
+    }
+
+    @Override
+    public Stream<Item> streamAll(ItemSearchCond cond) {
+        ItemSearchSql search = ItemSearchSql.of(cond);
+        List<Stream<Item>> streams = new ArrayList<>();
+        MergingIterator iterator;
+        try {
+            for (JdbcTemplate shard : streamShards) {
+                streams.add(shard.queryForStream(search.streamAllSql(), search.streamAllParams(cond), new ItemRowMapper()));
+            }
+            iterator = new MergingIterator(streams, cond.getSortOrder().comparator());
+        } catch (RuntimeException e) {
+            streams.forEach(Stream::close);
+            throw e;
+        }
+        Spliterator<Item> merged = Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED | Spliterator.NONNULL);
+        return StreamSupport.stream(merged, false).onClose(() -> streams.forEach(Stream::close));
+    }
+
+    private JdbcTemplate shardFor(Long id) {
+        return shards.get(idGenerator.shardOf(id));
+    }
+
+    /**
+     * task 를 샤드마다 동시에 실행하고 샤드 순서대로 결과를 모은다. 하나라도 실패하면 그 예외를 그대로 던진다.
+     */
+    private <T> List<T> scatter(IntFunction<T> task) {
+        return scatter(IntStream.range(0, shards.size()).toArray(), task);
+    }
+
+    /**
+     * task 를 targets 의 샤드에만 동시에 실행하고 targets 순서대로 결과를 모은다.
+     */
+    private <T> List<T> scatter(int[] targets, IntFunction<T> task) {
+        if (targets.length == 0) {
+            return Collections.emptyList();
+        }
+        if (targets.length == 1) {
+            return Collections.singletonList(task.apply(targets[0]));
+        }
+        List<CompletableFuture<T>> futures = new ArrayList<>(targets.length);
+        for (int i = 1; i < targets.length; i++) {
+            int target = targets[i];
+            futures.add(CompletableFuture.supplyAsync(() -> task.apply(target), executor));
+        }
+        List<T> results = new ArrayList<>(targets.length);
+        try {
+            //다른 샤드를 기다리는 동안 첫 번째 샤드는 호출한 스레드에서 실행한다.
+            results.add(task.apply(targets[0]));
+            for (CompletableFuture<T> future : futures) {
+                results.add(future.join());
+            }
+        } catch (CompletionException e) {
+            futures.forEach(future -> future.cancel(false));
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        } catch (RuntimeException e) {
+            futures.forEach(future -> future.cancel(false));
+            throw e;
+        }
+        return results;
+    }
+
+    /**
+     * 샤드별로 order 순인 결과를 order 순으로 합쳐 앞에서부터 limit 개를 반환한다.
+     */
+    private static List<Item> merge(List<List<Item>> results, int limit, Comparator<Item> order) {
+        int[] positions = new int[results.size()];
+        List<Item> merged = new ArrayList<>(limit);
+        while (merged.size() < limit) {
+            int min = -1;
+            for (int i = 0; i < results.size(); i++) {
+                if (positions[i] < results.get(i).size()
+                        && (min < 0 || order.compare(results.get(i).get(positions[i]), results.get(min).get(positions[min])) < 0)) {
+                    min = i;
+                }
+            }
+            if (min < 0) {
+                break;
+            }
+            merged.add(results.get(min).get(positions[min]++));
+        }
+        return merged;
+    }
+
+    /**
+     * 샤드별 Stream 의 다음 행 중 order 순으로 가장 앞선 행을 먼저 꺼내는 Iterator
+     */
+    private static final class MergingIterator implements Iterator<Item> {
+
+        private final PriorityQueue<Head> heads;
+
+        MergingIterator(List<Stream<Item>> streams, Comparator<Item> order) {
+            heads = new PriorityQueue<>((a, b) -> order.compare(a.item, b.item));
+            for (Stream<Item> stream : streams) {
+                Iterator<Item> iterator = stream.iterator();
+                if (iterator.hasNext()) {
+                    heads.add(new Head(iterator.next(), iterator));
+                }
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return !heads.isEmpty();
+        }
+
+        @Override
+        public Item next() {
+            Head head = heads.poll();
+            if (head == null) {
+                throw new NoSuchElementException();
+            }
+            if (head.rest.hasNext()) {
+                heads.add(new Head(head.rest.next(), head.rest));
+            }
+            return head.item;
+        }
+    }
+
+    private static final class Head {
+
+        private final Item item;
+        private final Iterator<Item> rest;
+
+        Head(Item item, Iterator<Item> rest) {
+            this.item = item;
+            this.rest = rest;
+        }
+    }
+}
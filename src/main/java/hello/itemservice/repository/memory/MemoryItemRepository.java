@@ -3,60 +3,409 @@ package hello.itemservice.repository.memory;
 import hello.itemservice.domain.Item;
 import hello.itemservice.repository.ItemRepository;
 import hello.itemservice.repository.ItemSearchCond;
+import hello.itemservice.repository.ItemSort;
 import hello.itemservice.repository.ItemUpdateDto;
 import org.springframework.stereotype.Repository;
+import org.springframework.util.Assert;
 import org.springframework.util.ObjectUtils;
 
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
 
+/**
+ * 동시성을 고려한 메모리 저장소
+ * NOTE : 톰캣의 여러 요청 스레드가 동시에 접근해도 안전하도록 다음 구조를 사용한다.
+ *  - id 발급 : AtomicLong 으로 중복 없이 발급한다.
+ *  - 저장 : 불변 객체인 ItemVersion 을 저장하고, 수정 시 새 버전을 만들어 교체한다(copy-on-write).
+ *      읽는 쪽은 락 없이 항상 완성된 버전만 보게 되며, 반환할 때는 Item 을 새로 만들어 준다.
+ *  - 가격 인덱스 : (price, id) 순으로 정렬된 ConcurrentSkipListSet 을 두어 minPrice, maxPrice 조건을 범위 조회로 처리한다.
+ *      가격순 정렬은 이 범위 뷰(subSet, descendingSet)를 순서대로 읽다가 limit 를 채우면 멈추므로 결과를 따로 정렬하지 않는다.
+ *  - 상품명 인덱스 : TrigramIndex 로 itemName 부분 일치 검색의 후보 id 를 좁힌 뒤 나머지 조건을 검사한다.
+ *      id 순서 조회에서 인덱스 후보가 너무 많으면(candidateBudget) 인덱스를 버리고 id 순서로 읽는다. 한 페이지의 비용이 전체 행 수에 비례하지 않게 한다.
+ *  - 페이징 : 저장소를 id 순으로 정렬된 ConcurrentSkipListMap 으로 두어 afterId 이후의 행만 읽고 limit 를 채우면 멈춘다.
+ *  - 쓰기 락 : 같은 id 에 대한 쓰기만 줄무늬(stripe) 락으로 직렬화하여 가격 인덱스와 저장소의 교체 순서를 보장한다.
+ *  - 재고 차감 : 인덱스가 바뀌지 않으므로 락 없이 ConcurrentSkipListMap.replace(id, 읽은 버전, 새 버전)로 교체한다.
+ */
 @Repository
 public class MemoryItemRepository implements ItemRepository {
 
-    private static final Map<Long, Item> store = new HashMap<>(); //static
-    private static long sequence = 0L; //static
+    private static final int LOCK_STRIPES = 64;
+
+    private final ConcurrentSkipListMap<Long, ItemVersion> store = new ConcurrentSkipListMap<>();
+    private final ConcurrentSkipListSet<PriceKey> priceIndex = new ConcurrentSkipListSet<>();
+    private final TrigramIndex nameIndex = new TrigramIndex();
+    private final AtomicLong sequence = new AtomicLong();
+    private final Object[] writeLocks = new Object[LOCK_STRIPES];
+
+    public MemoryItemRepository() {
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            writeLocks[i] = new Object();
+        }
+    }
 
     @Override
     public Item save(Item item) {
-        item.setId(++sequence);
-        store.put(item.getId(), item);
+        long id = sequence.incrementAndGet();
+        item.setId(id);
+        ItemVersion version = new ItemVersion(id, item.getItemName(), item.getPrice(), item.getQuantity());
+        // NOTE : 인덱스를 먼저 넣고 저장소에 공개한다. 인덱스만 보고 들어온 조회는 저장소에서 버전을 찾지 못하면 건너뛴다.
+        addIndex(version);
+        store.put(id, version);
         return item;
     }
 
+    @Override
+    public List<Item> saveAll(List<Item> items) {
+        for (Item item : items) {
+            save(item);
+        }
+        return items;
+    }
+
     @Override
     public void update(Long itemId, ItemUpdateDto updateParam) {
-        Item findItem = findById(itemId).orElseThrow();
-        findItem.setItemName(updateParam.getItemName());
-        findItem.setPrice(updateParam.getPrice());
-        findItem.setQuantity(updateParam.getQuantity());
+        synchronized (lockFor(itemId)) {
+            ItemVersion current = findVersion(itemId).orElseThrow();
+            ItemVersion next = current.with(updateParam.getItemName(), updateParam.getPrice(), updateParam.getQuantity());
+            // NOTE : 새 인덱스 추가 -> 버전 교체 -> 이전 인덱스 제거 순서로 진행해야 조회 중인 스레드가 상품을 놓치지 않는다.
+            addIndex(next);
+            store.put(itemId, next);
+            if (!Objects.equals(current.price, next.price)) {
+                removePriceIndex(current);
+            }
+            if (!Objects.equals(current.itemName, next.itemName)) {
+                nameIndex.removeStale(itemId, current.itemName, next.itemName);
+            }
+        }
+    }
+
+    @Override
+    public boolean reserve(Long itemId, int quantity) {
+        Assert.isTrue(quantity > 0, "quantity must be positive");
+        // NOTE : 재고만 바뀌고 인덱스(상품명, 가격)는 그대로이므로 쓰기 락 없이 CAS(compare-and-set)로 버전을 교체한다.
+        //  읽은 버전이 그대로일 때만 replace 가 성공하며, 다른 스레드가 먼저 바꿨다면 새 버전을 다시 읽어 재시도한다.
+        while (true) {
+            ItemVersion current = store.get(itemId);
+            if (current == null || current.quantity == null || current.quantity < quantity) {
+                return false;
+            }
+            if (store.replace(itemId, current, current.with(current.itemName, current.price, current.quantity - quantity))) {
+                return true;
+            }
+        }
+    }
+
+    @Override
+    public boolean release(Long itemId, int quantity) {
+        Assert.isTrue(quantity > 0, "quantity must be positive");
+        while (true) {
+            ItemVersion current = store.get(itemId);
+            if (current == null || current.quantity == null) {
+                return false;
+            }
+            if (store.replace(itemId, current, current.with(current.itemName, current.price, current.quantity + quantity))) {
+                return true;
+            }
+        }
     }
 
     @Override
     public Optional<Item> findById(Long id) {
-        return Optional.ofNullable(store.get(id));
+        return findVersion(id).map(ItemVersion::toItem);
+    }
+
+    @Override
+    public List<Item> findAllByIds(Collection<Long> ids) {
+        TreeMap<Long, ItemVersion> found = new TreeMap<>();
+        for (Long id : ids) {
+            if (id != null) {
+                ItemVersion version = store.get(id);
+                if (version != null) {
+                    found.put(id, version);
+                }
+            }
+        }
+        List<Item> result = new ArrayList<>(found.size());
+        for (ItemVersion version : found.values()) {
+            result.add(version.toItem());
+        }
+        return result;
     }
 
     @Override
     public List<Item> findAll(ItemSearchCond cond) {
-        String itemName = cond.getItemName();
-        Integer maxPrice = cond.getMaxPrice();
-        return store.values().stream()
-                .filter(item -> {
-                    if (ObjectUtils.isEmpty(itemName)) {
-                        return true;
-                    }
-                    return item.getItemName().contains(itemName);
-                }).filter(item -> {
-                    if (maxPrice == null) {
-                        return true;
+        if (cond.getSortOrder().byPrice()) {
+            return findAllByPrice(cond);
+        }
+        long cursor = cond.getCursor();
+        int limit = cond.getLimit();
+
+        // NOTE : 결과는 id 순으로 반환한다. 가격 인덱스를 거치면서 생길 수 있는 중복도 id 로 제거된다.
+        TreeMap<Long, ItemVersion> page = new TreeMap<>();
+        if (!fillFromIndex(cond, page)) {
+            // 인덱스를 쓸 수 없으면 id 순서로 cursor 이후만 읽다가 limit 를 채우면 멈춘다.
+            page.clear();
+            for (ItemVersion version : store.tailMap(cursor, false).values()) {
+                if (version.matches(cond)) {
+                    page.put(version.id, version);
+                    if (page.size() == limit) {
+                        break;
                     }
-                    return item.getPrice() <= maxPrice;
-                })
-                .collect(Collectors.toList());
+                }
+            }
+        }
+        List<Item> result = new ArrayList<>(page.size());
+        for (ItemVersion version : page.values()) {
+            result.add(version.toItem());
+        }
+        return result;
+    }
+
+    @Override
+    public Stream<Item> streamAll(ItemSearchCond cond) {
+        if (cond.getSortOrder().byPrice()) {
+            return priceRange(cond).stream()
+                    .map(this::versionAt)
+                    .filter(version -> version != null && version.matches(cond))
+                    .map(ItemVersion::toItem);
+        }
+        return store.tailMap(cond.getCursor(), false).values().stream()
+                .filter(version -> version.matches(cond))
+                .map(ItemVersion::toItem);
+    }
+
+    private List<Item> findAllByPrice(ItemSearchCond cond) {
+        int limit = cond.getLimit();
+        List<Item> result = new ArrayList<>(limit);
+        for (PriceKey key : priceRange(cond)) {
+            ItemVersion version = versionAt(key);
+            if (version != null && version.matches(cond)) {
+                result.add(version.toItem());
+                if (result.size() == limit) {
+                    break;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 이미 id 가 정해진 상품을 그대로 저장한다. 같은 id 가 있으면 update 처럼 교체한다. (DurableItemRepository 의 복구에 사용)
+     * 이후 save 가 발급하는 id 는 복원한 id 보다 크다.
+     */
+    public void restore(Item item) {
+        long id = item.getId();
+        sequence.accumulateAndGet(id, Math::max);
+        synchronized (lockFor(id)) {
+            if (store.containsKey(id)) {
+                update(id, new ItemUpdateDto(item.getItemName(), item.getPrice(), item.getQuantity()));
+                return;
+            }
+            ItemVersion version = new ItemVersion(id, item.getItemName(), item.getPrice(), item.getQuantity());
+            addIndex(version);
+            store.put(id, version);
+        }
     }
 
     public void clearStore() {
         store.clear();
+        priceIndex.clear();
+        nameIndex.clear();
+    }
+
+    private Optional<ItemVersion> findVersion(Long id) {
+        return Optional.ofNullable(store.get(id));
     }
 
+    /**
+     * 조건을 만족할 수 있는 후보를 인덱스로 골라 page 에 id 가 가장 작은 limit 개만 남긴다.
+     * 상품명으로 3-gram 후보를 만들 수 있으면 역색인을, 가격 조건이 있으면 가격 인덱스의 범위를 복사하지 않고 읽는다.
+     * 인덱스를 쓸 수 없거나 후보가 candidateBudget 보다 많으면 false 를 반환하고, 호출하는 쪽이 id 순서로 읽는다.
+     * NOTE : 인덱스와 저장소는 한 번에 바뀌지 않으므로 후보는 항상 현재 버전으로 다시 검사(matches)해야 한다.
+     *  가격이 바뀌는 중이라면 새 키를 먼저 만나고 이전 키는 지워질 수 있다. 중복은 page 의 id 로 제거된다.
+     */
+    private boolean fillFromIndex(ItemSearchCond cond, TreeMap<Long, ItemVersion> page) {
+        int budget = candidateBudget(cond.getLimit());
+        if (!ObjectUtils.isEmpty(cond.getItemName())) {
+            Set<Long> ids = nameIndex.candidates(cond.getItemName(), budget);
+            if (ids != null) {
+                for (Long id : ids) {
+                    addCandidate(store.get(id), cond, page);
+                }
+                return true;
+            }
+        }
+        if (cond.getMinPrice() != null || cond.getMaxPrice() != null) {
+            int read = 0;
+            for (PriceKey key : priceRange(cond)) {
+                if (++read > budget) {
+                    return false;
+                }
+                addCandidate(store.get(key.id), cond, page);
+            }
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * 인덱스로 읽을 후보 수의 상한
+     * NOTE : 조건을 만족하는 행의 비율이 f 라면 id 순서로 읽을 때는 limit 를 채우기까지 약 limit / f 행을, 인덱스로는 f x 전체 행 수 만큼의 후보를 읽는다.
+     *  두 비용은 후보 수가 sqrt(limit x 전체 행 수) 일 때 같아지므로, 후보가 이보다 많으면 id 순서로 읽는 쪽이 적게 읽는다.
+     *  전체 행 수는 지금까지 발급한 id 로 어림한다. (삭제가 없으므로)
+     */
+    private int candidateBudget(int limit) {
+        long budget = (long) Math.sqrt((double) limit * sequence.get());
+        return (int) Math.min(Integer.MAX_VALUE, Math.max(limit, budget));
+    }
+
+    private static void addCandidate(ItemVersion version, ItemSearchCond cond, TreeMap<Long, ItemVersion> page) {
+        // 인덱스 후보는 id 순서가 아니므로 가장 작은 id limit 개만 남긴다.
+        if (version != null && version.id > cond.getCursor() && version.matches(cond)) {
+            page.put(version.id, version);
+            if (page.size() > cond.getLimit()) {
+                page.pollLastEntry();
+            }
+        }
+    }
+
+    /**
+     * 가격 인덱스에서 [priceFrom, priceTo] 범위의 뷰를 정렬 순서대로 반환한다. 복사하지 않고 읽는 동안의 변경도 반영된다.
+     * 가격순 정렬의 다음 페이지는 커서 (afterPrice, afterId) 바로 다음 키부터 읽는다.
+     */
+    private NavigableSet<PriceKey> priceRange(ItemSearchCond cond) {
+        PriceKey from = new PriceKey(cond.getPriceFrom(), Long.MIN_VALUE);
+        PriceKey to = new PriceKey(cond.getPriceTo(), Long.MAX_VALUE);
+        boolean fromInclusive = true;
+        boolean toInclusive = true;
+        if (cond.isPriceCursor()) {
+            PriceKey cursor = new PriceKey(cond.getAfterPrice(), cond.getAfterId());
+            if (cond.getSortOrder() == ItemSort.PRICE_ASC && cursor.compareTo(from) >= 0) {
+                from = cursor;
+                fromInclusive = false;
+            }
+            if (cond.getSortOrder() == ItemSort.PRICE_DESC && cursor.compareTo(to) <= 0) {
+                to = cursor;
+                toInclusive = false;
+            }
+        }
+        //subSet 은 from 이 to 보다 크면 예외를 던지므로 빈 범위는 따로 처리한다.
+        if (from.compareTo(to) > 0) {
+            return Collections.emptyNavigableSet();
+        }
+        NavigableSet<PriceKey> range = priceIndex.subSet(from, fromInclusive, to, toInclusive);
+        return cond.getSortOrder() == ItemSort.PRICE_DESC ? range.descendingSet() : range;
+    }
+
+    /**
+     * 가격 인덱스의 키가 가리키는 현재 버전. 가격이 바뀌어 더 이상 이 키의 위치에 있지 않은 버전이면 null 을 반환한다.
+     * NOTE : 가격이 바뀌는 중에는 새 키와 이전 키가 함께 있을 수 있다. 현재 가격과 같은 키에서만 반환하므로
+     *  가격순 결과에 같은 상품이 두 번 나오거나 정렬 순서가 어긋나지 않는다.
+     */
+    private ItemVersion versionAt(PriceKey key) {
+        ItemVersion version = store.get(key.id);
+        if (version == null || version.price == null || version.price != key.price) {
+            return null;
+        }
+        return version;
+    }
+
+    private void addIndex(ItemVersion version) {
+        if (version.price != null) {
+            priceIndex.add(new PriceKey(version.price, version.id));
+        }
+        if (version.itemName != null) {
+            nameIndex.add(version.id, version.itemName);
+        }
+    }
+
+    private void removePriceIndex(ItemVersion version) {
+        if (version.price != null) {
+            priceIndex.remove(new PriceKey(version.price, version.id));
+        }
+    }
+
+    private Object lockFor(long id) {
+        return writeLocks[(int) (id & (LOCK_STRIPES - 1))];
+    }
+
+    /**
+     * 저장소에 보관되는 불변 상품 버전
+     */
+    private static final class ItemVersion {
+        private final long id;
+        private final String itemName;
+        private final Integer price;
+        private final Integer quantity;
+
+        private ItemVersion(long id, String itemName, Integer price, Integer quantity) {
+            this.id = id;
+            this.itemName = itemName;
+            this.price = price;
+            this.quantity = quantity;
+        }
+
+        private ItemVersion with(String itemName, Integer price, Integer quantity) {
+            return new ItemVersion(id, itemName, price, quantity);
+        }
+
+        private boolean matches(ItemSearchCond cond) {
+            String itemName = cond.getItemName();
+            if (!ObjectUtils.isEmpty(itemName) && (this.itemName == null || !this.itemName.contains(itemName))) {
+                return false;
+            }
+            if (cond.getMinPrice() != null && (price == null || price < cond.getMinPrice())) {
+                return false;
+            }
+            if (cond.getMaxPrice() != null && (price == null || price > cond.getMaxPrice())) {
+                return false;
+            }
+            return cond.getMinQuantity() == null || (quantity != null && quantity >= cond.getMinQuantity());
+        }
+
+        private Item toItem() {
+            Item item = new Item(itemName, price, quantity);
+            item.setId(id);
+            return item;
+        }
+    }
+
+    /**
+     * 가격 인덱스의 키. 같은 가격이라면 id 순으로 정렬된다.
+     */
+    private static final class PriceKey implements Comparable<PriceKey> {
+        private final int price;
+        private final long id;
+
+        private PriceKey(int price, long id) {
+            this.price = price;
+            this.id = id;
+        }
+
+        @Override
+        public int compareTo(PriceKey o) {
+            int result = Integer.compare(price, o.price);
+            return result != 0 ? result : Long.compare(id, o.id);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof PriceKey)) {
+                return false;
+            }
+            PriceKey that = (PriceKey) o;
+            return price == that.price && id == that.id;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(price, id);
+        }
+    }
 }
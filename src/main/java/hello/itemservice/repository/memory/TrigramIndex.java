@@ -0,0 +1,106 @@
+package hello.itemservice.repository.memory;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 상품명 부분 일치 검색을 위한 3-gram 역색인
+ * NOTE : "itemA" 는 "ite", "tem", "emA" 세 개의 gram 으로 쪼개지고, 각 gram 마다 해당 gram 을 가진 id 목록(posting)을 보관한다.
+ *  contains(query) 를 만족하는 상품은 query 의 모든 gram 을 가지고 있으므로, 각 gram 의 posting 을 교집합하면 후보가 좁혀진다.
+ *  교집합은 후보일 뿐이므로(gram 순서는 보지 않는다) 호출하는 쪽에서 실제 문자열로 다시 검사해야 한다.
+ *  query 가 3글자보다 짧으면 gram 을 만들 수 없어 null 을 반환하며, 이 경우 호출하는 쪽이 다른 방법으로 조회한다.
+ *  흔한 gram 뿐이라 가장 짧은 posting 도 maxCandidates 보다 길면 후보를 만들지 않고 null 을 반환한다. (교집합 비용이 posting 길이에 비례하므로)
+ */
+public class TrigramIndex {
+
+    private static final int GRAM_SIZE = 3;
+
+    private final ConcurrentHashMap<String, Set<Long>> postings = new ConcurrentHashMap<>();
+
+    public void add(long id, String text) {
+        for (String gram : grams(text)) {
+            // NOTE : 빈 posting 제거(remove)와 경쟁하지 않도록 추가도 compute 안에서 원자적으로 처리한다.
+            postings.compute(gram, (key, ids) -> {
+                if (ids == null) {
+                    ids = ConcurrentHashMap.newKeySet();
+                }
+                ids.add(id);
+                return ids;
+            });
+        }
+    }
+
+    /**
+     * oldText 에는 있었지만 newText 에는 없는 gram 에서만 id 를 제거한다.
+     */
+    public void removeStale(long id, String oldText, String newText) {
+        Set<String> kept = grams(newText);
+        for (String gram : grams(oldText)) {
+            if (!kept.contains(gram)) {
+                removePosting(id, gram);
+            }
+        }
+    }
+
+    /**
+     * query 를 포함할 수 있는 id 후보를 반환한다.
+     * gram 을 만들 수 없는 짧은 query 이거나 후보가 maxCandidates 보다 많을 수 있으면 null 을 반환한다.
+     */
+    public Set<Long> candidates(String query, int maxCandidates) {
+        Set<String> grams = grams(query);
+        if (grams.isEmpty()) {
+            return null;
+        }
+        List<Set<Long>> lists = new ArrayList<>(grams.size());
+        for (String gram : grams) {
+            Set<Long> ids = postings.get(gram);
+            if (ids == null) {
+                return Collections.emptySet();
+            }
+            lists.add(ids);
+        }
+        // NOTE : 가장 짧은 posting 을 기준으로 나머지에 모두 포함된 id 만 남긴다.
+        lists.sort(Comparator.comparingInt(Set::size));
+        if (lists.get(0).size() > maxCandidates) {
+            return null;
+        }
+        Set<Long> result = new HashSet<>();
+        for (Long id : lists.get(0)) {
+            if (containsAll(lists, id)) {
+                result.add(id);
+            }
+        }
+        return result;
+    }
+
+    public void clear() {
+        postings.clear();
+    }
+
+    private void removePosting(long id, String gram) {
+        postings.computeIfPresent(gram, (key, ids) -> {
+            ids.remove(id);
+            return ids.isEmpty() ? null : ids;
+        });
+    }
+
+    private static boolean containsAll(List<Set<Long>> lists, Long id) {
+        for (int i = 1; i < lists.size(); i++) {
+            if (!lists.get(i).contains(id)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static Set<String> grams(String text) {
+        if (text == null || text.length() < GRAM_SIZE) {
+            return Collections.emptySet();
+        }
+        Set<String> grams = new HashSet<>();
+        for (int i = 0; i + GRAM_SIZE <= text.length(); i++) {
+            grams.add(text.substring(i, i + GRAM_SIZE));
+        }
+        return grams;
+    }
+}
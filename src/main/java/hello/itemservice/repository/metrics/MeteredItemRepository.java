@@ -0,0 +1,133 @@
+package hello.itemservice.repository.metrics;
+
+import hello.itemservice.domain.Item;
+import hello.itemservice.domain.ItemView;
+import hello.itemservice.metrics.MethodMetrics;
+import hello.itemservice.repository.ItemRepository;
+import hello.itemservice.repository.ItemSearchCond;
+import hello.itemservice.repository.ItemUpdateDto;
+import hello.itemservice.repository.SearchShape;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static hello.itemservice.metrics.MethodMetrics.NO_SHAPE;
+
+/**
+ * ItemRepository 메소드별 실행 시간과 실패 횟수를 기록하는 데코레이터
+ * NOTE : 지표 이름은 itemservice.repository(Timer), itemservice.repository.errors(Counter)이다.
+ *  - impl : 실제로 DB 에 접근하는 구현체 클래스 (캐시 데코레이터가 감싸고 있어도 가장 안쪽 구현체)
+ *  - method : 메소드 이름
+ *  - shape : findAll, streamAll 의 검색 조건 형태(SearchShape), 그 외 메소드는 n/a
+ *  가장 바깥에서 감싸므로 캐시에 적중한 호출도 함께 기록된다.
+ */
+public class MeteredItemRepository implements ItemRepository {
+
+    public static final String METRIC_NAME = "itemservice.repository";
+
+    private final ItemRepository target;
+    private final MethodMetrics metrics;
+
+    private final Timer saveTimer;
+    private final Timer saveAllTimer;
+    private final Timer updateTimer;
+    private final Timer reserveTimer;
+    private final Timer releaseTimer;
+    private final Timer findByIdTimer;
+    private final Timer findAllByIdsTimer;
+    private final Timer findViewByIdTimer;
+    private final Map<SearchShape, Timer> findAllTimers = new EnumMap<>(SearchShape.class);
+    private final Map<SearchShape, Timer> streamAllTimers = new EnumMap<>(SearchShape.class);
+    private final Map<SearchShape, Timer> findAllViewsTimers = new EnumMap<>(SearchShape.class);
+
+    /**
+     * @param implementation impl 태그로 기록할 구현체 클래스
+     */
+    public MeteredItemRepository(ItemRepository target, MeterRegistry registry, Class<?> implementation) {
+        this.target = target;
+        this.metrics = new MethodMetrics(registry, METRIC_NAME, "ItemRepository 메소드 실행 시간", implementation);
+        this.saveTimer = metrics.timer("save", NO_SHAPE);
+        this.saveAllTimer = metrics.timer("saveAll", NO_SHAPE);
+        this.updateTimer = metrics.timer("update", NO_SHAPE);
+        this.reserveTimer = metrics.timer("reserve", NO_SHAPE);
+        this.releaseTimer = metrics.timer("release", NO_SHAPE);
+        this.findByIdTimer = metrics.timer("findById", NO_SHAPE);
+        this.findAllByIdsTimer = metrics.timer("findAllByIds", NO_SHAPE);
+        this.findViewByIdTimer = metrics.timer("findViewById", NO_SHAPE);
+        for (SearchShape shape : SearchShape.values()) {
+            findAllTimers.put(shape, metrics.timer("findAll", shape.tag()));
+            streamAllTimers.put(shape, metrics.timer("streamAll", shape.tag()));
+            findAllViewsTimers.put(shape, metrics.timer("findAllViews", shape.tag()));
+        }
+    }
+
+    @Override
+    public Item save(Item item) {
+        return metrics.record(saveTimer, "save", () -> target.save(item));
+    }
+
+    @Override
+    public List<Item> saveAll(List<Item> items) {
+        return metrics.record(saveAllTimer, "saveAll", () -> target.saveAll(items));
+    }
+
+    @Override
+    public void update(Long itemId, ItemUpdateDto updateParam) {
+        metrics.record(updateTimer, "update", () -> target.update(itemId, updateParam));
+    }
+
+    @Override
+    public boolean reserve(Long itemId, int quantity) {
+        return metrics.record(reserveTimer, "reserve", () -> target.reserve(itemId, quantity));
+    }
+
+    @Override
+    public boolean release(Long itemId, int quantity) {
+        return metrics.record(releaseTimer, "release", () -> target.release(itemId, quantity));
+    }
+
+    @Override
+    public Optional<Item> findById(Long id) {
+        return metrics.record(findByIdTimer, "findById", () -> target.findById(id));
+    }
+
+    @Override
+    public List<Item> findAllByIds(Collection<Long> ids) {
+        return metrics.record(findAllByIdsTimer, "findAllByIds", () -> target.findAllByIds(ids));
+    }
+
+    @Override
+    public List<Item> findAll(ItemSearchCond cond) {
+        return metrics.record(findAllTimers.get(SearchShape.of(cond)), "findAll", () -> target.findAll(cond));
+    }
+
+    @Override
+    public Optional<ItemView> findViewById(Long id) {
+        return metrics.record(findViewByIdTimer, "findViewById", () -> target.findViewById(id));
+    }
+
+    @Override
+    public List<ItemView> findAllViews(ItemSearchCond cond) {
+        return metrics.record(findAllViewsTimers.get(SearchShape.of(cond)), "findAllViews", () -> target.findAllViews(cond));
+    }
+
+    @Override
+    public Stream<Item> streamAll(ItemSearchCond cond) {
+        // NOTE : 스트림은 반환된 뒤에 읽으므로 스트림을 닫을 때까지(전체 행을 읽는 시간)를 기록한다.
+        Timer timer = streamAllTimers.get(SearchShape.of(cond));
+        Timer.Sample sample = metrics.start();
+        try {
+            return target.streamAll(cond).onClose(() -> sample.stop(timer));
+        } catch (RuntimeException e) {
+            sample.stop(timer);
+            metrics.error("streamAll", e);
+            throw e;
+        }
+    }
+}
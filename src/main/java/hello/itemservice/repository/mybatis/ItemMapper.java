@@ -1,11 +1,14 @@
 package hello.itemservice.repository.mybatis;
 
 import hello.itemservice.domain.Item;
+import hello.itemservice.domain.ItemView;
 import hello.itemservice.repository.ItemSearchCond;
 import hello.itemservice.repository.ItemUpdateDto;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.cursor.Cursor;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -17,8 +20,23 @@ public interface ItemMapper {
     // 파라미터가 2개 이상이라면 @Param을 넣어야 한다.
     void update(@Param("id") Long id, @Param("updateParam") ItemUpdateDto updateParam);
 
+    // 변경된 행 수를 반환한다. (재고가 부족하면 0)
+    int reserve(@Param("id") Long id, @Param("quantity") int quantity);
+
+    int release(@Param("id") Long id, @Param("quantity") int quantity);
+
     Optional<Item> findById(Long id);
 
+    List<Item> findAllByIds(@Param("ids") Collection<Long> ids);
+
     List<Item> findAll(ItemSearchCond itemSearchCond);
-    
+
+    // 조회 전용 ItemView 를 생성자로 바로 만든다. (itemMapper.xml 의 itemView resultMap)
+    Optional<ItemView> findViewById(Long id);
+
+    List<ItemView> findAllViews(ItemSearchCond itemSearchCond);
+
+    // Cursor는 SqlSession이 열려 있는 동안 한 행씩 읽어온다.
+    Cursor<Item> streamAll(ItemSearchCond itemSearchCond);
+
 }
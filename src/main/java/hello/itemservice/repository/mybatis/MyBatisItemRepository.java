@@ -1,22 +1,39 @@
 package hello.itemservice.repository.mybatis;
 
 import hello.itemservice.domain.Item;
+import hello.itemservice.domain.ItemView;
 import hello.itemservice.repository.ItemRepository;
 import hello.itemservice.repository.ItemSearchCond;
 import hello.itemservice.repository.ItemUpdateDto;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.session.ExecutorType;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
 import org.springframework.stereotype.Repository;
+import org.springframework.util.Assert;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 @Slf4j
 @Repository
 @RequiredArgsConstructor
 public class MyBatisItemRepository implements ItemRepository {
 
+    private static final int BATCH_SIZE = 1000;
+
     private final ItemMapper itemMapper;
+    private final SqlSessionFactory sqlSessionFactory;
 
     @Override
     public Item save(Item item) {
@@ -25,18 +42,99 @@ public class MyBatisItemRepository implements ItemRepository {
         return item;
     }
 
+    @Override
+    public List<Item> saveAll(List<Item> items) {
+        // NOTE : ExecutorType.BATCH 세션은 insert 를 바로 실행하지 않고 모아 두었다가 flushStatements() 때 JDBC 배치로 전송한다.
+        //  useGeneratedKeys 설정에 따라 flush 시점에 생성된 id 가 각 Item 에 채워진다.
+        //  SpringManagedTransaction 을 사용하므로 진행 중인 스프링 트랜잭션이 있다면 같은 커넥션에 참여한다.
+        try (SqlSession session = sqlSessionFactory.openSession(ExecutorType.BATCH)) {
+            ItemMapper batchMapper = session.getMapper(ItemMapper.class);
+            for (int i = 0; i < items.size(); i++) {
+                batchMapper.save(items.get(i));
+                if ((i + 1) % BATCH_SIZE == 0) {
+                    session.flushStatements();
+                }
+            }
+            session.flushStatements();
+            session.commit();
+        }
+        return items;
+    }
+
     @Override
     public void update(Long itemId, ItemUpdateDto updateParam) {
         itemMapper.update(itemId, updateParam);
     }
 
+    @Override
+    public boolean reserve(Long itemId, int quantity) {
+        Assert.isTrue(quantity > 0, "quantity must be positive");
+        return itemMapper.reserve(itemId, quantity) == 1;
+    }
+
+    @Override
+    public boolean release(Long itemId, int quantity) {
+        Assert.isTrue(quantity > 0, "quantity must be positive");
+        return itemMapper.release(itemId, quantity) == 1;
+    }
+
     @Override
     public Optional<Item> findById(Long id) {
         return itemMapper.findById(id);
     }
 
+    @Override
+    public List<Item> findAllByIds(Collection<Long> ids) {
+        // NOTE : 빈 목록이면 "in ()" 이 되어 문법 오류가 나므로 DB 에 가지 않는다.
+        Set<Long> distinct = new TreeSet<>();
+        for (Long id : ids) {
+            if (id != null) {
+                distinct.add(id);
+            }
+        }
+        if (distinct.isEmpty()) {
+            return new ArrayList<>();
+        }
+        return itemMapper.findAllByIds(distinct);
+    }
+
     @Override
     public List<Item> findAll(ItemSearchCond cond) {
         return itemMapper.findAll(cond);
     }
+
+    @Override
+    public Optional<ItemView> findViewById(Long id) {
+        return itemMapper.findViewById(id);
+    }
+
+    @Override
+    public List<ItemView> findAllViews(ItemSearchCond cond) {
+        return itemMapper.findAllViews(cond);
+    }
+
+    @Override
+    public Stream<Item> streamAll(ItemSearchCond cond) {
+        // NOTE : Cursor 는 SqlSession 이 열려 있는 동안만 읽을 수 있다.
+        //  itemMapper(SqlSessionTemplate)는 메소드가 끝나면 세션을 닫아 버리므로 세션을 직접 열고, Stream 이 닫힐 때 함께 닫는다.
+        SqlSession session = sqlSessionFactory.openSession();
+        try {
+            Cursor<Item> cursor = session.getMapper(ItemMapper.class).streamAll(cond);
+            return StreamSupport.stream(cursor.spliterator(), false)
+                    .onClose(() -> close(cursor, session));
+        } catch (RuntimeException e) {
+            session.close();
+            throw e;
+        }
+    }
+
+    private void close(Cursor<Item> cursor, SqlSession session) {
+        try {
+            cursor.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            session.close();
+        }
+    }
 }
@@ -0,0 +1,118 @@
+package hello.itemservice.repository.offheap;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * 상품명을 UTF-8 바이트로 이어 붙여 저장하는 off-heap 영역(arena)
+ * NOTE : 이름마다 [길이(int)][UTF-8 바이트] 형태로 CHUNK_SIZE 크기의 direct ByteBuffer 에 차례로 기록하고,
+ *  위치는 "chunk 번호 << 32 | chunk 안의 offset" 인 long 하나(ref)로 표현한다.
+ *  기록은 한 번만 하고 고치지 않으므로(append-only) 이미 발급된 ref 는 읽는 쪽에서 락 없이 읽어도 된다.
+ *  이름을 수정하면 새로 기록하고 이전 바이트는 버려진다(wastedBytes). 압축(compaction)은 하지 않는다.
+ *  읽는 쪽이 락 없이 ref 로 chunk 를 바로 읽기 때문에, 압축하려면 옮기는 동안 읽기를 모두 막아야 해서 저장소의 동시성 모델과 맞지 않는다.
+ *  대신 이름이 바뀌지 않은 수정은 새로 기록하지 않고(replace), 버려진 크기는 wastedBytes 로 드러낸다.
+ *  append 는 OffHeapItemRepository 의 쓰기 락 안에서만 호출된다.
+ */
+final class NameArena {
+
+    static final long NULL_REF = -1L;
+
+    private static final int CHUNK_SIZE = 1 << 20;
+    private static final VarHandle INT = MethodHandles.byteBufferViewVarHandle(int[].class, ByteOrder.nativeOrder());
+
+    private volatile ByteBuffer[] chunks = new ByteBuffer[0];
+    private int position = CHUNK_SIZE;
+    private long usedBytes;
+    private long wastedBytes;
+
+    long append(String name) {
+        if (name == null) {
+            return NULL_REF;
+        }
+        byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+        int required = Integer.BYTES + bytes.length;
+        ByteBuffer[] current = chunks;
+        if (current.length == 0 || position + required > current[current.length - 1].capacity()) {
+            //남은 공간이 모자라면 새 chunk 를 만든다. CHUNK_SIZE 보다 긴 이름은 그 크기만큼의 chunk 를 따로 만든다.
+            ByteBuffer chunk = ByteBuffer.allocateDirect(Math.max(CHUNK_SIZE, required)).order(ByteOrder.nativeOrder());
+            current = Arrays.copyOf(current, current.length + 1);
+            current[current.length - 1] = chunk;
+            chunks = current;
+            position = 0;
+        }
+        int chunkIndex = current.length - 1;
+        ByteBuffer chunk = current[chunkIndex];
+        INT.set(chunk, position, bytes.length);
+        chunk.duplicate().position(position + Integer.BYTES).put(bytes);
+        long ref = ((long) chunkIndex << 32) | position;
+        //int 정렬을 유지해야 길이를 VarHandle 로 읽을 수 있다.
+        position += (required + Integer.BYTES - 1) & -Integer.BYTES;
+        usedBytes += required;
+        return ref;
+    }
+
+    /**
+     * 이름을 바꾼다. 이름이 그대로면 기존 ref 를 돌려주고 아무것도 기록하지 않는다.
+     * 바뀌었으면 새로 기록하고 이전 바이트는 wastedBytes 로 센다. (재사용하지 않는다)
+     */
+    long replace(long ref, String name) {
+        if (ref == NULL_REF ? name == null : name != null && name.equals(read(ref))) {
+            return ref;
+        }
+        long replaced = append(name);
+        if (ref != NULL_REF) {
+            wastedBytes += Integer.BYTES + length(ref);
+        }
+        return replaced;
+    }
+
+    String read(long ref) {
+        if (ref == NULL_REF) {
+            return null;
+        }
+        ByteBuffer chunk = chunks[(int) (ref >>> 32)];
+        int offset = (int) ref;
+        byte[] bytes = new byte[(int) INT.get(chunk, offset)];
+        chunk.duplicate().position(offset + Integer.BYTES).get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * UTF-8 바이트끼리 비교해서 ref 의 이름이 needle 을 포함하는지 확인한다. (String 으로 변환하지 않는다)
+     * 올바른 UTF-8 에서는 바이트 단위 부분 일치와 문자 단위 부분 일치의 결과가 같다.
+     */
+    boolean contains(long ref, byte[] needle) {
+        if (ref == NULL_REF) {
+            return false;
+        }
+        ByteBuffer chunk = chunks[(int) (ref >>> 32)];
+        int start = (int) ref + Integer.BYTES;
+        int last = start + (int) INT.get(chunk, (int) ref) - needle.length;
+        for (int i = start; i <= last; i++) {
+            int j = 0;
+            while (j < needle.length && chunk.get(i + j) == needle[j]) {
+                j++;
+            }
+            if (j == needle.length) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    long usedBytes() {
+        return usedBytes;
+    }
+
+    long wastedBytes() {
+        return wastedBytes;
+    }
+
+    private int length(long ref) {
+        return (int) INT.get(chunks[(int) (ref >>> 32)], (int) ref);
+    }
+}
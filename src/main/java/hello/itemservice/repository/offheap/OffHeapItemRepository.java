@@ -0,0 +1,428 @@
+package hello.itemservice.repository.offheap;
+
+import hello.itemservice.domain.Item;
+import hello.itemservice.repository.ItemRepository;
+import hello.itemservice.repository.ItemSearchCond;
+import hello.itemservice.repository.ItemSort;
+import hello.itemservice.repository.ItemUpdateDto;
+import org.springframework.util.Assert;
+import org.springframework.util.StringUtils;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.TreeSet;
+import java.util.concurrent.locks.StampedLock;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * 컬럼별로 off-heap 메모리에 저장하는 메모리 저장소
+ * NOTE : MemoryItemRepository 는 행마다 Item(또는 ItemVersion) 객체와 Long, Integer, String 객체를 힙에 두므로
+ *  상품이 수천만 개가 되면 힙 사용량과 GC 가 감당하기 어려워진다. 이 저장소는 행 객체 없이 컬럼을 direct ByteBuffer 에 저장한다.
+ *  - 행 번호 : id 는 1부터 순서대로 발급하고 행 번호(row)는 id - 1 이다. 따라서 id 순서가 곧 저장 순서이고 키셋 페이징은 row 부터 읽으면 된다.
+ *  - 컬럼 : price, quantity 는 int, 상품명은 NameArena 의 위치(long ref)로 CHUNK_ROWS 행씩 나눈 ByteBuffer 에 저장한다.
+ *      null 은 NULL_INT(Integer.MIN_VALUE), NameArena.NULL_REF 로 표현한다.
+ *  - 검색 : price, quantity 컬럼을 int 로 읽는 단순 반복문으로 거르고, 상품명은 UTF-8 바이트끼리 비교한다. 조건을 만족한 행만 Item 으로 만든다.
+ *      가격순으로 정렬된 구조는 두지 않는다. 가격순 정렬은 모든 행을 훑으며 정렬 순서로 앞선 limit 개만 크기가 limit 인 힙에 남긴다.
+ *  - 동시성 : 쓰기(save, update)는 StampedLock 의 쓰기 락으로 직렬화한다. 행을 읽을 때는 낙관적 읽기(tryOptimisticRead) 후
+ *      그 사이에 쓰기가 있었으면 읽기 락으로 다시 읽는다. 재고 차감(reserve, release)은 락 없이 VarHandle 의 CAS 로 처리한다.
+ *  자바 11 기준이라 MemorySegment, Vector API 대신 direct ByteBuffer 와 VarHandle 을 사용한다.
+ */
+public class OffHeapItemRepository implements ItemRepository {
+
+    static final int NULL_INT = Integer.MIN_VALUE;
+
+    private static final int CHUNK_SHIFT = 16;
+    private static final int CHUNK_ROWS = 1 << CHUNK_SHIFT;
+    private static final int ROW_MASK = CHUNK_ROWS - 1;
+
+    private static final VarHandle INT = MethodHandles.byteBufferViewVarHandle(int[].class, ByteOrder.nativeOrder());
+    private static final VarHandle LONG = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.nativeOrder());
+
+    private final StampedLock lock = new StampedLock();
+    private final NameArena names = new NameArena();
+    private volatile Chunk[] chunks = new Chunk[0];
+    //읽는 쪽은 size 를 먼저 읽으므로 size 보다 앞의 행은 모두 기록이 끝난 상태다.
+    private volatile int size;
+
+    @Override
+    public Item save(Item item) {
+        long stamp = lock.writeLock();
+        try {
+            append(item);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+        return item;
+    }
+
+    @Override
+    public List<Item> saveAll(List<Item> items) {
+        long stamp = lock.writeLock();
+        try {
+            for (Item item : items) {
+                append(item);
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+        return items;
+    }
+
+    @Override
+    public void update(Long itemId, ItemUpdateDto updateParam) {
+        int row = rowOf(itemId);
+        if (row < 0) {
+            return;
+        }
+        long stamp = lock.writeLock();
+        try {
+            Chunk chunk = chunkOf(row);
+            int index = row & ROW_MASK;
+            long oldName = (long) LONG.getAcquire(chunk.names, index * Long.BYTES);
+            LONG.setRelease(chunk.names, index * Long.BYTES, names.replace(oldName, updateParam.getItemName()));
+            INT.setVolatile(chunk.prices, index * Integer.BYTES, toInt(updateParam.getPrice()));
+            INT.setVolatile(chunk.quantities, index * Integer.BYTES, toInt(updateParam.getQuantity()));
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    @Override
+    public boolean reserve(Long itemId, int quantity) {
+        Assert.isTrue(quantity > 0, "quantity must be positive");
+        int row = rowOf(itemId);
+        if (row < 0) {
+            return false;
+        }
+        ByteBuffer quantities = chunkOf(row).quantities;
+        int offset = (row & ROW_MASK) * Integer.BYTES;
+        while (true) {
+            int current = (int) INT.getVolatile(quantities, offset);
+            if (current == NULL_INT || current < quantity) {
+                return false;
+            }
+            if (INT.compareAndSet(quantities, offset, current, current - quantity)) {
+                return true;
+            }
+        }
+    }
+
+    @Override
+    public boolean release(Long itemId, int quantity) {
+        Assert.isTrue(quantity > 0, "quantity must be positive");
+        int row = rowOf(itemId);
+        if (row < 0) {
+            return false;
+        }
+        ByteBuffer quantities = chunkOf(row).quantities;
+        int offset = (row & ROW_MASK) * Integer.BYTES;
+        while (true) {
+            int current = (int) INT.getVolatile(quantities, offset);
+            int next = current == NULL_INT ? quantity : current + quantity;
+            if (INT.compareAndSet(quantities, offset, current, next)) {
+                return true;
+            }
+        }
+    }
+
+    @Override
+    public Optional<Item> findById(Long id) {
+        int row = rowOf(id);
+        return row < 0 ? Optional.empty() : Optional.of(read(row));
+    }
+
+    @Override
+    public List<Item> findAllByIds(Collection<Long> ids) {
+        //id 가 곧 행 번호(id - 1)이므로 정렬한 id 순서대로 행을 바로 읽는다.
+        TreeSet<Long> sorted = new TreeSet<>();
+        for (Long id : ids) {
+            if (rowOf(id) >= 0) {
+                sorted.add(id);
+            }
+        }
+        List<Item> result = new ArrayList<>(sorted.size());
+        for (Long id : sorted) {
+            result.add(read(rowOf(id)));
+        }
+        return result;
+    }
+
+    @Override
+    public List<Item> findAll(ItemSearchCond cond) {
+        Scan scan = new Scan(cond);
+        int limit = cond.getLimit();
+        if (scan.sort.byPrice()) {
+            return findAllByPrice(scan, limit);
+        }
+        List<Item> result = new ArrayList<>(Math.min(limit, 16));
+        int row = scan.start;
+        while (result.size() < limit && (row = scan.next(row)) >= 0) {
+            Item item = read(row);
+            //컬럼만 보고 고른 행을 일관된 상태로 다시 읽었으므로 그 사이에 수정되었을 수 있어 한 번 더 확인한다.
+            if (scan.matches(item)) {
+                result.add(item);
+            }
+            row++;
+        }
+        return result;
+    }
+
+    @Override
+    public Stream<Item> streamAll(ItemSearchCond cond) {
+        Scan scan = new Scan(cond);
+        if (scan.sort.byPrice()) {
+            //가격순 정렬은 조건에 맞는 행을 모두 모아 정렬한 뒤 반환하므로 결과가 한 번에 힙에 올라간다.
+            return findAllByPrice(scan, Integer.MAX_VALUE).stream();
+        }
+        Iterator<Item> iterator = new Iterator<>() {
+            private int row = scan.start;
+            private Item next;
+
+            @Override
+            public boolean hasNext() {
+                while (next == null && (row = scan.next(row)) >= 0) {
+                    Item item = read(row++);
+                    if (scan.matches(item)) {
+                        next = item;
+                    }
+                }
+                return next != null;
+            }
+
+            @Override
+            public Item next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                Item item = next;
+                next = null;
+                return item;
+            }
+        };
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator,
+                Spliterator.ORDERED | Spliterator.NONNULL), false);
+    }
+
+    /**
+     * 조건에 맞는 행을 모두 훑으면서 정렬 순서로 앞선 limit 개만 남긴다. 힙의 맨 위에는 남긴 것 중 가장 뒤에 올 행이 있다.
+     */
+    private List<Item> findAllByPrice(Scan scan, int limit) {
+        Comparator<Item> order = scan.sort.comparator();
+        PriorityQueue<Item> top = new PriorityQueue<>(order.reversed());
+        int row = scan.start;
+        while ((row = scan.next(row)) >= 0) {
+            Item item = read(row++);
+            if (scan.matches(item)) {
+                top.add(item);
+                if (top.size() > limit) {
+                    top.poll();
+                }
+            }
+        }
+        List<Item> result = new ArrayList<>(top);
+        result.sort(order);
+        return result;
+    }
+
+    /**
+     * 저장된 행 수와 off-heap 에 할당한 바이트 수 (컬럼 + 상품명). 벤치마크에서 힙 사용량과 함께 비교한다.
+     */
+    public long offHeapBytes() {
+        return (long) chunks.length * CHUNK_ROWS * (Integer.BYTES * 2 + Long.BYTES) + names.usedBytes();
+    }
+
+    /**
+     * offHeapBytes 중 상품명 수정으로 버려진 바이트 수. 버려진 공간은 회수하지 않으므로 이름을 자주 바꾸면 계속 늘어난다.
+     */
+    public long wastedNameBytes() {
+        return names.wastedBytes();
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private void append(Item item) {
+        int row = size;
+        Chunk[] current = chunks;
+        if ((row >>> CHUNK_SHIFT) == current.length) {
+            current = Arrays.copyOf(current, current.length + 1);
+            current[current.length - 1] = new Chunk();
+            chunks = current;
+        }
+        Chunk chunk = current[row >>> CHUNK_SHIFT];
+        int index = row & ROW_MASK;
+        LONG.set(chunk.names, index * Long.BYTES, names.append(item.getItemName()));
+        INT.set(chunk.prices, index * Integer.BYTES, toInt(item.getPrice()));
+        INT.set(chunk.quantities, index * Integer.BYTES, toInt(item.getQuantity()));
+        item.setId(row + 1L);
+        size = row + 1;
+    }
+
+    /**
+     * 한 행을 Item 으로 만든다. 먼저 락 없이 읽고, 그 사이에 쓰기가 있었다면 읽기 락을 잡고 다시 읽는다.
+     */
+    private Item read(int row) {
+        long stamp = lock.tryOptimisticRead();
+        if (stamp != 0L) {
+            Item item = readRow(row);
+            if (lock.validate(stamp)) {
+                return item;
+            }
+        }
+        stamp = lock.readLock();
+        try {
+            return readRow(row);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    private Item readRow(int row) {
+        Chunk chunk = chunkOf(row);
+        int index = row & ROW_MASK;
+        Item item = new Item();
+        item.setId(row + 1L);
+        item.setItemName(names.read((long) LONG.getAcquire(chunk.names, index * Long.BYTES)));
+        item.setPrice(toInteger((int) INT.getVolatile(chunk.prices, index * Integer.BYTES)));
+        item.setQuantity(toInteger((int) INT.getVolatile(chunk.quantities, index * Integer.BYTES)));
+        return item;
+    }
+
+    private int rowOf(Long id) {
+        if (id == null || id < 1 || id > size) {
+            return -1;
+        }
+        return (int) (id - 1);
+    }
+
+    private Chunk chunkOf(int row) {
+        return chunks[row >>> CHUNK_SHIFT];
+    }
+
+    private static int toInt(Integer value) {
+        return value == null ? NULL_INT : value;
+    }
+
+    private static Integer toInteger(int value) {
+        return value == NULL_INT ? null : value;
+    }
+
+    /**
+     * CHUNK_ROWS 행 분량의 컬럼들
+     */
+    private static final class Chunk {
+
+        private final ByteBuffer prices = allocate(Integer.BYTES);
+        private final ByteBuffer quantities = allocate(Integer.BYTES);
+        private final ByteBuffer names = allocate(Long.BYTES);
+
+        private static ByteBuffer allocate(int width) {
+            return ByteBuffer.allocateDirect(CHUNK_ROWS * width).order(ByteOrder.nativeOrder());
+        }
+    }
+
+    /**
+     * 검색 조건을 컬럼 비교에 맞게 한 번만 변환해 둔 것
+     */
+    private final class Scan {
+
+        private final ItemSort sort;
+        private final int start;
+        private final int end;
+        private final boolean byPrice;
+        private final int minPrice;
+        private final int maxPrice;
+        private final boolean byQuantity;
+        private final int minQuantity;
+        private final boolean priceCursor;
+        private final int afterPrice;
+        private final long afterId;
+        private final String itemName;
+        private final byte[] needle;
+
+        private Scan(ItemSearchCond cond) {
+            this.sort = cond.getSortOrder();
+            //가격순 정렬은 id(행 번호) 순서와 관계가 없으므로 처음부터 읽는다.
+            long cursor = sort.byPrice() ? 0L : cond.getCursor();
+            this.end = size;
+            this.start = (int) Math.min(Math.max(cursor, 0L), end);
+            //가격순 정렬은 가격이 없는 행을 빼야 하므로 항상 가격 범위로 거른다.
+            this.byPrice = sort.byPrice() || cond.getMinPrice() != null || cond.getMaxPrice() != null;
+            this.minPrice = cond.getPriceFrom();
+            this.maxPrice = cond.getPriceTo();
+            this.byQuantity = cond.getMinQuantity() != null;
+            this.minQuantity = byQuantity ? cond.getMinQuantity() : 0;
+            this.priceCursor = cond.isPriceCursor();
+            this.afterPrice = priceCursor ? cond.getAfterPrice() : 0;
+            this.afterId = priceCursor ? cond.getAfterId() : 0L;
+            this.itemName = StringUtils.hasText(cond.getItemName()) ? cond.getItemName() : null;
+            this.needle = itemName == null ? null : itemName.getBytes(StandardCharsets.UTF_8);
+        }
+
+        /**
+         * from 부터 컬럼 값만으로 조건을 만족하는 다음 행 번호를 찾는다. 없으면 -1
+         */
+        private int next(int from) {
+            Chunk[] current = chunks;
+            int row = from;
+            while (row < end) {
+                Chunk chunk = current[row >>> CHUNK_SHIFT];
+                int chunkEnd = Math.min(end, (row | ROW_MASK) + 1);
+                ByteBuffer prices = chunk.prices;
+                ByteBuffer quantities = chunk.quantities;
+                ByteBuffer nameRefs = chunk.names;
+                for (; row < chunkEnd; row++) {
+                    int index = row & ROW_MASK;
+                    if (byPrice) {
+                        int price = prices.getInt(index * Integer.BYTES);
+                        if (price == NULL_INT || price < minPrice || price > maxPrice) {
+                            continue;
+                        }
+                    }
+                    if (byQuantity) {
+                        int quantity = (int) INT.getVolatile(quantities, index * Integer.BYTES);
+                        if (quantity == NULL_INT || quantity < minQuantity) {
+                            continue;
+                        }
+                    }
+                    if (needle != null && !names.contains((long) LONG.getAcquire(nameRefs, index * Long.BYTES), needle)) {
+                        continue;
+                    }
+                    return row;
+                }
+            }
+            return -1;
+        }
+
+        private boolean matches(Item item) {
+            if (byPrice && (item.getPrice() == null || item.getPrice() < minPrice || item.getPrice() > maxPrice)) {
+                return false;
+            }
+            if (byQuantity && (item.getQuantity() == null || item.getQuantity() < minQuantity)) {
+                return false;
+            }
+            //커서의 가격은 가격 범위에 이미 들어가 있으므로 같은 가격 안에서만 id 로 비교한다.
+            if (priceCursor && item.getPrice() == afterPrice
+                    && (sort == ItemSort.PRICE_ASC ? item.getId() <= afterId : item.getId() >= afterId)) {
+                return false;
+            }
+            return itemName == null || (item.getItemName() != null && item.getItemName().contains(itemName));
+        }
+    }
+}
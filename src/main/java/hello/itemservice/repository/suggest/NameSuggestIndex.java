@@ -0,0 +1,413 @@
+package hello.itemservice.repository.suggest;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 상품명 자동완성(prefix 검색)을 위한 메모리 색인
+ * NOTE : 상품명을 정렬해 두고 prefix 로 시작하는 구간을 이진 탐색으로 찾아 앞에서부터 limit 개를 반환한다. (상품명 사전순)
+ *  - 기본 색인(Base) : 중복을 제거하고 정렬한 상품명을 UTF-8 로 하나의 byte[]에 이어 붙이고 시작 위치(int[])와 상품 수(int[])만 둔다.
+ *      String 객체를 상품명마다 두지 않으므로 상품명 길이 + 12 byte 정도만 사용한다. 한 번 만들면 바꾸지 않는다.
+ *  - 변경분(delta) : save/update 로 생긴 상품명별 상품 수의 증감(+1, -1)을 ConcurrentSkipListMap 에 모은다.
+ *      조회는 기본 색인과 변경분을 정렬 순서대로 합쳐 상품 수가 0 보다 큰 이름만 반환한다.
+ *  - 압축(compact) : 변경분이 compactThreshold 개를 넘으면 별도 스레드가 기본 색인과 합쳐 새 기본 색인을 만든다.
+ *      그동안의 변경은 새 변경분에 쌓이며, 조회는 락 없이 (기본 색인, 압축 중인 변경분, 새 변경분)을 함께 본다.
+ *  정렬은 UTF-8 byte 순서(= 유니코드 code point 순서)를 사용한다.
+ */
+@Slf4j
+public class NameSuggestIndex implements AutoCloseable {
+
+    public static final int DEFAULT_COMPACT_THRESHOLD = 16_384;
+    public static final int MAX_LIMIT = 50;
+
+    static final Comparator<String> CODE_POINT_ORDER = NameSuggestIndex::compareCodePoints;
+
+    private final int compactThreshold;
+    //변경분 기록(공유)과 변경분 교체(배타)를 나눈다. 교체한 뒤에 옛 변경분에 기록되는 일이 없어야 한다.
+    private final ReentrantReadWriteLock swapLock = new ReentrantReadWriteLock();
+    private final AtomicBoolean compacting = new AtomicBoolean();
+    private final ExecutorService compactor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "name-suggest-compactor");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private volatile State state = new State(Base.EMPTY, null, newDelta());
+
+    public NameSuggestIndex() {
+        this(DEFAULT_COMPACT_THRESHOLD);
+    }
+
+    public NameSuggestIndex(int compactThreshold) {
+        this.compactThreshold = compactThreshold;
+    }
+
+    /**
+     * 기존 상품명을 한 번에 넣어 기본 색인을 만든다. 시작할 때 한 번 호출한다.
+     */
+    public void load(Iterator<String> names) {
+        List<String> sorted = new ArrayList<>();
+        names.forEachRemaining(name -> {
+            if (name != null) {
+                sorted.add(name);
+            }
+        });
+        sorted.sort(CODE_POINT_ORDER);
+        Base.Builder builder = new Base.Builder(sorted.size());
+        for (String name : sorted) {
+            builder.add(name, 1);
+        }
+        swapLock.writeLock().lock();
+        try {
+            State current = state;
+            state = new State(builder.build(), current.frozen, current.active);
+        } finally {
+            swapLock.writeLock().unlock();
+        }
+    }
+
+    public void add(String name) {
+        change(name, 1);
+    }
+
+    public void remove(String name) {
+        change(name, -1);
+    }
+
+    /**
+     * prefix 로 시작하는 상품명을 사전순으로 limit 개(최대 MAX_LIMIT)까지 반환한다.
+     */
+    public List<String> suggest(String prefix, int limit) {
+        if (prefix == null || prefix.isEmpty() || limit <= 0) {
+            return Collections.emptyList();
+        }
+        State current = state;
+        byte[] prefixBytes = prefix.getBytes(StandardCharsets.UTF_8);
+        Base base = current.base;
+        int row = base.lowerBound(prefixBytes);
+        Iterator<Map.Entry<String, Integer>> frozen = deltaRange(current.frozen, prefix);
+        Iterator<Map.Entry<String, Integer>> active = deltaRange(current.active, prefix);
+        Map.Entry<String, Integer> frozenHead = nextWithPrefix(frozen, prefix);
+        Map.Entry<String, Integer> activeHead = nextWithPrefix(active, prefix);
+        String baseHead = base.nameWithPrefix(row, prefixBytes);
+
+        int max = Math.min(limit, MAX_LIMIT);
+        List<String> result = new ArrayList<>(max);
+        while (result.size() < max) {
+            String name = min(min(baseHead, frozenHead == null ? null : frozenHead.getKey()),
+                    activeHead == null ? null : activeHead.getKey());
+            if (name == null) {
+                break;
+            }
+            int count = 0;
+            if (name.equals(baseHead)) {
+                count += base.count(row);
+                baseHead = base.nameWithPrefix(++row, prefixBytes);
+            }
+            if (frozenHead != null && name.equals(frozenHead.getKey())) {
+                count += frozenHead.getValue();
+                frozenHead = nextWithPrefix(frozen, prefix);
+            }
+            if (activeHead != null && name.equals(activeHead.getKey())) {
+                count += activeHead.getValue();
+                activeHead = nextWithPrefix(active, prefix);
+            }
+            if (count > 0) {
+                result.add(name);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 색인이 사용하는 대략적인 메모리 크기(byte). 기본 색인의 배열과 변경분 항목 수 x 100 byte 의 합
+     */
+    public long memoryBytes() {
+        State current = state;
+        long deltaEntries = current.active.size() + (current.frozen == null ? 0 : current.frozen.size());
+        return current.base.memoryBytes() + deltaEntries * 100L;
+    }
+
+    /**
+     * 기본 색인에 담긴 서로 다른 상품명 수
+     */
+    public int baseSize() {
+        return state.base.size;
+    }
+
+    /**
+     * 변경분을 지금 바로 기본 색인에 합친다. (테스트와 벤치마크용)
+     */
+    public void compact() {
+        if (compacting.compareAndSet(false, true)) {
+            runCompaction();
+        }
+    }
+
+    @Override
+    public void close() {
+        compactor.shutdown();
+    }
+
+    private void change(String name, int delta) {
+        if (name == null) {
+            return;
+        }
+        ConcurrentSkipListMap<String, Integer> active;
+        swapLock.readLock().lock();
+        try {
+            active = state.active;
+            //합이 0 이 되면 항목을 지운다.
+            active.merge(name, delta, (a, b) -> a + b == 0 ? null : a + b);
+        } finally {
+            swapLock.readLock().unlock();
+        }
+        if (active.size() > compactThreshold && compacting.compareAndSet(false, true)) {
+            compactor.execute(this::runCompaction);
+        }
+    }
+
+    private void runCompaction() {
+        try {
+            long started = System.nanoTime();
+            State frozenState;
+            swapLock.writeLock().lock();
+            try {
+                State current = state;
+                frozenState = new State(current.base, current.active, newDelta());
+                state = frozenState;
+            } finally {
+                swapLock.writeLock().unlock();
+            }
+            Base merged = merge(frozenState.base, frozenState.frozen);
+            swapLock.writeLock().lock();
+            try {
+                state = new State(merged, null, state.active);
+            } finally {
+                swapLock.writeLock().unlock();
+            }
+            log.debug("자동완성 색인 압축 names={}, {}ms", merged.size, (System.nanoTime() - started) / 1_000_000);
+        } catch (RuntimeException e) {
+            log.error("자동완성 색인 압축 실패", e);
+        } finally {
+            compacting.set(false);
+        }
+    }
+
+    private static Base merge(Base base, ConcurrentSkipListMap<String, Integer> delta) {
+        Base.Builder builder = new Base.Builder(base.size + delta.size());
+        Iterator<Map.Entry<String, Integer>> changes = delta.entrySet().iterator();
+        Map.Entry<String, Integer> change = changes.hasNext() ? changes.next() : null;
+        int row = 0;
+        while (row < base.size || change != null) {
+            String name = row < base.size ? base.name(row) : null;
+            int order = name == null ? 1 : change == null ? -1 : compareCodePoints(name, change.getKey());
+            if (order < 0) {
+                builder.add(name, base.count(row++));
+            } else if (order > 0) {
+                builder.add(change.getKey(), change.getValue());
+                change = changes.hasNext() ? changes.next() : null;
+            } else {
+                builder.add(name, base.count(row++) + change.getValue());
+                change = changes.hasNext() ? changes.next() : null;
+            }
+        }
+        return builder.build();
+    }
+
+    private static Iterator<Map.Entry<String, Integer>> deltaRange(ConcurrentSkipListMap<String, Integer> delta, String prefix) {
+        if (delta == null) {
+            return Collections.emptyIterator();
+        }
+        return delta.tailMap(prefix, true).entrySet().iterator();
+    }
+
+    private static Map.Entry<String, Integer> nextWithPrefix(Iterator<Map.Entry<String, Integer>> entries, String prefix) {
+        if (!entries.hasNext()) {
+            return null;
+        }
+        Map.Entry<String, Integer> entry = entries.next();
+        return entry.getKey().startsWith(prefix) ? entry : null;
+    }
+
+    private static String min(String a, String b) {
+        if (a == null) {
+            return b;
+        }
+        if (b == null) {
+            return a;
+        }
+        return compareCodePoints(a, b) <= 0 ? a : b;
+    }
+
+    private static ConcurrentSkipListMap<String, Integer> newDelta() {
+        return new ConcurrentSkipListMap<>(CODE_POINT_ORDER);
+    }
+
+    static int compareCodePoints(String a, String b) {
+        int i = 0;
+        int j = 0;
+        while (i < a.length() && j < b.length()) {
+            int ca = a.codePointAt(i);
+            int cb = b.codePointAt(j);
+            if (ca != cb) {
+                return Integer.compare(ca, cb);
+            }
+            i += Character.charCount(ca);
+            j += Character.charCount(cb);
+        }
+        return Integer.compare(a.length() - i, b.length() - j);
+    }
+
+    private static final class State {
+        private final Base base;
+        //압축 중인 변경분. 압축 중이 아니면 null
+        private final ConcurrentSkipListMap<String, Integer> frozen;
+        private final ConcurrentSkipListMap<String, Integer> active;
+
+        private State(Base base, ConcurrentSkipListMap<String, Integer> frozen, ConcurrentSkipListMap<String, Integer> active) {
+            this.base = base;
+            this.frozen = frozen;
+            this.active = active;
+        }
+    }
+
+    /**
+     * 정렬된 상품명(UTF-8)을 이어 붙인 byte[]와 각 이름의 시작 위치, 상품 수
+     */
+    private static final class Base {
+
+        private static final Base EMPTY = new Builder(0).build();
+
+        private final byte[] bytes;
+        //i 번째 이름은 bytes[offsets[i], offsets[i + 1])
+        private final int[] offsets;
+        private final int[] counts;
+        private final int size;
+
+        private Base(byte[] bytes, int[] offsets, int[] counts, int size) {
+            this.bytes = bytes;
+            this.offsets = offsets;
+            this.counts = counts;
+            this.size = size;
+        }
+
+        /**
+         * prefix 보다 작지 않은 첫 번째 이름의 위치
+         */
+        int lowerBound(byte[] prefix) {
+            int low = 0;
+            int high = size;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (compareTo(mid, prefix) < 0) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        /**
+         * row 번째 이름이 prefix 로 시작하면 그 이름을, 아니면 null 을 반환한다.
+         */
+        String nameWithPrefix(int row, byte[] prefix) {
+            if (row >= size) {
+                return null;
+            }
+            int start = offsets[row];
+            int length = offsets[row + 1] - start;
+            if (length < prefix.length
+                    || !Arrays.equals(bytes, start, start + prefix.length, prefix, 0, prefix.length)) {
+                return null;
+            }
+            return new String(bytes, start, length, StandardCharsets.UTF_8);
+        }
+
+        String name(int row) {
+            int start = offsets[row];
+            return new String(bytes, start, offsets[row + 1] - start, StandardCharsets.UTF_8);
+        }
+
+        int count(int row) {
+            return counts[row];
+        }
+
+        long memoryBytes() {
+            return bytes.length + (long) offsets.length * Integer.BYTES + (long) counts.length * Integer.BYTES;
+        }
+
+        private int compareTo(int row, byte[] other) {
+            int start = offsets[row];
+            int end = offsets[row + 1];
+            return Arrays.compareUnsigned(bytes, start, end, other, 0, other.length);
+        }
+
+        /**
+         * 정렬된 순서로 이름을 받아 Base 를 만든다. 같은 이름이 이어서 들어오면 상품 수를 더하고, 상품 수가 0 이하인 이름은 버린다.
+         */
+        private static final class Builder {
+            private byte[] bytes;
+            private int[] offsets;
+            private int[] counts;
+            private int size;
+            private int length;
+            private String last;
+
+            private Builder(int expected) {
+                this.bytes = new byte[Math.max(16, expected * 8)];
+                this.offsets = new int[expected + 1];
+                this.counts = new int[Math.max(1, expected)];
+            }
+
+            void add(String name, int count) {
+                if (name.equals(last)) {
+                    counts[size - 1] += count;
+                    return;
+                }
+                if (size > 0 && counts[size - 1] <= 0) {
+                    //상품 수가 0 이 된 이전 이름의 자리를 다시 쓴다.
+                    size--;
+                    length = offsets[size];
+                }
+                byte[] encoded = name.getBytes(StandardCharsets.UTF_8);
+                if (length + encoded.length > bytes.length) {
+                    bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, length + encoded.length));
+                }
+                if (size + 1 >= offsets.length) {
+                    offsets = Arrays.copyOf(offsets, offsets.length * 2 + 2);
+                    counts = Arrays.copyOf(counts, offsets.length);
+                }
+                System.arraycopy(encoded, 0, bytes, length, encoded.length);
+                offsets[size] = length;
+                counts[size] = count;
+                length += encoded.length;
+                size++;
+                offsets[size] = length;
+                last = name;
+            }
+
+            Base build() {
+                if (size > 0 && counts[size - 1] <= 0) {
+                    size--;
+                    length = offsets[size];
+                }
+                return new Base(Arrays.copyOf(bytes, length), Arrays.copyOf(offsets, size + 1),
+                        Arrays.copyOf(counts, size), size);
+            }
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package hello.itemservice.repository.suggest;
+
+import hello.itemservice.domain.Item;
+import hello.itemservice.domain.ItemView;
+import hello.itemservice.repository.AfterTransaction;
+import hello.itemservice.repository.ItemRepository;
+import hello.itemservice.repository.ItemSearchCond;
+import hello.itemservice.repository.ItemUpdateDto;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * 상품명 변경을 NameSuggestIndex 에 반영하는 ItemRepository 데코레이터
+ * NOTE : 진행 중인 트랜잭션이 있으면 커밋된 뒤(afterCommit)에 반영하므로 롤백된 상품명은 자동완성에 나오지 않는다.
+ *  - update 는 바뀌기 전 상품명을 위해 먼저 findById 로 조회한다. 상품명이 바뀌지 않았으면 색인을 건드리지 않는다.
+ *  - reserve/release 는 상품명을 바꾸지 않으므로 그대로 위임한다.
+ */
+public class SuggestIndexItemRepository implements ItemRepository {
+
+    private final ItemRepository target;
+    private final NameSuggestIndex index;
+
+    public SuggestIndexItemRepository(ItemRepository target, NameSuggestIndex index) {
+        this.target = target;
+        this.index = index;
+    }
+
+    @Override
+    public Item save(Item item) {
+        Item savedItem = target.save(item);
+        AfterTransaction.onCommit(() -> index.add(savedItem.getItemName()));
+        return savedItem;
+    }
+
+    @Override
+    public List<Item> saveAll(List<Item> items) {
+        List<Item> savedItems = target.saveAll(items);
+        AfterTransaction.onCommit(() -> savedItems.forEach(savedItem -> index.add(savedItem.getItemName())));
+        return savedItems;
+    }
+
+    @Override
+    public void update(Long itemId, ItemUpdateDto updateParam) {
+        Optional<Item> before = target.findById(itemId);
+        target.update(itemId, updateParam);
+        if (before.isEmpty()) {
+            return;
+        }
+        String oldName = before.get().getItemName();
+        String newName = updateParam.getItemName();
+        if (!Objects.equals(oldName, newName)) {
+            //상품명이 없던(null) 상품은 지울 이름 없이 새 이름만 넣는다.
+            AfterTransaction.onCommit(() -> {
+                if (oldName != null) {
+                    index.remove(oldName);
+                }
+                index.add(newName);
+            });
+        }
+    }
+
+    @Override
+    public boolean reserve(Long itemId, int quantity) {
+        return target.reserve(itemId, quantity);
+    }
+
+    @Override
+    public boolean release(Long itemId, int quantity) {
+        return target.release(itemId, quantity);
+    }
+
+    @Override
+    public Optional<Item> findById(Long id) {
+        return target.findById(id);
+    }
+
+    @Override
+    public List<Item> findAllByIds(Collection<Long> ids) {
+        return target.findAllByIds(ids);
+    }
+
+    @Override
+    public List<Item> findAll(ItemSearchCond cond) {
+        return target.findAll(cond);
+    }
+
+    @Override
+    public Stream<Item> streamAll(ItemSearchCond cond) {
+        return target.streamAll(cond);
+    }
+
+    @Override
+    public Optional<ItemView> findViewById(Long id) {
+        return target.findViewById(id);
+    }
+
+    @Override
+    public List<ItemView> findAllViews(ItemSearchCond cond) {
+        return target.findAllViews(cond);
+    }
+}
@@ -0,0 +1,21 @@
+package hello.itemservice.repository.suggest;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * 상품명 자동완성 설정
+ * ex) itemservice.suggest.enabled=true
+ *     itemservice.suggest.compact-threshold=16384
+ */
+@Data
+@ConfigurationProperties("itemservice.suggest")
+public class SuggestProperties {
+
+    private boolean enabled;
+
+    /**
+     * 변경분이 이 개수를 넘으면 기본 색인과 합친다.
+     */
+    private int compactThreshold = NameSuggestIndex.DEFAULT_COMPACT_THRESHOLD;
+}
@@ -0,0 +1,122 @@
+package hello.itemservice.service;
+
+import hello.itemservice.domain.Item;
+import hello.itemservice.repository.ItemRepository;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 여러 요청 스레드의 findById 를 짧은 시간(window) 동안 모아 findAllByIds 한 번으로 조회한다. (DataLoader 방식)
+ * NOTE : 별도의 스레드 없이 요청 스레드가 직접 조회한다.
+ *  - 모으기 : 모으는 중인 묶음(batch)이 없을 때 들어온 스레드가 대표(leader)가 되어 window 동안 기다린다.
+ *      그동안 들어온 스레드는 같은 묶음에 id 를 넣고 결과를 기다린다. 같은 id 는 한 번만 조회한다.
+ *  - 조회 : window 가 지나거나 묶음이 maxBatchSize 개가 되면 대표가 findAllByIds 를 실행하고 모든 스레드에 결과를 나눠 준다.
+ *      조회가 실패하면 묶음의 모든 스레드가 같은 예외(Error 포함)를 받는다.
+ *  혼자 들어온 요청도 window 만큼 늦어지므로 window 는 DB 왕복 시간보다 짧게 잡는다.
+ */
+final class FindByIdCoalescer {
+
+    private final ItemRepository itemRepository;
+    private final long windowNanos;
+    private final int maxBatchSize;
+    private final Object lock = new Object();
+    private Batch pending;
+
+    FindByIdCoalescer(ItemRepository itemRepository, long windowNanos, int maxBatchSize) {
+        this.itemRepository = itemRepository;
+        this.windowNanos = windowNanos;
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    Optional<Item> load(Long id) {
+        Batch batch;
+        boolean leader = false;
+        CompletableFuture<Optional<Item>> result;
+        synchronized (lock) {
+            if (pending == null) {
+                pending = new Batch();
+                leader = true;
+            }
+            batch = pending;
+            result = batch.results.computeIfAbsent(id, key -> new CompletableFuture<>());
+            if (batch.results.size() >= maxBatchSize) {
+                //더 넣을 수 없으므로 닫고 기다리는 대표를 깨운다.
+                pending = null;
+                batch.closed = true;
+                lock.notifyAll();
+            }
+        }
+        if (leader) {
+            awaitWindow(batch);
+            execute(batch);
+        }
+        try {
+            //같은 id 를 기다린 스레드들이 한 Item 을 나눠 가지지 않도록 복사해서 반환한다.
+            return result.join().map(FindByIdCoalescer::copy);
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    private void awaitWindow(Batch batch) {
+        long deadline = System.nanoTime() + windowNanos;
+        synchronized (lock) {
+            while (!batch.closed) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    pending = null;
+                    batch.closed = true;
+                    break;
+                }
+                //wait 하는 동안 락을 놓으므로 다른 스레드가 묶음에 들어올 수 있다.
+                try {
+                    TimeUnit.NANOSECONDS.timedWait(lock, remaining);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    pending = null;
+                    batch.closed = true;
+                }
+            }
+        }
+    }
+
+    private void execute(Batch batch) {
+        //묶음이 닫힌 뒤에는 results 가 바뀌지 않는다.
+        try {
+            List<Item> found = itemRepository.findAllByIds(batch.results.keySet());
+            Map<Long, Item> byId = new HashMap<>();
+            for (Item item : found) {
+                byId.put(item.getId(), item);
+            }
+            batch.results.forEach((id, future) -> future.complete(Optional.ofNullable(byId.get(id))));
+        } catch (Throwable e) {
+            //Error(OutOfMemoryError 등)도 전달하지 않으면 기다리는 스레드가 영원히 깨어나지 못한다.
+            batch.results.values().forEach(future -> future.completeExceptionally(e));
+        }
+    }
+
+    private static Item copy(Item item) {
+        Item copy = new Item(item.getItemName(), item.getPrice(), item.getQuantity());
+        copy.setId(item.getId());
+        return copy;
+    }
+
+    private static final class Batch {
+
+        private final Map<Long, CompletableFuture<Optional<Item>>> results = new LinkedHashMap<>();
+        private boolean closed;
+    }
+}
@@ -1,19 +1,57 @@
 package hello.itemservice.service;
 
 import hello.itemservice.domain.Item;
+import hello.itemservice.domain.ItemView;
 import hello.itemservice.repository.ItemSearchCond;
 import hello.itemservice.repository.ItemUpdateDto;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
+/**
+ * NOTE : 트랜잭션 속성은 구현체가 아니라 인터페이스에 둔다.
+ *  설정 클래스마다 MeteredItemService 등으로 감싼 구현체를 빈으로 등록하므로, 빈으로 등록된 가장 바깥 객체에 트랜잭션이 적용된다.
+ *  - 조회(findById, findItems)는 readOnly 로 표시해 ReadWriteRoutingDataSource 가 replica 로 보낼 수 있게 한다.
+ *    SUPPORTS 이므로 실제 트랜잭션(begin/commit)은 시작하지 않는다.
+ *  - findItemView, findItemViews 는 화면에 보여주기만 하는 조회용이다. 수정할 수 없는 ItemView 를 반환하므로 행마다 만드는 객체가 적고,
+ *    캐시된 결과를 복사하지 않고 함께 사용할 수 있다.
+ *  - streamItems 는 메서드가 끝난 뒤에도 커넥션을 사용하므로 트랜잭션을 적용하지 않는다. (트랜잭션이 끝나면 커넥션이 반납된다)
+ */
 public interface ItemService {
 
+    @Transactional
     Item save(Item item);
 
+    @Transactional
+    List<Item> saveAll(List<Item> items);
+
+    @Transactional
     void update(Long itemId, ItemUpdateDto updateParam);
 
+    @Transactional
+    boolean reserve(Long itemId, int quantity);
+
+    @Transactional
+    boolean release(Long itemId, int quantity);
+
+    @Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
     Optional<Item> findById(Long id);
 
+    @Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
+    List<Item> findItemsByIds(Collection<Long> ids);
+
+    @Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
     List<Item> findItems(ItemSearchCond itemSearch);
+
+    @Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
+    Optional<ItemView> findItemView(Long id);
+
+    @Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
+    List<ItemView> findItemViews(ItemSearchCond itemSearch);
+
+    Stream<Item> streamItems(ItemSearchCond itemSearch);
 }
@@ -0,0 +1,26 @@
+package hello.itemservice.service;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * ItemServiceV1, SingleFlightItemService 설정
+ * ex) itemservice.find-by-id-window=2ms, itemservice.single-flight-timeout=1s
+ */
+@Data
+@ConfigurationProperties("itemservice")
+public class ItemServiceProperties {
+
+    /**
+     * 동시에 들어온 findById 를 모아서 findAllByIds 한 번으로 조회할 시간. 지정하지 않으면 모으지 않는다.
+     * 혼자 들어온 요청도 이만큼 늦어지므로 캐시 적중률이 낮아 DB 조회가 많을 때만 DB 왕복 시간보다 짧게 지정한다.
+     */
+    private Duration findByIdWindow;
+
+    /**
+     * 같은 조건의 앞선 findItems 를 기다릴 최대 시간. 지나면 기다리지 않고 직접 조회한다.
+     */
+    private Duration singleFlightTimeout = SingleFlightItemService.DEFAULT_TIMEOUT;
+}
@@ -1,38 +1,107 @@
 package hello.itemservice.service;
 
 import hello.itemservice.domain.Item;
+import hello.itemservice.domain.ItemView;
 import hello.itemservice.repository.ItemRepository;
 import hello.itemservice.repository.ItemSearchCond;
 import hello.itemservice.repository.ItemUpdateDto;
-import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.time.Duration;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Service
-@RequiredArgsConstructor
 public class ItemServiceV1 implements ItemService {
 
+    public static final int DEFAULT_MAX_BATCH_SIZE = 100;
+
     private final ItemRepository itemRepository;
+    private final FindByIdCoalescer coalescer;
+
+    public ItemServiceV1(ItemRepository itemRepository) {
+        this.itemRepository = itemRepository;
+        this.coalescer = null;
+    }
+
+    /**
+     * 동시에 들어온 findById 를 findByIdWindow 동안 모아서 findAllByIds 한 번으로 조회한다. (FindByIdCoalescer 참고)
+     * 캐시(CachingItemRepository)에 대부분 적중하는 저장소는 기다리는 시간만 늘어나므로 캐시가 없는 저장소에 사용한다.
+     */
+    public ItemServiceV1(ItemRepository itemRepository, Duration findByIdWindow) {
+        this.itemRepository = itemRepository;
+        this.coalescer = new FindByIdCoalescer(itemRepository, findByIdWindow.toNanos(), DEFAULT_MAX_BATCH_SIZE);
+    }
+
+    /**
+     * findByIdWindow 가 없으면(null) findById 를 모으지 않는 ItemServiceV1 을 만든다. (ItemServiceProperties 참고)
+     */
+    public static ItemServiceV1 of(ItemRepository itemRepository, Duration findByIdWindow) {
+        if (findByIdWindow == null) {
+            return new ItemServiceV1(itemRepository);
+        }
+        return new ItemServiceV1(itemRepository, findByIdWindow);
+    }
 
     @Override
     public Item save(Item item) {
         return itemRepository.save(item);
     }
 
+    @Override
+    public List<Item> saveAll(List<Item> items) {
+        return itemRepository.saveAll(items);
+    }
+
     @Override
     public void update(Long itemId, ItemUpdateDto updateParam) {
         itemRepository.update(itemId, updateParam);
     }
 
+    @Override
+    public boolean reserve(Long itemId, int quantity) {
+        return itemRepository.reserve(itemId, quantity);
+    }
+
+    @Override
+    public boolean release(Long itemId, int quantity) {
+        return itemRepository.release(itemId, quantity);
+    }
+
     @Override
     public Optional<Item> findById(Long id) {
-        return itemRepository.findById(id);
+        // NOTE : 트랜잭션 안에서는 아직 커밋하지 않은 변경을 읽어야 하므로 다른 스레드(대표)에게 조회를 맡기지 않는다.
+        if (coalescer == null || TransactionSynchronizationManager.isActualTransactionActive()) {
+            return itemRepository.findById(id);
+        }
+        return coalescer.load(id);
+    }
+
+    @Override
+    public List<Item> findItemsByIds(Collection<Long> ids) {
+        return itemRepository.findAllByIds(ids);
     }
 
     @Override
     public List<Item> findItems(ItemSearchCond cond) {
         return itemRepository.findAll(cond);
     }
+
+    @Override
+    public Optional<ItemView> findItemView(Long id) {
+        return itemRepository.findViewById(id);
+    }
+
+    @Override
+    public List<ItemView> findItemViews(ItemSearchCond cond) {
+        return itemRepository.findAllViews(cond);
+    }
+
+    @Override
+    public Stream<Item> streamItems(ItemSearchCond cond) {
+        return itemRepository.streamAll(cond);
+    }
 }
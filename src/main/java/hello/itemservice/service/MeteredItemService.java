@@ -0,0 +1,126 @@
+package hello.itemservice.service;
+
+import hello.itemservice.domain.Item;
+import hello.itemservice.domain.ItemView;
+import hello.itemservice.metrics.MethodMetrics;
+import hello.itemservice.repository.ItemSearchCond;
+import hello.itemservice.repository.ItemUpdateDto;
+import hello.itemservice.repository.SearchShape;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static hello.itemservice.metrics.MethodMetrics.NO_SHAPE;
+
+/**
+ * ItemService 메소드별 실행 시간과 실패 횟수를 기록하는 데코레이터
+ * NOTE : 지표 이름은 itemservice.service(Timer), itemservice.service.errors(Counter)이며
+ *  태그는 MeteredItemRepository 와 같다. (impl 은 감싸고 있는 ItemService 구현체)
+ */
+public class MeteredItemService implements ItemService {
+
+    public static final String METRIC_NAME = "itemservice.service";
+
+    private final ItemService target;
+    private final MethodMetrics metrics;
+
+    private final Timer saveTimer;
+    private final Timer saveAllTimer;
+    private final Timer updateTimer;
+    private final Timer reserveTimer;
+    private final Timer releaseTimer;
+    private final Timer findByIdTimer;
+    private final Timer findItemsByIdsTimer;
+    private final Timer findItemViewTimer;
+    private final Map<SearchShape, Timer> findItemsTimers = new EnumMap<>(SearchShape.class);
+    private final Map<SearchShape, Timer> streamItemsTimers = new EnumMap<>(SearchShape.class);
+    private final Map<SearchShape, Timer> findItemViewsTimers = new EnumMap<>(SearchShape.class);
+
+    public MeteredItemService(ItemService target, MeterRegistry registry) {
+        this.target = target;
+        this.metrics = new MethodMetrics(registry, METRIC_NAME, "ItemService 메소드 실행 시간", target.getClass());
+        this.saveTimer = metrics.timer("save", NO_SHAPE);
+        this.saveAllTimer = metrics.timer("saveAll", NO_SHAPE);
+        this.updateTimer = metrics.timer("update", NO_SHAPE);
+        this.reserveTimer = metrics.timer("reserve", NO_SHAPE);
+        this.releaseTimer = metrics.timer("release", NO_SHAPE);
+        this.findByIdTimer = metrics.timer("findById", NO_SHAPE);
+        this.findItemsByIdsTimer = metrics.timer("findItemsByIds", NO_SHAPE);
+        this.findItemViewTimer = metrics.timer("findItemView", NO_SHAPE);
+        for (SearchShape shape : SearchShape.values()) {
+            findItemsTimers.put(shape, metrics.timer("findItems", shape.tag()));
+            streamItemsTimers.put(shape, metrics.timer("streamItems", shape.tag()));
+            findItemViewsTimers.put(shape, metrics.timer("findItemViews", shape.tag()));
+        }
+    }
+
+    @Override
+    public Item save(Item item) {
+        return metrics.record(saveTimer, "save", () -> target.save(item));
+    }
+
+    @Override
+    public List<Item> saveAll(List<Item> items) {
+        return metrics.record(saveAllTimer, "saveAll", () -> target.saveAll(items));
+    }
+
+    @Override
+    public void update(Long itemId, ItemUpdateDto updateParam) {
+        metrics.record(updateTimer, "update", () -> target.update(itemId, updateParam));
+    }
+
+    @Override
+    public boolean reserve(Long itemId, int quantity) {
+        return metrics.record(reserveTimer, "reserve", () -> target.reserve(itemId, quantity));
+    }
+
+    @Override
+    public boolean release(Long itemId, int quantity) {
+        return metrics.record(releaseTimer, "release", () -> target.release(itemId, quantity));
+    }
+
+    @Override
+    public Optional<Item> findById(Long id) {
+        return metrics.record(findByIdTimer, "findById", () -> target.findById(id));
+    }
+
+    @Override
+    public List<Item> findItemsByIds(Collection<Long> ids) {
+        return metrics.record(findItemsByIdsTimer, "findItemsByIds", () -> target.findItemsByIds(ids));
+    }
+
+    @Override
+    public List<Item> findItems(ItemSearchCond itemSearch) {
+        return metrics.record(findItemsTimers.get(SearchShape.of(itemSearch)), "findItems", () -> target.findItems(itemSearch));
+    }
+
+    @Override
+    public Optional<ItemView> findItemView(Long id) {
+        return metrics.record(findItemViewTimer, "findItemView", () -> target.findItemView(id));
+    }
+
+    @Override
+    public List<ItemView> findItemViews(ItemSearchCond itemSearch) {
+        return metrics.record(findItemViewsTimers.get(SearchShape.of(itemSearch)), "findItemViews",
+                () -> target.findItemViews(itemSearch));
+    }
+
+    @Override
+    public Stream<Item> streamItems(ItemSearchCond itemSearch) {
+        Timer timer = streamItemsTimers.get(SearchShape.of(itemSearch));
+        Timer.Sample sample = metrics.start();
+        try {
+            return target.streamItems(itemSearch).onClose(() -> sample.stop(timer));
+        } catch (RuntimeException e) {
+            sample.stop(timer);
+            metrics.error("streamItems", e);
+            throw e;
+        }
+    }
+}
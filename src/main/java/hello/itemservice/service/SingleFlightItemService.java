@@ -0,0 +1,185 @@
+package hello.itemservice.service;
+
+import hello.itemservice.datasource.ReadYourWrites;
+import hello.itemservice.domain.Item;
+import hello.itemservice.domain.ItemView;
+import hello.itemservice.repository.ItemSearchCond;
+import hello.itemservice.repository.ItemUpdateDto;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
+import java.util.stream.Stream;
+
+/**
+ * 같은 검색 조건으로 동시에 들어온 findItems 를 한 번의 조회로 합치는 ItemService 데코레이터 (single flight)
+ * NOTE : 검색 조건은 ItemSearchCond.normalized()로 정리해서 비교한다.
+ *  - 합치기 : 같은 조건의 조회가 진행 중이면 새로 조회하지 않고 그 결과를 기다려 함께 받는다. 조회가 끝나면 바로 지우므로 결과를 캐시하지는 않는다.
+ *  - 시간 제한 : timeout 안에 앞선 조회가 끝나지 않으면 더 기다리지 않고 직접 조회한다. 느린 조회 하나에 모든 요청이 묶이지 않는다.
+ *  - 실패 : 앞선 조회가 실패하면 기다리던 요청도 같은 예외를 받는다. 실패한 조회는 바로 지워지므로 다음 요청은 새로 조회한다.
+ *  - 읽기/쓰기 트랜잭션 : 아직 커밋되지 않은 자신의 변경 내용을 봐야 하므로 합치지 않는다.
+ *  - 쓰기 이후의 읽기 : 쓰기를 한 요청(ReadYourWrites.isMarked())도 합치지 않는다. 앞선 조회는 쓰기가 커밋되기 전에 시작했거나
+ *      늦은 replica 에서 읽고 있을 수 있으므로, 함께 받으면 방금 쓴 내용이 보이지 않는다. 직접 조회해서 primary 에서 읽는다.
+ *  함께 받은 요청에는 목록과 Item 을 복사해서 반환한다. (Item 은 수정할 수 있는 객체이므로)
+ *  findItemViews 도 같은 방법으로 합치며, ItemView 는 수정할 수 없으므로 목록만 복사하고 ItemView 는 그대로 나눠 준다.
+ */
+@Slf4j
+public class SingleFlightItemService implements ItemService {
+
+    public static final Duration DEFAULT_TIMEOUT = Duration.ofSeconds(3);
+
+    private final ItemService target;
+    private final long timeoutNanos;
+    private final ConcurrentHashMap<ItemSearchCond, CompletableFuture<List<Item>>> inFlight = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<ItemSearchCond, CompletableFuture<List<ItemView>>> inFlightViews = new ConcurrentHashMap<>();
+    private final AtomicLong shared = new AtomicLong();
+
+    public SingleFlightItemService(ItemService target) {
+        this(target, DEFAULT_TIMEOUT);
+    }
+
+    public SingleFlightItemService(ItemService target, Duration timeout) {
+        this.target = target;
+        this.timeoutNanos = timeout.toNanos();
+    }
+
+    @Override
+    public List<Item> findItems(ItemSearchCond itemSearch) {
+        return singleFlight(inFlight, itemSearch, target::findItems, SingleFlightItemService::copy);
+    }
+
+    @Override
+    public List<ItemView> findItemViews(ItemSearchCond itemSearch) {
+        return singleFlight(inFlightViews, itemSearch, target::findItemViews, List::copyOf);
+    }
+
+    /**
+     * 다른 요청의 조회 결과를 함께 받은 횟수
+     */
+    public long sharedCount() {
+        return shared.get();
+    }
+
+    @Override
+    public Item save(Item item) {
+        return target.save(item);
+    }
+
+    @Override
+    public List<Item> saveAll(List<Item> items) {
+        return target.saveAll(items);
+    }
+
+    @Override
+    public void update(Long itemId, ItemUpdateDto updateParam) {
+        target.update(itemId, updateParam);
+    }
+
+    @Override
+    public boolean reserve(Long itemId, int quantity) {
+        return target.reserve(itemId, quantity);
+    }
+
+    @Override
+    public boolean release(Long itemId, int quantity) {
+        return target.release(itemId, quantity);
+    }
+
+    @Override
+    public Optional<Item> findById(Long id) {
+        return target.findById(id);
+    }
+
+    @Override
+    public List<Item> findItemsByIds(Collection<Long> ids) {
+        return target.findItemsByIds(ids);
+    }
+
+    @Override
+    public Optional<ItemView> findItemView(Long id) {
+        return target.findItemView(id);
+    }
+
+    @Override
+    public Stream<Item> streamItems(ItemSearchCond itemSearch) {
+        return target.streamItems(itemSearch);
+    }
+
+    /**
+     * @param share 함께 받은 요청에 넘겨줄 결과를 만든다. (수정할 수 있는 객체라면 복사)
+     */
+    private <T> List<T> singleFlight(ConcurrentHashMap<ItemSearchCond, CompletableFuture<List<T>>> flights,
+                                     ItemSearchCond itemSearch, Function<ItemSearchCond, List<T>> query,
+                                     UnaryOperator<List<T>> share) {
+        if (inReadWriteTransaction() || ReadYourWrites.isMarked()) {
+            return query.apply(itemSearch);
+        }
+        ItemSearchCond key = itemSearch.normalized();
+        CompletableFuture<List<T>> flight = new CompletableFuture<>();
+        CompletableFuture<List<T>> existing = flights.putIfAbsent(key, flight);
+        if (existing != null) {
+            return await(existing, itemSearch, query, share);
+        }
+        try {
+            List<T> result = query.apply(itemSearch);
+            flight.complete(result);
+            return result;
+        } catch (Throwable e) {
+            //Error 도 전달하지 않으면 기다리는 요청이 timeout 까지 묶였다가 다시 조회한다.
+            flight.completeExceptionally(e);
+            throw e;
+        } finally {
+            flights.remove(key, flight);
+        }
+    }
+
+    private <T> List<T> await(CompletableFuture<List<T>> existing, ItemSearchCond itemSearch,
+                              Function<ItemSearchCond, List<T>> query, UnaryOperator<List<T>> share) {
+        try {
+            List<T> result = existing.get(timeoutNanos, TimeUnit.NANOSECONDS);
+            shared.incrementAndGet();
+            return share.apply(result);
+        } catch (TimeoutException e) {
+            log.debug("앞선 조회가 끝나지 않아 직접 조회합니다. cond={}", itemSearch);
+            return query.apply(itemSearch);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted while waiting for findItems", e);
+        }
+    }
+
+    private static List<Item> copy(List<Item> items) {
+        List<Item> copy = new ArrayList<>(items.size());
+        for (Item item : items) {
+            Item copied = new Item(item.getItemName(), item.getPrice(), item.getQuantity());
+            copied.setId(item.getId());
+            copy.add(copied);
+        }
+        return copy;
+    }
+
+    private static boolean inReadWriteTransaction() {
+        return TransactionSynchronizationManager.isActualTransactionActive()
+                && !TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+    }
+}
@@ -0,0 +1,112 @@
+package hello.itemservice.service.stock;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 0 아래로 내려가지 않는 줄무늬(striped) 카운터
+ * NOTE : LongAdder 처럼 값을 여러 칸(stripe)에 나누어 두고 스레드마다 자기 칸을 사용하므로 여러 코어에서 동시에 차감해도 서로 경합하지 않는다.
+ *  LongAdder 와 다른 점은 칸마다 CAS 로 "남은 값 >= 차감할 값" 을 확인하고 차감하므로 어느 칸도, 합계도 음수가 되지 않는다는 것이다.
+ *  - 칸 배치 : AtomicLongArray 에서 칸 사이를 PADDING 만큼 띄워, 서로 다른 칸이 같은 캐시 라인에 놓여 false sharing 이 생기지 않게 한다.
+ *  - 칸 선택 : 스레드 id 로 정한다. 같은 스레드는 항상 같은 칸을 사용한다.
+ *  자기 칸이 모자라면 tryAcquire 는 실패하며, 다른 칸에서 가져오는 것(tryAcquireAny)은 느린 경로에서만 사용한다.
+ */
+public class BoundedStripedCounter {
+
+    // long 16개 = 128 byte. 인접한 캐시 라인을 함께 가져오는(prefetch) CPU 까지 고려한 간격
+    private static final int PADDING = 16;
+
+    private final int stripes;
+    private final AtomicLongArray cells;
+
+    public BoundedStripedCounter(int stripes) {
+        if (stripes <= 0) {
+            throw new IllegalArgumentException("stripes must be positive");
+        }
+        this.stripes = stripes;
+        this.cells = new AtomicLongArray(stripes * PADDING);
+    }
+
+    /**
+     * 코어 수의 두 배만큼 칸을 만든다.
+     */
+    public BoundedStripedCounter() {
+        this(Runtime.getRuntime().availableProcessors() * 2);
+    }
+
+    /**
+     * 현재 스레드의 칸에서 amount 만큼 차감한다. 칸에 남은 값이 모자라면 차감하지 않고 false 를 반환한다.
+     */
+    public boolean tryAcquire(long amount) {
+        return tryAcquire(indexOf(stripeOfCurrentThread()), amount);
+    }
+
+    /**
+     * 현재 스레드의 칸부터 시작해서 모든 칸을 차례로 확인하며 amount 만큼 남은 칸에서 차감한다.
+     * 여러 칸에 조금씩 나뉘어 남은 값은 합치지 않는다.
+     */
+    public boolean tryAcquireAny(long amount) {
+        int start = stripeOfCurrentThread();
+        for (int i = 0; i < stripes; i++) {
+            if (tryAcquire(indexOf((start + i) % stripes), amount)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 현재 스레드의 칸에 amount 만큼 더한다.
+     */
+    public void add(long amount) {
+        if (amount < 0) {
+            throw new IllegalArgumentException("amount must not be negative");
+        }
+        cells.getAndAdd(indexOf(stripeOfCurrentThread()), amount);
+    }
+
+    /**
+     * 모든 칸의 합계. 다른 스레드가 동시에 변경 중이라면 그 순간의 정확한 값은 아닐 수 있다.
+     */
+    public long sum() {
+        long sum = 0;
+        for (int i = 0; i < stripes; i++) {
+            sum += cells.get(indexOf(i));
+        }
+        return sum;
+    }
+
+    /**
+     * 모든 칸을 0 으로 만들고 그때까지 남아 있던 값의 합계를 반환한다.
+     * 칸마다 getAndSet 으로 비우므로 동시에 차감(tryAcquire)한 값이 중복해서 세어지지 않는다.
+     */
+    public long drain() {
+        long drained = 0;
+        for (int i = 0; i < stripes; i++) {
+            drained += cells.getAndSet(indexOf(i), 0);
+        }
+        return drained;
+    }
+
+    private boolean tryAcquire(int index, long amount) {
+        while (true) {
+            long current = cells.get(index);
+            if (current < amount) {
+                return false;
+            }
+            if (cells.compareAndSet(index, current, current - amount)) {
+                return true;
+            }
+        }
+    }
+
+    private int stripeOfCurrentThread() {
+        long id = Thread.currentThread().getId();
+        // 연속된 스레드 id 가 고르게 퍼지도록 섞는다.
+        int hash = (int) (id * 0x9E3779B97F4A7C15L >>> 32);
+        return Math.floorMod(hash, stripes);
+    }
+
+    private static int indexOf(int stripe) {
+        return stripe * PADDING;
+    }
+}
@@ -0,0 +1,249 @@
+package hello.itemservice.service.stock;
+
+import hello.itemservice.domain.Item;
+import hello.itemservice.domain.ItemView;
+import hello.itemservice.repository.ItemSearchCond;
+import hello.itemservice.repository.ItemUpdateDto;
+import hello.itemservice.service.ItemService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * 인기 상품(hot item)의 재고를 메모리에서 차감하는 ItemService 데코레이터
+ * NOTE : 하나의 상품에 주문이 몰리면 조건부 update 한 문장도 같은 행의 락을 기다리느라 직렬화된다.
+ *  인기 상품은 DB 재고를 leaseSize 만큼씩 미리 차감(reserve)해 가져와 BoundedStripedCounter 에 넣어 두고, 주문은 메모리에서 차감한다.
+ *  - 재고 계산 : DB 재고 + 메모리에 가져온 재고 = 실제 재고. DB 에서 먼저 차감한 만큼만 메모리에서 팔기 때문에 초과 판매(oversell)는 일어나지 않는다.
+ *  - 장애 시 : 서버가 비정상 종료되면 메모리에 가져온 재고는 DB 로 돌아가지 못한다. 재고가 덜 팔릴(undersell) 수는 있어도 더 팔리지는 않으며,
+ *      잃어버릴 수 있는 재고는 "상품 수 x 칸 수 x leaseSize" 를 넘지 않는다.
+ *  - 취소(release) : 취소된 재고는 메모리에 두지 않고 바로 DB 로 돌려준다. 메모리에는 lease 로 가져온 재고만 남으므로 위의 한도가 지켜진다.
+ *  - 정산(reconcile) : 주기적으로 메모리에 남은 재고를 모두 DB 로 돌려준다(release). 정상 종료(close) 시에도 돌려준다.
+ *  - 조회 : findById, findItemsByIds 와 목록, 상세 조회(findItems, findItemViews, findItemView)는 모두 DB 재고에 메모리의 재고를 더해서 보여준다.
+ *      목록은 캐시된 결과를 여러 요청이 공유할 수 있으므로 Item 을 고치지 않고 재고를 더한 복사본으로 바꾼다.
+ *  - 수정 : update 는 재고를 새 값으로 덮어쓰므로 메모리에 가져온 재고는 버린다.
+ *  - 동시성 : lease(DB 에서 가져오기), 정산, 수정은 DB 재고와 메모리의 재고를 함께 바꾸므로 상품마다 하나의 락(leaseLocks)으로 직렬화한다.
+ *      락이 없으면 정산이 메모리의 재고를 비운 뒤 수정이 새 재고를 쓰고, 그 다음에 정산이 비운 재고를 돌려주어 관리자가 정하지 않은 재고가 생긴다.
+ *      메모리에서 차감하는 주문(빠른 경로)은 락을 잡지 않는다.
+ */
+@Slf4j
+public class HotStockItemService implements ItemService, AutoCloseable {
+
+    private final ItemService target;
+    private final int leaseSize;
+    private final Map<Long, BoundedStripedCounter> counters = new ConcurrentHashMap<>();
+    private final Map<Long, Object> leaseLocks = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService reconciler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "hot-stock-reconciler");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public HotStockItemService(ItemService target, Collection<Long> hotItemIds, int leaseSize) {
+        if (leaseSize <= 0) {
+            throw new IllegalArgumentException("leaseSize must be positive");
+        }
+        this.target = target;
+        this.leaseSize = leaseSize;
+        for (Long hotItemId : hotItemIds) {
+            counters.put(hotItemId, new BoundedStripedCounter());
+            leaseLocks.put(hotItemId, new Object());
+        }
+    }
+
+    /**
+     * interval 마다 메모리의 재고를 DB 로 돌려주는 정산을 시작한다.
+     */
+    public void start(Duration interval) {
+        long millis = interval.toMillis();
+        reconciler.scheduleWithFixedDelay(this::reconcileQuietly, millis, millis, TimeUnit.MILLISECONDS);
+    }
+
+    // NOTE : 메모리에서 차감할 때는 DB 트랜잭션이 필요 없다. DB 에 접근하는 target 호출은 target 의 트랜잭션을 따른다.
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public boolean reserve(Long itemId, int quantity) {
+        BoundedStripedCounter counter = counters.get(itemId);
+        if (counter == null) {
+            return target.reserve(itemId, quantity);
+        }
+        //음수를 차감하면 메모리의 재고가 늘어나고 정산 때 DB 재고도 늘어나므로 먼저 막는다.
+        if (quantity <= 0) {
+            throw new IllegalArgumentException("quantity must be positive");
+        }
+        if (counter.tryAcquire(quantity)) {
+            return true;
+        }
+        synchronized (leaseLocks.get(itemId)) {
+            //락을 기다리는 동안 다른 스레드가 lease 해 왔을 수 있다.
+            if (counter.tryAcquire(quantity)) {
+                return true;
+            }
+            // NOTE : 자기 칸의 재고가 모자라면 DB 에서 lease 만큼 한 번에 차감해 와서 이번 주문분을 빼고 자기 칸에 넣는다.
+            //  DB 에는 lease 한 번당 update 한 번만 실행되므로 주문 수에 비해 DB 접근이 1/leaseSize 로 줄어든다.
+            int lease = Math.max(leaseSize, quantity);
+            if (target.reserve(itemId, lease)) {
+                counter.add(lease - quantity);
+                return true;
+            }
+            // DB 재고가 lease 보다 적게 남았다면 다른 칸에 남은 재고를 찾고, 없으면 DB 에서 필요한 만큼만 차감한다.
+            return counter.tryAcquireAny(quantity) || target.reserve(itemId, quantity);
+        }
+    }
+
+    // NOTE : 취소된 재고를 메모리에 모아 두면 비정상 종료 시 잃어버리는 재고에 한도가 없어진다. (취소는 몇 번이든 일어날 수 있으므로)
+    //  취소는 주문보다 드물기 때문에 인기 상품이라도 DB 에 바로 돌려준다.
+    @Override
+    public boolean release(Long itemId, int quantity) {
+        return target.release(itemId, quantity);
+    }
+
+    @Override
+    public void update(Long itemId, ItemUpdateDto updateParam) {
+        BoundedStripedCounter counter = counters.get(itemId);
+        if (counter == null) {
+            target.update(itemId, updateParam);
+            return;
+        }
+        //비운 뒤 새 재고를 쓸 때까지 lease 와 정산이 끼어들지 못하게 한다.
+        synchronized (leaseLocks.get(itemId)) {
+            counter.drain();
+            target.update(itemId, updateParam);
+        }
+    }
+
+    @Override
+    public Optional<Item> findById(Long id) {
+        Optional<Item> item = target.findById(id);
+        item.ifPresent(this::addLeasedStock);
+        return item;
+    }
+
+    @Override
+    public List<Item> findItemsByIds(Collection<Long> ids) {
+        List<Item> items = target.findItemsByIds(ids);
+        items.forEach(this::addLeasedStock);
+        return items;
+    }
+
+    @Override
+    public Optional<ItemView> findItemView(Long id) {
+        return target.findItemView(id).map(this::withLeasedStock);
+    }
+
+    @Override
+    public Item save(Item item) {
+        return target.save(item);
+    }
+
+    @Override
+    public List<Item> saveAll(List<Item> items) {
+        return target.saveAll(items);
+    }
+
+    @Override
+    public List<Item> findItems(ItemSearchCond itemSearch) {
+        List<Item> items = target.findItems(itemSearch);
+        List<Item> result = new ArrayList<>(items.size());
+        for (Item item : items) {
+            result.add(withLeasedStock(item));
+        }
+        return result;
+    }
+
+    @Override
+    public List<ItemView> findItemViews(ItemSearchCond itemSearch) {
+        List<ItemView> views = target.findItemViews(itemSearch);
+        List<ItemView> result = new ArrayList<>(views.size());
+        for (ItemView view : views) {
+            result.add(withLeasedStock(view));
+        }
+        return result;
+    }
+
+    @Override
+    public Stream<Item> streamItems(ItemSearchCond itemSearch) {
+        return target.streamItems(itemSearch);
+    }
+
+    /**
+     * 메모리에 남은 재고를 모두 DB 로 돌려준다.
+     */
+    public void reconcile() {
+        for (Map.Entry<Long, BoundedStripedCounter> entry : counters.entrySet()) {
+            BoundedStripedCounter counter = entry.getValue();
+            //비운 재고를 돌려줄 때까지 수정이 끼어들지 못하게 한다.
+            synchronized (leaseLocks.get(entry.getKey())) {
+                long drained = counter.drain();
+                if (drained == 0) {
+                    continue;
+                }
+                try {
+                    if (!target.release(entry.getKey(), (int) drained)) {
+                        log.warn("재고를 돌려줄 상품이 없습니다. itemId={}, quantity={}", entry.getKey(), drained);
+                    }
+                } catch (RuntimeException e) {
+                    //돌려주지 못한 재고는 메모리에 다시 넣어 두고 다음 정산 때 돌려준다.
+                    counter.add(drained);
+                    throw e;
+                }
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        reconciler.shutdown();
+        try {
+            reconciler.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        reconcile();
+    }
+
+    private void reconcileQuietly() {
+        try {
+            reconcile();
+        } catch (RuntimeException e) {
+            //예외가 나면 다음 주기가 실행되지 않으므로 기록만 하고 넘어간다.
+            log.error("재고 정산 실패", e);
+        }
+    }
+
+    private ItemView withLeasedStock(ItemView view) {
+        BoundedStripedCounter counter = counters.get(view.getId());
+        if (counter == null || !view.hasQuantity()) {
+            return view;
+        }
+        return view.withQuantity((int) (view.getQuantity() + counter.sum()));
+    }
+
+    private Item withLeasedStock(Item item) {
+        BoundedStripedCounter counter = counters.get(item.getId());
+        if (counter == null || item.getQuantity() == null) {
+            return item;
+        }
+        Item copy = new Item(item.getItemName(), item.getPrice(), (int) (item.getQuantity() + counter.sum()));
+        copy.setId(item.getId());
+        return copy;
+    }
+
+    private void addLeasedStock(Item item) {
+        BoundedStripedCounter counter = counters.get(item.getId());
+        if (counter != null && item.getQuantity() != null) {
+            item.setQuantity((int) (item.getQuantity() + counter.sum()));
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package hello.itemservice.service.stock;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 인기 상품 재고 설정
+ * ex) itemservice.stock.hot-item-ids=1,2
+ *     itemservice.stock.lease-size=100
+ *     itemservice.stock.reconcile-interval=1s
+ */
+@Data
+@ConfigurationProperties("itemservice.stock")
+public class HotStockProperties {
+
+    /**
+     * 메모리에서 재고를 차감할 인기 상품 id 목록
+     */
+    private List<Long> hotItemIds = new ArrayList<>();
+
+    /**
+     * DB 에서 한 번에 미리 가져올(차감해 둘) 재고 수
+     */
+    private int leaseSize = 100;
+
+    /**
+     * 메모리에 남은 재고를 DB 로 돌려주는 주기
+     */
+    private Duration reconcileInterval = Duration.ofSeconds(1);
+}
@@ -1,34 +1,105 @@
 package hello.itemservice.web;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
 import hello.itemservice.domain.Item;
+import hello.itemservice.domain.ItemView;
 import hello.itemservice.repository.ItemSearchCond;
 import hello.itemservice.repository.ItemUpdateDto;
+import hello.itemservice.repository.suggest.NameSuggestIndex;
 import hello.itemservice.service.ItemService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Controller
 @RequestMapping("/items")
 @RequiredArgsConstructor
 public class ItemController {
 
+    private static final MediaType TEXT_CSV = new MediaType("text", "csv", StandardCharsets.UTF_8);
+    private static final MediaType APPLICATION_NDJSON = new MediaType("application", "x-ndjson", StandardCharsets.UTF_8);
+    private static final int EXPORT_FLUSH_ROWS = 1000;
+    private static final int DEFAULT_SUGGEST_LIMIT = 10;
+
     private final ItemService itemService;
+    private final ObjectMapper objectMapper;
+    private final ObjectProvider<NameSuggestIndex> suggestIndex;
 
+    // NOTE : 목록과 상세 화면은 보여주기만 하므로 조회 전용 ItemView 로 조회한다. (수정 화면은 Item)
     @GetMapping
     public String items(@ModelAttribute("itemSearch") ItemSearchCond itemSearch, Model model) {
-        List<Item> items = itemService.findItems(itemSearch);
+        List<ItemView> items = itemService.findItemViews(itemSearch);
         model.addAttribute("items", items);
+        // NOTE : 한 페이지를 가득 채웠다면 다음 페이지가 있을 수 있으므로 마지막 id 를 다음 페이지의 afterId 로 넘긴다.
+        //  가격순 정렬이라면 마지막 가격도 afterPrice 로 넘긴다.
+        if (!items.isEmpty() && items.size() == itemSearch.getLimit()) {
+            ItemView last = items.get(items.size() - 1);
+            model.addAttribute("nextAfterId", last.getId());
+            if (itemSearch.getSortOrder().byPrice()) {
+                model.addAttribute("nextAfterPrice", last.getPrice());
+            }
+        }
         return "items";
     }
 
+    // NOTE : 검색 결과 내보내기(csv, ndjson)
+    //  StreamingResponseBody 는 별도 스레드에서 응답 스트림에 직접 쓰므로 결과를 List 로 모으지 않는다.
+    //  streamItems()로 한 행씩 읽어 바로 쓰고, 첫 행과 일정 행마다 flush 하여 클라이언트가 바로 받기 시작하도록 한다.
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> export(@ModelAttribute("itemSearch") ItemSearchCond itemSearch,
+                                                        @RequestParam(defaultValue = "csv") String format) {
+        boolean ndjson = "ndjson".equalsIgnoreCase(format);
+        StreamingResponseBody body = out -> {
+            Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+            try (Stream<Item> items = itemService.streamItems(itemSearch)) {
+                if (ndjson) {
+                    writeNdjson(items.iterator(), writer);
+                } else {
+                    writeCsv(items.iterator(), writer);
+                }
+            }
+            writer.flush();
+        };
+        return ResponseEntity.ok()
+                .contentType(ndjson ? APPLICATION_NDJSON : TEXT_CSV)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=items." + (ndjson ? "ndjson" : "csv"))
+                .body(body);
+    }
+
+    // NOTE : 상품명 자동완성
+    //  "item_name like ?%" 조회 대신 메모리 색인(NameSuggestIndex)에서 prefix 로 시작하는 상품명을 사전순으로 limit 개 반환한다.
+    //  색인은 itemservice.suggest.enabled=true 일 때만 등록되며, 없으면 404 를 반환한다.
+    @GetMapping("/suggest")
+    @ResponseBody
+    public ResponseEntity<List<String>> suggest(@RequestParam String prefix,
+                                                @RequestParam(defaultValue = "" + DEFAULT_SUGGEST_LIMIT) int limit) {
+        NameSuggestIndex index = suggestIndex.getIfAvailable();
+        if (index == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(index.suggest(prefix, limit));
+    }
+
     @GetMapping("/{itemId}")
     public String item(@PathVariable long itemId, Model model) {
-        Item item = itemService.findById(itemId).get();
+        ItemView item = itemService.findItemView(itemId).get();
         model.addAttribute("item", item);
         return "item";
     }
@@ -59,4 +130,57 @@ public class ItemController {
         return "redirect:/items/{itemId}";
     }
 
+    private void writeCsv(Iterator<Item> items, Writer writer) throws IOException {
+        writer.write("id,itemName,price,quantity\n");
+        writer.flush();
+        int rows = 0;
+        while (items.hasNext()) {
+            Item item = items.next();
+            writer.write(String.valueOf(item.getId()));
+            writer.write(',');
+            writer.write(csvField(item.getItemName()));
+            writer.write(',');
+            writer.write(csvNumber(item.getPrice()));
+            writer.write(',');
+            writer.write(csvNumber(item.getQuantity()));
+            writer.write('\n');
+            if (++rows == 1 || rows % EXPORT_FLUSH_ROWS == 0) {
+                writer.flush();
+            }
+        }
+    }
+
+    private void writeNdjson(Iterator<Item> items, Writer writer) throws IOException {
+        // NOTE : SequenceWriter 는 같은 JsonGenerator 를 재사용하여 값을 줄 단위로 이어서 쓴다.
+        SequenceWriter sequenceWriter = objectMapper.writer()
+                .withRootValueSeparator("\n")
+                .writeValues(writer);
+        int rows = 0;
+        while (items.hasNext()) {
+            sequenceWriter.write(items.next());
+            if (++rows == 1 || rows % EXPORT_FLUSH_ROWS == 0) {
+                sequenceWriter.flush();
+            }
+        }
+        sequenceWriter.flush();
+        if (rows > 0) {
+            writer.write('\n');
+        }
+    }
+
+    //값이 없는(null) 가격, 수량은 "null" 대신 빈 칸으로 쓴다.
+    private static String csvNumber(Integer value) {
+        return value == null ? "" : value.toString();
+    }
+
+    private static String csvField(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
 }
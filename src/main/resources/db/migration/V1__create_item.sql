@@ -0,0 +1,9 @@
+-- NOTE : 이미 item 테이블이 있는 DB 는 spring.flyway.baseline-on-migrate=true 로 이 버전을 기준(baseline)으로 삼고 V2 부터 적용한다.
+create table if not exists item
+(
+    id        bigint generated by default as identity,
+    item_name varchar(10),
+    price     integer,
+    quantity  integer,
+    primary key (id)
+);
@@ -0,0 +1,3 @@
+-- NOTE : 가격 조건(price <= ?) 검색이 전체 테이블을 읽지 않도록 (price, id) 인덱스를 추가한다.
+--  id 를 함께 두면 같은 가격의 행이 id 순으로 정렬되어 있어 키셋 페이징(id > ?)도 인덱스 안에서 걸러낼 수 있다.
+create index if not exists idx_item_price_id on item (price, id);
@@ -0,0 +1,3 @@
+-- NOTE : 샤딩 저장소(ShardedJdbcTemplateItemRepository)가 샤드마다 id 블록을 발급받는 시퀀스.
+--  item 테이블의 identity 는 샤드끼리 id 가 겹치므로 샤딩 저장소에서는 사용하지 않는다.
+create sequence if not exists item_id_seq;
@@ -0,0 +1,94 @@
+package hello.itemservice.datasource;
+
+import hello.itemservice.domain.Item;
+import hello.itemservice.repository.ItemSearchCond;
+import hello.itemservice.service.ItemService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 로컬 H2 두 개(primary, replica)로 읽기/쓰기 라우팅을 확인한다.
+ * replica 에는 primary 에 없는 상품을 넣어 두고, 어느 DB 에서 읽었는지를 조회 결과로 구분한다.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:rw-primary;DB_CLOSE_DELAY=-1",
+        "spring.datasource.username=sa",
+        "itemservice.datasource.replicas[0].url=jdbc:h2:mem:rw-replica;DB_CLOSE_DELAY=-1",
+        "itemservice.datasource.replicas[0].username=sa"
+})
+class ReadWriteRoutingDataSourceTest {
+
+    private static final String REPLICA_ONLY = "replica";
+
+    @Autowired
+    ItemService itemService;
+
+    private final JdbcTemplate replica = new JdbcTemplate(
+            new DriverManagerDataSource("jdbc:h2:mem:rw-replica;DB_CLOSE_DELAY=-1", "sa", ""));
+
+    @BeforeEach
+    void beforeEach() {
+        //replica 는 복제로 스키마와 데이터를 받는다고 가정하고 직접 만든다.
+        replica.execute("create table if not exists item (id bigint generated by default as identity primary key,"
+                + " item_name varchar(10), price integer, quantity integer)");
+        replica.update("delete from item");
+        replica.update("insert into item (item_name, price, quantity) values (?, ?, ?)", REPLICA_ONLY, 1000, 10);
+        ReadYourWrites.clear();
+    }
+
+    @AfterEach
+    void afterEach() {
+        ReadYourWrites.clear();
+    }
+
+    @Test
+    void readsGoToReplica() {
+        //when
+        List<Item> result = itemService.findItems(new ItemSearchCond(REPLICA_ONLY, null));
+
+        //then
+        assertThat(result).extracting(Item::getItemName).containsExactly(REPLICA_ONLY);
+        assertThat(ReadYourWrites.isMarked()).isFalse();
+    }
+
+    @Test
+    void readsAfterWriteGoToPrimary() {
+        //given
+        Item saved = itemService.save(new Item("written", 2000, 20));
+
+        //when
+        List<Item> result = itemService.findItems(new ItemSearchCond("written", null));
+
+        //then
+        assertThat(ReadYourWrites.isMarked()).isTrue();
+        assertThat(result).extracting(Item::getId).containsExactly(saved.getId());
+        assertThat(itemService.findById(saved.getId())).isPresent();
+        assertThat(itemService.findItems(new ItemSearchCond(REPLICA_ONLY, null))).isEmpty();
+    }
+
+    @Test
+    void replicaReadsAreNotCached() {
+        //given
+        Long replicaId = replica.queryForObject("select id from item where item_name = ?", Long.class, REPLICA_ONLY);
+        assertThat(itemService.findItems(new ItemSearchCond(REPLICA_ONLY, null))).hasSize(1);
+        assertThat(itemService.findById(replicaId)).isPresent();
+
+        //when
+        //replica 가 primary 를 따라잡았다고 가정한다. (primary 에는 이 상품이 없다)
+        replica.update("delete from item");
+
+        //then
+        //replica 에서 읽은 결과가 캐시에 남아 있었다면 지워진 상품이 계속 보인다.
+        assertThat(itemService.findItems(new ItemSearchCond(REPLICA_ONLY, null))).isEmpty();
+        assertThat(itemService.findById(replicaId)).isEmpty();
+    }
+}
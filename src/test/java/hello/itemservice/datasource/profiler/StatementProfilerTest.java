@@ -0,0 +1,88 @@
+package hello.itemservice.datasource.profiler;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StatementProfilerTest {
+
+    StatementProfiler profiler = new StatementProfiler(Duration.ofSeconds(10), 3);
+    JdbcTemplate jdbcTemplate = new JdbcTemplate(new ProfilingDataSource(
+            new DriverManagerDataSource("jdbc:h2:mem:profiler;DB_CLOSE_DELAY=-1", "sa", ""), profiler));
+
+    @AfterEach
+    void afterEach() {
+        jdbcTemplate.execute("drop table if exists profiled");
+        profiler.close();
+    }
+
+    @Test
+    void normalize() {
+        SqlNormalizer normalizer = new SqlNormalizer();
+
+        //when
+        //then
+        assertThat(normalizer.normalize("select *\n  from item where id = 10 and item_name = 'it''s' and t1.c = ?"))
+                .isEqualTo("select * from item where id = ? and item_name = ? and t1.c = ?");
+        assertThat(normalizer.normalize("select id from item where id in (?,?, ?) order by id"))
+                .isEqualTo("select id from item where id in (?...) order by id");
+        assertThat(normalizer.normalize("select id from item where id in (1, 2, 3, 4)"))
+                .isEqualTo("select id from item where id in (?...)");
+    }
+
+    @Test
+    void recordStatementsByNormalizedSql() {
+        //given
+        jdbcTemplate.execute("create table profiled (id bigint primary key, name varchar(10))");
+
+        //when
+        for (long id = 1; id <= 5; id++) {
+            jdbcTemplate.update("insert into profiled (id, name) values (?, ?)", id, "name" + id);
+        }
+        jdbcTemplate.queryForObject("select count(*) from profiled where id > 1", Long.class);
+        jdbcTemplate.queryForObject("select count(*) from profiled where id > 2", Long.class);
+
+        //then
+        List<StatementSummary> top = profiler.top(10);
+        assertThat(top).extracting(StatementSummary::getSql).contains(
+                "insert into profiled (id, name) values (?, ?)",
+                "select count(*) from profiled where id > ?");
+        StatementSummary insert = top.stream()
+                .filter(summary -> summary.getSql().startsWith("insert"))
+                .findFirst().get();
+        assertThat(insert.getCount()).isEqualTo(5);
+        assertThat(insert.getP99Micros()).isGreaterThanOrEqualTo(insert.getP50Micros());
+        assertThat(insert.getSlowCount()).isZero();
+    }
+
+    @Test
+    void detectRepeatedStatementsInRequest() {
+        //given
+        jdbcTemplate.execute("create table profiled (id bigint primary key, name varchar(10))");
+
+        //when
+        profiler.beginRequest("GET /items");
+        for (long id = 1; id <= 3; id++) {
+            jdbcTemplate.queryForList("select name from profiled where id = ?", id);
+        }
+        jdbcTemplate.queryForList("select name from profiled");
+        profiler.endRequest();
+
+        //요청 밖의 실행은 N+1 로 세지 않는다.
+        for (long id = 1; id <= 3; id++) {
+            jdbcTemplate.queryForList("select name from profiled where id = ?", id);
+        }
+
+        //then
+        assertThat(profiler.top(10))
+                .filteredOn(summary -> summary.getNPlusOneRequests() > 0)
+                .extracting(StatementSummary::getSql)
+                .containsExactly("select name from profiled where id = ?");
+    }
+}
@@ -2,6 +2,7 @@ package hello.itemservice.domain;
 
 import hello.itemservice.repository.ItemRepository;
 import hello.itemservice.repository.ItemSearchCond;
+import hello.itemservice.repository.ItemSort;
 import hello.itemservice.repository.ItemUpdateDto;
 import hello.itemservice.repository.memory.MemoryItemRepository;
 import org.junit.jupiter.api.AfterEach;
@@ -12,6 +13,8 @@ import org.springframework.test.annotation.Commit;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -70,6 +73,21 @@ class ItemRepositoryTest {
         assertThat(findItem).isEqualTo(savedItem);
     }
 
+    @Test
+    void saveAll() {
+        //given
+        List<Item> items = List.of(new Item("itemA", 10000, 10), new Item("itemB", 20000, 20));
+
+        //when
+        itemRepository.saveAll(items);
+
+        //then
+        for (Item item : items) {
+            assertThat(item.getId()).isNotNull();
+            assertThat(itemRepository.findById(item.getId()).get()).isEqualTo(item);
+        }
+    }
+
     @Test
     void updateItem() {
         //given
@@ -88,6 +106,41 @@ class ItemRepositoryTest {
         assertThat(findItem.getQuantity()).isEqualTo(updateParam.getQuantity());
     }
 
+    @Test
+    void reserveAndRelease() {
+        //given
+        Item savedItem = itemRepository.save(new Item("itemA", 10000, 10));
+        Long itemId = savedItem.getId();
+
+        //when
+        boolean reserved = itemRepository.reserve(itemId, 7);
+        boolean overReserved = itemRepository.reserve(itemId, 4);
+        boolean released = itemRepository.release(itemId, 2);
+
+        //then
+        assertThat(reserved).isTrue();
+        assertThat(overReserved).isFalse();
+        assertThat(released).isTrue();
+        assertThat(itemRepository.findById(itemId).get().getQuantity()).isEqualTo(5);
+        assertThat(itemRepository.reserve(-1L, 1)).isFalse();
+    }
+
+    @Test
+    void findAllByIds() {
+        //given
+        Item item1 = itemRepository.save(new Item("itemA", 10000, 10));
+        itemRepository.save(new Item("itemB", 20000, 20));
+        Item item3 = itemRepository.save(new Item("itemC", 30000, 30));
+
+        //when
+        //순서와 상관없이 id 순으로, 중복과 없는 id 는 빼고 반환한다.
+        List<Item> result = itemRepository.findAllByIds(List.of(item3.getId(), item1.getId(), item3.getId(), -1L));
+
+        //then
+        assertThat(result).containsExactly(item1, item3);
+        assertThat(itemRepository.findAllByIds(List.of())).isEmpty();
+    }
+
     // NOTE : 별도의 테스트용 데이터베이스를 생성하여 테스트를 진행해도 문제가 발생한다.
     //  ex) findItems() 메소드를 여러번 실행하면 데이터가 계속 쌓이며 테스트에 영향을 준다.
     //  테스트의 중요한 원칙
@@ -124,6 +177,118 @@ class ItemRepositoryTest {
         test("itemA", 10000, item1);
     }
 
+    @Test
+    void findViews() {
+        //given
+        Item item1 = itemRepository.save(new Item("itemA", 10000, 10));
+        Item item2 = itemRepository.save(new Item("itemB", 20000, 20));
+
+        //when
+        List<ItemView> views = itemRepository.findAllViews(new ItemSearchCond("item", 15000));
+        Optional<ItemView> view = itemRepository.findViewById(item2.getId());
+
+        //then
+        assertThat(views).containsExactly(ItemView.of(item1));
+        assertThat(view).contains(new ItemView(item2.getId(), "itemB", 20000, 20));
+        assertThat(itemRepository.findViewById(-1L)).isEmpty();
+    }
+
+    @Test
+    void findItemsByPage() {
+        //given
+        Item item1 = new Item("itemA-1", 10000, 10);
+        Item item2 = new Item("itemA-2", 20000, 20);
+        Item item3 = new Item("itemB-1", 30000, 30);
+
+        itemRepository.save(item1);
+        itemRepository.save(item2);
+        itemRepository.save(item3);
+
+        //when
+        List<Item> firstPage = itemRepository.findAll(new ItemSearchCond(null, null, null, 2));
+        List<Item> secondPage = itemRepository.findAll(new ItemSearchCond(null, null, item2.getId(), 2));
+
+        //then
+        assertThat(firstPage).containsExactly(item1, item2);
+        assertThat(secondPage).containsExactly(item3);
+        assertThat(itemRepository.findAll(new ItemSearchCond("item", 20000, item1.getId(), 2))).containsExactly(item2);
+    }
+
+    @Test
+    void findItemsByPriceRangeAndOrder() {
+        //given
+        Item item1 = new Item("itemA-1", 20000, 10);
+        Item item2 = new Item("itemA-2", 10000, 0);
+        Item item3 = new Item("itemB-1", 20000, 30);
+        Item item4 = new Item("itemB-2", 40000, 40);
+        Item item5 = new Item("itemC-1", null, 50);
+        itemRepository.saveAll(List.of(item1, item2, item3, item4, item5));
+
+        //when
+        ItemSearchCond range = new ItemSearchCond(null, 30000);
+        range.setMinPrice(15000);
+        ItemSearchCond inStock = new ItemSearchCond("item", null);
+        inStock.setMinQuantity(1);
+        ItemSearchCond cheapest = sorted(ItemSort.PRICE_ASC, 2);
+        ItemSearchCond mostExpensive = sorted(ItemSort.PRICE_DESC, 2);
+
+        //then
+        assertThat(itemRepository.findAll(range)).containsExactly(item1, item3);
+        assertThat(itemRepository.findAll(inStock)).containsExactly(item1, item3, item4, item5);
+        //가격이 같으면 id 순서를 따르며, 가격이 없는 상품은 가격순 정렬에서 빠진다.
+        assertThat(itemRepository.findAll(cheapest)).containsExactly(item2, item1);
+        assertThat(itemRepository.findAll(mostExpensive)).containsExactly(item4, item3);
+        try (Stream<Item> stream = itemRepository.streamAll(cheapest)) {
+            assertThat(stream).containsExactly(item2, item1, item3, item4);
+        }
+    }
+
+    @Test
+    void findItemsByPriceOrderPage() {
+        //given
+        Item item1 = new Item("itemA-1", 20000, 10);
+        Item item2 = new Item("itemA-2", 10000, 20);
+        Item item3 = new Item("itemB-1", 20000, 30);
+        Item item4 = new Item("itemB-2", 30000, 40);
+        itemRepository.saveAll(List.of(item1, item2, item3, item4));
+
+        //when
+        //다음 페이지는 이전 페이지의 마지막 (가격, id)를 커서로 넘긴다.
+        ItemSearchCond ascPage = sorted(ItemSort.PRICE_ASC, 2);
+        ascPage.setAfterPrice(item1.getPrice());
+        ascPage.setAfterId(item1.getId());
+        ItemSearchCond descPage = sorted(ItemSort.PRICE_DESC, 2);
+        descPage.setAfterPrice(item3.getPrice());
+        descPage.setAfterId(item3.getId());
+        descPage.setMinPrice(15000);
+
+        //then
+        assertThat(itemRepository.findAll(ascPage)).containsExactly(item3, item4);
+        assertThat(itemRepository.findAll(descPage)).containsExactly(item1);
+    }
+
+    @Test
+    void streamItems() {
+        //given
+        Item item1 = new Item("itemA-1", 10000, 10);
+        Item item2 = new Item("itemA-2", 20000, 20);
+        Item item3 = new Item("itemB-1", 30000, 30);
+        itemRepository.saveAll(List.of(item1, item2, item3));
+
+        //when
+        //streamAll()은 size 를 적용하지 않고 조건에 맞는 행을 모두 id 순으로 읽는다.
+        try (Stream<Item> stream = itemRepository.streamAll(new ItemSearchCond("itemA", null, null, 1))) {
+            //then
+            assertThat(stream).containsExactly(item1, item2);
+        }
+    }
+
+    ItemSearchCond sorted(ItemSort sort, int size) {
+        ItemSearchCond cond = new ItemSearchCond(null, null, null, size);
+        cond.setSort(sort);
+        return cond;
+    }
+
     void test(String itemName, Integer maxPrice, Item... items) {
         List<Item> result = itemRepository.findAll(new ItemSearchCond(itemName, maxPrice));
         assertThat(result).containsExactly(items);
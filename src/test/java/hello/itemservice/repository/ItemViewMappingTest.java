@@ -0,0 +1,89 @@
+package hello.itemservice.repository;
+
+import hello.itemservice.domain.Item;
+import hello.itemservice.domain.ItemView;
+import hello.itemservice.repository.jdbctemplate.JdbcTemplateItemRepositoryV1;
+import hello.itemservice.repository.jdbctemplate.JdbcTemplateItemRepositoryV2;
+import hello.itemservice.repository.jdbctemplate.JdbcTemplateItemRepositoryV3;
+import hello.itemservice.repository.mybatis.ItemMapper;
+import hello.itemservice.repository.mybatis.MyBatisItemRepository;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mybatis.spring.SqlSessionFactoryBean;
+import org.mybatis.spring.SqlSessionTemplate;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 값이 없는(null) 가격, 수량이 ItemView 로 바뀔 때 0 이 아닌 "값 없음"으로 남는지 DB 구현체마다 확인한다.
+ * NOTE : 구현체마다 ItemView 를 만드는 방법이 다르다. (ItemViewRowMapper, MyBatis 의 constructor resultMap)
+ */
+class ItemViewMappingTest {
+
+    EmbeddedDatabase database;
+
+    @BeforeEach
+    void beforeEach() {
+        database = new EmbeddedDatabaseBuilder()
+                .setType(EmbeddedDatabaseType.H2)
+                .generateUniqueName(true)
+                .build();
+        Flyway.configure().dataSource(database).load().migrate();
+    }
+
+    @AfterEach
+    void afterEach() {
+        database.shutdown();
+    }
+
+    @Test
+    void nullPriceAndQuantityStayEmpty() throws Exception {
+        //given
+        List<ItemRepository> repositories = List.of(
+                new JdbcTemplateItemRepositoryV1(database),
+                new JdbcTemplateItemRepositoryV2(database),
+                new JdbcTemplateItemRepositoryV3(database),
+                myBatisItemRepository());
+
+        for (ItemRepository repository : repositories) {
+            Item empty = repository.save(new Item("empty", null, null));
+            Item free = repository.save(new Item("free", 0, 0));
+
+            //when
+            ItemView emptyView = repository.findViewById(empty.getId()).orElseThrow();
+            ItemView freeView = repository.findViewById(free.getId()).orElseThrow();
+            List<ItemView> views = repository.findAllViews(new ItemSearchCond(null, null, empty.getId() - 1, 2));
+
+            //then
+            //가격 0 은 실제 값이고, 값이 없는 가격은 hasPrice() 가 false 다.
+            assertThat(emptyView.hasPrice()).as(repository.getClass().getSimpleName()).isFalse();
+            assertThat(emptyView.hasQuantity()).as(repository.getClass().getSimpleName()).isFalse();
+            assertThat(freeView.hasPrice()).isTrue();
+            assertThat(freeView.getPrice()).isZero();
+            assertThat(views).containsExactly(emptyView, freeView);
+            assertThat(views.get(0)).isEqualTo(ItemView.of(empty));
+        }
+    }
+
+    private MyBatisItemRepository myBatisItemRepository() throws Exception {
+        org.apache.ibatis.session.Configuration configuration = new org.apache.ibatis.session.Configuration();
+        configuration.setMapUnderscoreToCamelCase(true);
+        SqlSessionFactoryBean factoryBean = new SqlSessionFactoryBean();
+        factoryBean.setDataSource(database);
+        factoryBean.setConfiguration(configuration);
+        factoryBean.setTypeAliasesPackage("hello.itemservice.domain");
+        factoryBean.setMapperLocations(new ClassPathResource("hello/itemservice/repository/mybatis/itemMapper.xml"));
+        SqlSessionFactory sqlSessionFactory = factoryBean.getObject();
+        ItemMapper itemMapper = new SqlSessionTemplate(sqlSessionFactory).getMapper(ItemMapper.class);
+        return new MyBatisItemRepository(itemMapper, sqlSessionFactory);
+    }
+}
@@ -0,0 +1,192 @@
+package hello.itemservice.repository;
+
+import hello.itemservice.domain.Item;
+import hello.itemservice.repository.jdbctemplate.JdbcTemplateItemRepositoryV1;
+import hello.itemservice.repository.jdbctemplate.JdbcTemplateItemRepositoryV2;
+import hello.itemservice.repository.jdbctemplate.JdbcTemplateItemRepositoryV3;
+import hello.itemservice.repository.mybatis.ItemMapper;
+import hello.itemservice.repository.mybatis.MyBatisItemRepository;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mybatis.spring.SqlSessionFactoryBean;
+import org.mybatis.spring.SqlSessionTemplate;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 실행 계획(EXPLAIN) 회귀 테스트
+ * NOTE : 모든 DB 구현체의 메소드를 한 번씩 호출하면서 실제로 실행된 SQL 을 기록하고,
+ *  기록된 SQL 마다 H2 의 EXPLAIN 결과에 전체 테이블 스캔(tableScan)이 있으면 실패한다.
+ *  스키마는 애플리케이션과 같은 Flyway 마이그레이션(db/migration)으로 만든다.
+ */
+class QueryPlanTest {
+
+    EmbeddedDatabase database;
+    Set<String> executedSql = ConcurrentHashMap.newKeySet();
+    DataSource dataSource;
+
+    @BeforeEach
+    void beforeEach() {
+        database = new EmbeddedDatabaseBuilder()
+                .setType(EmbeddedDatabaseType.H2)
+                .generateUniqueName(true)
+                .build();
+        Flyway.configure().dataSource(database).load().migrate();
+        dataSource = recording(database, executedSql);
+    }
+
+    @AfterEach
+    void afterEach() {
+        database.shutdown();
+    }
+
+    @Test
+    void noTableScan() throws Exception {
+        //given
+        List<ItemRepository> repositories = List.of(
+                new JdbcTemplateItemRepositoryV1(dataSource),
+                new JdbcTemplateItemRepositoryV2(dataSource),
+                new JdbcTemplateItemRepositoryV3(dataSource),
+                myBatisItemRepository());
+
+        //when
+        for (ItemRepository repository : repositories) {
+            callEveryMethod(repository);
+        }
+
+        //then
+        Map<String, String> tableScans = new TreeMap<>();
+        try (Connection connection = database.getConnection()) {
+            for (String sql : executedSql) {
+                String plan = explain(connection, sql);
+                if (plan.contains("tableScan")) {
+                    tableScans.put(sql, plan);
+                }
+            }
+        }
+        assertThat(executedSql).isNotEmpty();
+        assertThat(tableScans).isEmpty();
+    }
+
+    private void callEveryMethod(ItemRepository repository) {
+        Item item = repository.save(new Item("itemA", 10000, 10));
+        repository.saveAll(List.of(new Item("itemB", 20000, 20), new Item("itemC", 30000, 30)));
+        repository.update(item.getId(), new ItemUpdateDto("itemA", 15000, 10));
+        repository.reserve(item.getId(), 1);
+        repository.release(item.getId(), 1);
+        repository.findById(item.getId());
+        repository.findAllByIds(List.of(item.getId()));
+        repository.findAllByIds(List.of(item.getId(), item.getId() + 1, item.getId() + 2));
+        repository.findViewById(item.getId());
+        for (ItemSearchCond cond : List.of(
+                new ItemSearchCond(),
+                new ItemSearchCond("item", null),
+                new ItemSearchCond(null, 20000),
+                new ItemSearchCond("item", 20000, item.getId(), 10),
+                sorted(ItemSort.PRICE_ASC, null, null),
+                sorted(ItemSort.PRICE_ASC, 15000, item.getId()),
+                sorted(ItemSort.PRICE_DESC, 15000, item.getId()))) {
+            repository.findAll(cond);
+            repository.findAllViews(cond);
+            try (Stream<Item> stream = repository.streamAll(cond)) {
+                stream.forEach(found -> {
+                });
+            }
+        }
+    }
+
+    /**
+     * 가격, 수량 범위 조건이 모두 들어간 가격순 검색. afterPrice, afterId 가 있으면 다음 페이지를 조회한다.
+     */
+    private static ItemSearchCond sorted(ItemSort sort, Integer afterPrice, Long afterId) {
+        ItemSearchCond cond = new ItemSearchCond("item", 30000, afterId, 10);
+        cond.setMinPrice(10000);
+        cond.setMinQuantity(1);
+        cond.setSort(sort);
+        cond.setAfterPrice(afterPrice);
+        return cond;
+    }
+
+    private static String explain(Connection connection, String sql) throws Exception {
+        try (PreparedStatement ps = connection.prepareStatement("explain " + sql)) {
+            //파라미터 값은 실행 계획에 영향을 주지 않으므로(H2 는 ?1, ?2 로 표시) 모두 1 로 채운다.
+            int count = ps.getParameterMetaData().getParameterCount();
+            for (int i = 1; i <= count; i++) {
+                ps.setObject(i, 1);
+            }
+            try (ResultSet rs = ps.executeQuery()) {
+                StringBuilder plan = new StringBuilder();
+                while (rs.next()) {
+                    plan.append(rs.getString(1));
+                }
+                return plan.toString();
+            }
+        }
+    }
+
+    private MyBatisItemRepository myBatisItemRepository() throws Exception {
+        org.apache.ibatis.session.Configuration configuration = new org.apache.ibatis.session.Configuration();
+        configuration.setMapUnderscoreToCamelCase(true);
+        SqlSessionFactoryBean factoryBean = new SqlSessionFactoryBean();
+        factoryBean.setDataSource(dataSource);
+        factoryBean.setConfiguration(configuration);
+        factoryBean.setTypeAliasesPackage("hello.itemservice.domain");
+        factoryBean.setMapperLocations(new ClassPathResource("hello/itemservice/repository/mybatis/itemMapper.xml"));
+        SqlSessionFactory sqlSessionFactory = factoryBean.getObject();
+        ItemMapper itemMapper = new SqlSessionTemplate(sqlSessionFactory).getMapper(ItemMapper.class);
+        return new MyBatisItemRepository(itemMapper, sqlSessionFactory);
+    }
+
+    /**
+     * prepareStatement()로 준비되는 SQL 을 sqls 에 기록하는 DataSource 프록시
+     */
+    private static DataSource recording(DataSource target, Set<String> sqls) {
+        return (DataSource) Proxy.newProxyInstance(QueryPlanTest.class.getClassLoader(), new Class[]{DataSource.class},
+                (proxy, method, args) -> {
+                    Object result = invoke(target, method, args);
+                    if (result instanceof Connection) {
+                        return recording((Connection) result, sqls);
+                    }
+                    return result;
+                });
+    }
+
+    private static Connection recording(Connection target, Set<String> sqls) {
+        return (Connection) Proxy.newProxyInstance(QueryPlanTest.class.getClassLoader(), new Class[]{Connection.class},
+                (proxy, method, args) -> {
+                    if (method.getName().equals("prepareStatement")) {
+                        sqls.add((String) args[0]);
+                    }
+                    return invoke(target, method, args);
+                });
+    }
+
+    private static Object invoke(Object target, java.lang.reflect.Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getTargetException();
+        }
+    }
+}
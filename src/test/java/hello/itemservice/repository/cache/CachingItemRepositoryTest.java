@@ -0,0 +1,94 @@
+package hello.itemservice.repository.cache;
+
+import hello.itemservice.domain.Item;
+import hello.itemservice.repository.ItemUpdateDto;
+import hello.itemservice.repository.memory.MemoryItemRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CachingItemRepositoryTest {
+
+    CountingRepository target = new CountingRepository();
+    CachingItemRepository itemRepository = new CachingItemRepository(target, 2, Duration.ofMinutes(1));
+
+    @Test
+    void findByIdHitsCache() {
+        //given
+        Item item = itemRepository.save(new Item("itemA", 10000, 10));
+
+        //when
+        itemRepository.findById(item.getId());
+        itemRepository.findById(item.getId()).get().setPrice(99999);
+
+        //then
+        assertThat(itemRepository.findById(item.getId()).get().getPrice()).isEqualTo(10000);
+        assertThat(target.findCount.get()).isZero();
+        assertThat(itemRepository.stats().hitCount()).isEqualTo(3);
+    }
+
+    @Test
+    void notFoundIsCached() {
+        //when
+        Optional<Item> first = itemRepository.findById(100L);
+        Optional<Item> second = itemRepository.findById(100L);
+
+        //then
+        assertThat(first).isEmpty();
+        assertThat(second).isEmpty();
+        assertThat(target.findCount.get()).isEqualTo(1);
+    }
+
+    @Test
+    void updateEvicts() {
+        //given
+        Item item = itemRepository.save(new Item("itemA", 10000, 10));
+
+        //when
+        itemRepository.update(item.getId(), new ItemUpdateDto("itemB", 20000, 20));
+
+        //then
+        assertThat(itemRepository.findById(item.getId()).get().getItemName()).isEqualTo("itemB");
+        assertThat(target.findCount.get()).isEqualTo(1);
+    }
+
+    @Test
+    void saveFillsCacheAfterCommit() {
+        //given
+        TransactionSynchronizationManager.initSynchronization();
+        Item item;
+        try {
+            item = itemRepository.save(new Item("itemA", 10000, 10));
+
+            //when
+            //커밋 전에는 다른 스레드가 캐시에서 저장 중인 상품을 보지 못하고 저장소에서 조회한다.
+            CompletableFuture.runAsync(() -> itemRepository.findById(item.getId())).join();
+            assertThat(target.findCount.get()).isEqualTo(1);
+            itemRepository.clear();
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        //then
+        assertThat(itemRepository.findById(item.getId())).isPresent();
+        assertThat(target.findCount.get()).isEqualTo(1);
+    }
+
+    static class CountingRepository extends MemoryItemRepository {
+        final AtomicInteger findCount = new AtomicInteger();
+
+        @Override
+        public Optional<Item> findById(Long id) {
+            findCount.incrementAndGet();
+            return super.findById(id);
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package hello.itemservice.repository.cache;
+
+import hello.itemservice.domain.Item;
+import hello.itemservice.repository.ItemSearchCond;
+import hello.itemservice.repository.ItemUpdateDto;
+import hello.itemservice.repository.memory.MemoryItemRepository;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SearchResultCachingItemRepositoryTest {
+
+    CountingRepository target = new CountingRepository();
+    SearchResultCachingItemRepository itemRepository = new SearchResultCachingItemRepository(target, 10);
+
+    @Test
+    void sameConditionHitsCache() {
+        //given
+        Item item = itemRepository.save(new Item("itemA", 10000, 10));
+
+        //when
+        //빈 상품명과 null, size 가 없는 조건과 기본 size 조건은 같은 검색으로 취급한다.
+        itemRepository.findAll(new ItemSearchCond("", null));
+        List<Item> result = itemRepository.findAll(new ItemSearchCond(null, null, null, ItemSearchCond.DEFAULT_PAGE_SIZE));
+
+        //then
+        assertThat(result).containsExactly(item);
+        assertThat(target.findAllCount.get()).isEqualTo(1);
+    }
+
+    @Test
+    void writeInvalidatesResults() {
+        //given
+        Item item = itemRepository.save(new Item("itemA", 10000, 10));
+        itemRepository.findAll(new ItemSearchCond("item", null));
+
+        //when
+        itemRepository.update(item.getId(), new ItemUpdateDto("goods", 10000, 10));
+
+        //then
+        assertThat(itemRepository.findAll(new ItemSearchCond("item", null))).isEmpty();
+        assertThat(target.findAllCount.get()).isEqualTo(2);
+    }
+
+    static class CountingRepository extends MemoryItemRepository {
+        final AtomicInteger findAllCount = new AtomicInteger();
+
+        @Override
+        public List<Item> findAll(ItemSearchCond cond) {
+            findAllCount.incrementAndGet();
+            return super.findAll(cond);
+        }
+    }
+}
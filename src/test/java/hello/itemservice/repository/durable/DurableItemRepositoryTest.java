@@ -0,0 +1,139 @@
+package hello.itemservice.repository.durable;
+
+import hello.itemservice.domain.Item;
+import hello.itemservice.repository.ItemSearchCond;
+import hello.itemservice.repository.ItemUpdateDto;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 닫지 않고 새로 여는 것으로 비정상 종료 후의 복구를 흉내 낸다.
+ */
+class DurableItemRepositoryTest {
+
+    //세그먼트 교체와 삭제가 일어나도록 작게 잡는다.
+    static final int SEGMENT_SIZE = 4096;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void recoverFromLogAfterCrash() {
+        //given
+        DurableItemRepository repository = open();
+        List<Item> saved = repository.saveAll(items(200));
+        Item itemA = saved.get(0);
+        repository.update(itemA.getId(), new ItemUpdateDto("itemA", 5000, 7));
+        repository.reserve(itemA.getId(), 2);
+        repository.release(saved.get(1).getId(), 3);
+
+        //when
+        DurableItemRepository recovered = open();
+
+        //then
+        assertThat(countAll(recovered)).isEqualTo(200);
+        Item foundA = recovered.findById(itemA.getId()).orElseThrow();
+        assertThat(foundA.getItemName()).isEqualTo("itemA");
+        assertThat(foundA.getPrice()).isEqualTo(5000);
+        assertThat(foundA.getQuantity()).isEqualTo(5);
+        assertThat(recovered.findById(saved.get(1).getId()).orElseThrow().getQuantity()).isEqualTo(13);
+        assertThat(recovered.save(new Item("next", 1, 1)).getId()).isGreaterThan(saved.get(199).getId());
+    }
+
+    @Test
+    void recoverFromSnapshotAndLogTail() throws IOException {
+        //given
+        DurableItemRepository repository = open();
+        List<Item> saved = repository.saveAll(items(200));
+        repository.snapshot();
+        repository.update(saved.get(0).getId(), new ItemUpdateDto("afterSnap", 1, 1));
+        Item tail = repository.save(new Item("tail", 2, 2));
+
+        //when
+        DurableItemRepository recovered = open();
+
+        //then
+        assertThat(snapshotFiles()).hasSize(1);
+        assertThat(countAll(recovered)).isEqualTo(201);
+        assertThat(recovered.findById(saved.get(0).getId()).orElseThrow().getItemName()).isEqualTo("afterSnap");
+        assertThat(recovered.findById(tail.getId())).isPresent();
+    }
+
+    @Test
+    void ignoreTornRecordAtTail() throws IOException {
+        //given
+        DurableItemRepository repository = open();
+        repository.saveAll(items(3));
+        repository.close();
+        Item last = open().save(new Item("last", 3, 3));
+        //마지막 레코드의 CRC 를 깨뜨려 기록 도중 멈춘 것처럼 만든다.
+        Path segment = lastSegment();
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer buffer = ByteBuffer.allocate(SEGMENT_SIZE);
+            channel.read(buffer, 0);
+            int position = 0;
+            int lastRecord = 0;
+            while (buffer.getInt(position) > 0) {
+                lastRecord = position;
+                position += WriteAheadLog.HEADER_BYTES + buffer.getInt(position);
+            }
+            channel.write(ByteBuffer.wrap(new byte[]{0x7f}), lastRecord + WriteAheadLog.HEADER_BYTES);
+        }
+
+        //when
+        DurableItemRepository recovered = open();
+        boolean lastRecovered = recovered.findById(last.getId()).isPresent();
+        Item afterRecovery = recovered.save(new Item("after", 4, 4));
+
+        //then
+        assertThat(lastRecovered).isFalse();
+        //끊긴 레코드 자리부터 이어서 기록한다.
+        assertThat(countAll(open())).isEqualTo(4);
+        assertThat(open().findById(afterRecovery.getId())).isPresent();
+    }
+
+    private DurableItemRepository open() {
+        return new DurableItemRepository(directory, true, SEGMENT_SIZE, Duration.ofMillis(10));
+    }
+
+    private int countAll(DurableItemRepository repository) {
+        try (Stream<Item> stream = repository.streamAll(new ItemSearchCond())) {
+            return (int) stream.count();
+        }
+    }
+
+    private List<Path> snapshotFiles() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> file.toString().endsWith(".snap")).collect(Collectors.toList());
+        }
+    }
+
+    private Path lastSegment() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> file.getFileName().toString().startsWith("wal-")).sorted()
+                    .reduce((first, second) -> second).orElseThrow();
+        }
+    }
+
+    private static List<Item> items(int size) {
+        List<Item> items = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            items.add(new Item("item" + i, 1000 + i, 10));
+        }
+        return items;
+    }
+}
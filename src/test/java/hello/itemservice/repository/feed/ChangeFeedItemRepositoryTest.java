@@ -0,0 +1,80 @@
+package hello.itemservice.repository.feed;
+
+import hello.itemservice.domain.Item;
+import hello.itemservice.repository.ItemUpdateDto;
+import hello.itemservice.repository.memory.MemoryItemRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ChangeFeedItemRepositoryTest {
+
+    ItemChangeFeed feed = new ItemChangeFeed(4);
+    ChangeFeedItemRepository itemRepository = new ChangeFeedItemRepository(new MemoryItemRepository(), feed);
+
+    @AfterEach
+    void afterEach() {
+        feed.close();
+    }
+
+    @Test
+    void publishChanges() {
+        //given
+        List<String> received = Collections.synchronizedList(new ArrayList<>());
+        ItemChangeFeed.Subscription subscription = feed.subscribe("test-subscriber",
+                (event, sequence, endOfBatch) -> received.add(event.getType() + ":" + event.getItemId() + ":"
+                        + event.getOldPrice() + ":" + event.getNewPrice() + ":" + event.getQuantityDelta()));
+
+        //when
+        Item item = itemRepository.save(new Item("itemA", 10000, 10));
+        itemRepository.update(item.getId(), new ItemUpdateDto("itemB", 20000, 30));
+        itemRepository.reserve(item.getId(), 3);
+        itemRepository.reserve(item.getId(), 100);
+        itemRepository.release(item.getId(), 2);
+        subscription.close();
+
+        //then
+        //재고가 부족해 실패한 reserve 는 발행되지 않는다.
+        long id = item.getId();
+        assertThat(received).containsExactly(
+                "SAVED:" + id + ":null:10000:0",
+                "UPDATED:" + id + ":10000:20000:0",
+                "RESERVED:" + id + ":null:null:-3",
+                "RELEASED:" + id + ":null:null:2");
+    }
+
+    @Test
+    void slowSubscriberAppliesBackpressure() {
+        //given
+        List<Long> received = Collections.synchronizedList(new ArrayList<>());
+        ItemChangeFeed.Subscription subscription = feed.subscribe("slow-subscriber", (event, sequence, endOfBatch) -> {
+            sleep();
+            received.add(event.getItemId());
+        });
+
+        //when
+        //버퍼(4칸)보다 많이 발행해도 덮어쓰지 않고 구독자를 기다린다.
+        List<Long> published = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            published.add(itemRepository.save(new Item("item" + i, 1000, 1)).getId());
+            assertThat(subscription.lag()).isLessThanOrEqualTo(feed.bufferSize());
+        }
+        subscription.close();
+
+        //then
+        assertThat(received).containsExactlyElementsOf(published);
+    }
+
+    private static void sleep() {
+        try {
+            Thread.sleep(2);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package hello.itemservice.repository.jdbctemplate;
+
+import hello.itemservice.domain.Item;
+import hello.itemservice.repository.ItemSearchCond;
+import hello.itemservice.repository.ItemUpdateDto;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 내장 H2 세 개를 샤드로 사용한다.
+ */
+class ShardedJdbcTemplateItemRepositoryTest {
+
+    static final int SHARDS = 3;
+
+    List<EmbeddedDatabase> databases = new ArrayList<>();
+    ExecutorService executor = Executors.newFixedThreadPool(SHARDS - 1);
+    ShardedJdbcTemplateItemRepository repository;
+
+    @BeforeEach
+    void beforeEach() {
+        for (int i = 0; i < SHARDS; i++) {
+            EmbeddedDatabase database = new EmbeddedDatabaseBuilder()
+                    .setType(EmbeddedDatabaseType.H2)
+                    .generateUniqueName(true)
+                    .build();
+            Flyway.configure().dataSource(database).load().migrate();
+            databases.add(database);
+        }
+        repository = new ShardedJdbcTemplateItemRepository(new ArrayList<DataSource>(databases), executor);
+    }
+
+    @AfterEach
+    void afterEach() {
+        executor.shutdown();
+        databases.forEach(EmbeddedDatabase::shutdown);
+    }
+
+    @Test
+    void saveSpreadsItemsByShardId() {
+        //when
+        List<Item> saved = repository.saveAll(items(30));
+        Item single = repository.save(new Item("single", 500, 1));
+
+        //then
+        for (int shard = 0; shard < SHARDS; shard++) {
+            int current = shard;
+            List<Long> ids = new JdbcTemplate(databases.get(shard)).queryForList("select id from item", Long.class);
+            assertThat(ids).isNotEmpty().allMatch(id -> id % SHARDS == current);
+        }
+        assertThat(saved).extracting(Item::getId).doesNotHaveDuplicates();
+        assertThat(repository.findById(single.getId())).get().extracting(Item::getItemName).isEqualTo("single");
+    }
+
+    @Test
+    void updateAndReserveGoToOwningShard() {
+        //given
+        Item item = repository.save(new Item("itemA", 1000, 10));
+
+        //when
+        repository.update(item.getId(), new ItemUpdateDto("itemB", 2000, 5));
+        boolean reserved = repository.reserve(item.getId(), 5);
+        boolean soldOut = repository.reserve(item.getId(), 1);
+
+        //then
+        assertThat(reserved).isTrue();
+        assertThat(soldOut).isFalse();
+        assertThat(repository.release(item.getId(), 2)).isTrue();
+        Item found = repository.findById(item.getId()).orElseThrow();
+        assertThat(found.getItemName()).isEqualTo("itemB");
+        assertThat(found.getQuantity()).isEqualTo(2);
+    }
+
+    @Test
+    void findAllMergesShardsById() {
+        //given
+        List<Long> ids = repository.saveAll(items(50)).stream()
+                .map(Item::getId).sorted().collect(Collectors.toList());
+
+        //when
+        List<Item> firstPage = repository.findAll(new ItemSearchCond(null, null, null, 20));
+        Long lastId = firstPage.get(firstPage.size() - 1).getId();
+        List<Item> secondPage = repository.findAll(new ItemSearchCond(null, null, lastId, 20));
+
+        //then
+        assertThat(firstPage).extracting(Item::getId).containsExactlyElementsOf(ids.subList(0, 20));
+        assertThat(secondPage).extracting(Item::getId).containsExactlyElementsOf(ids.subList(20, 40));
+        assertThat(repository.findAll(new ItemSearchCond("item1", 500, null, 100)))
+                .allMatch(item -> item.getItemName().contains("item1") && item.getPrice() <= 500);
+    }
+
+    @Test
+    void findAllByIdsQueriesOnlyOwningShards() {
+        //given
+        List<Item> saved = repository.saveAll(items(30));
+        List<Long> ids = saved.stream().map(Item::getId).filter(id -> id % SHARDS != 2).sorted().collect(Collectors.toList());
+        //마지막 샤드를 내려서 그 샤드로 쿼리가 가면 실패하게 만든다.
+        databases.get(2).shutdown();
+
+        //when
+        List<Item> found = repository.findAllByIds(ids);
+
+        //then
+        assertThat(found).extracting(Item::getId).containsExactlyElementsOf(ids);
+        assertThat(repository.findAllByIds(List.of())).isEmpty();
+    }
+
+    @Test
+    void streamAllMergesShardsById() {
+        //given
+        List<Long> ids = repository.saveAll(items(50)).stream()
+                .map(Item::getId).sorted().collect(Collectors.toList());
+
+        //when
+        List<Long> streamed;
+        try (Stream<Item> stream = repository.streamAll(new ItemSearchCond())) {
+            streamed = stream.map(Item::getId).collect(Collectors.toList());
+        }
+
+        //then
+        assertThat(streamed).containsExactlyElementsOf(ids);
+    }
+
+    private static List<Item> items(int size) {
+        List<Item> items = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            items.add(new Item("item" + i, (i + 1) * 20, 10));
+        }
+        return items;
+    }
+}
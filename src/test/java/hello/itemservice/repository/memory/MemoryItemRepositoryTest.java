@@ -0,0 +1,202 @@
+package hello.itemservice.repository.memory;
+
+import hello.itemservice.domain.Item;
+import hello.itemservice.repository.ItemSearchCond;
+import hello.itemservice.repository.ItemSort;
+import hello.itemservice.repository.ItemUpdateDto;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * MemoryItemRepository 의 동시성 검증
+ * NOTE : 스프링 컨테이너 없이 저장소 하나를 직접 만들어 여러 스레드에서 동시에 호출한다.
+ */
+class MemoryItemRepositoryTest {
+
+    private static final int THREADS = 32;
+
+    MemoryItemRepository itemRepository = new MemoryItemRepository();
+
+    @Test
+    void concurrentSave() throws Exception {
+        //given
+        int perThread = 1000;
+        Set<Long> ids = ConcurrentHashMap.newKeySet();
+
+        //when
+        runConcurrently(() -> {
+            for (int i = 0; i < perThread; i++) {
+                ids.add(itemRepository.save(new Item("item", 1000, 1)).getId());
+            }
+        });
+
+        //then
+        assertThat(ids).hasSize(THREADS * perThread);
+        assertThat(countAll()).isEqualTo(THREADS * perThread);
+    }
+
+    @Test
+    void priceRangeDuringConcurrentUpdate() throws Exception {
+        //given
+        Item item = itemRepository.save(new Item("itemA", 10000, 10));
+        Long itemId = item.getId();
+
+        //when
+        //가격을 10000 <-> 20000 으로 계속 바꾸는 동안 maxPrice=20000 조회는 항상 정확히 1건을 찾아야 한다.
+        List<Integer> sizes = new ArrayList<>();
+        runConcurrently(() -> {
+            for (int i = 0; i < 1000; i++) {
+                int price = (i % 2 == 0) ? 20000 : 10000;
+                itemRepository.update(itemId, new ItemUpdateDto("itemA", price, 10));
+                int size = itemRepository.findAll(new ItemSearchCond(null, 20000)).size();
+                if (size != 1) {
+                    synchronized (sizes) {
+                        sizes.add(size);
+                    }
+                }
+            }
+        });
+
+        //then
+        assertThat(sizes).isEmpty();
+    }
+
+    @Test
+    void concurrentReserve() throws Exception {
+        //given
+        int stock = 1000;
+        Item item = itemRepository.save(new Item("itemA", 10000, stock));
+        AtomicInteger reserved = new AtomicInteger();
+
+        //when
+        //재고보다 많은 요청이 동시에 들어와도 정확히 재고만큼만 성공해야 한다.
+        runConcurrently(() -> {
+            for (int i = 0; i < 100; i++) {
+                if (itemRepository.reserve(item.getId(), 1)) {
+                    reserved.incrementAndGet();
+                }
+            }
+        });
+
+        //then
+        assertThat(reserved.get()).isEqualTo(stock);
+        assertThat(itemRepository.findById(item.getId()).get().getQuantity()).isZero();
+    }
+
+    @Test
+    void nameIndexFollowsUpdate() {
+        //given
+        Item itemA = itemRepository.save(new Item("itemA-1", 10000, 10));
+        Item itemB = itemRepository.save(new Item("itemB-1", 20000, 20));
+
+        //when
+        itemRepository.update(itemA.getId(), new ItemUpdateDto("goodsA-1", 10000, 10));
+
+        //then
+        assertThat(itemRepository.findAll(new ItemSearchCond("item", null))).containsExactly(itemB);
+        assertThat(itemRepository.findAll(new ItemSearchCond("dsA", null))).extracting("id").containsExactly(itemA.getId());
+        assertThat(itemRepository.findAll(new ItemSearchCond("-1", 10000))).extracting("id").containsExactly(itemA.getId());
+    }
+
+    @Test
+    void priceOrderFollowsUpdate() {
+        //given
+        Item itemA = itemRepository.save(new Item("itemA", 10000, 10));
+        Item itemB = itemRepository.save(new Item("itemB", 20000, 20));
+        Item itemC = itemRepository.save(new Item("itemC", 30000, 30));
+        ItemSearchCond cond = new ItemSearchCond();
+        cond.setSort(ItemSort.PRICE_DESC);
+
+        //when
+        itemRepository.update(itemA.getId(), new ItemUpdateDto("itemA", 25000, 10));
+
+        //then
+        //가격 인덱스의 이전 키로 중복되거나 이전 가격의 위치에 나오지 않는다.
+        assertThat(itemRepository.findAll(cond)).extracting("id")
+                .containsExactly(itemC.getId(), itemA.getId(), itemB.getId());
+        cond.setAfterPrice(25000);
+        cond.setAfterId(itemA.getId());
+        cond.setMaxPrice(40000);
+        assertThat(itemRepository.findAll(cond)).extracting("id").containsExactly(itemB.getId());
+    }
+
+    @Test
+    void wideIndexRangeFallsBackToIdOrder() {
+        //given
+        for (int i = 1; i <= 10_000; i++) {
+            itemRepository.save(new Item("item" + i, i, 1));
+        }
+
+        //when
+        //가격 범위와 상품명 후보가 넓으면 id 순서로 읽고, 좁으면 인덱스로 읽는다. 어느 쪽이든 결과는 같아야 한다.
+        List<Item> widePrice = itemRepository.findAll(new ItemSearchCond(null, 9000, 5L, 10));
+        List<Item> wideName = itemRepository.findAll(new ItemSearchCond("item", null, 5L, 10));
+        ItemSearchCond narrow = new ItemSearchCond(null, 5005, 5001L, 10);
+        narrow.setMinPrice(5000);
+        List<Item> narrowPrice = itemRepository.findAll(narrow);
+
+        //then
+        assertThat(widePrice).extracting(Item::getId).containsExactly(6L, 7L, 8L, 9L, 10L, 11L, 12L, 13L, 14L, 15L);
+        assertThat(wideName).extracting(Item::getId).containsExactly(6L, 7L, 8L, 9L, 10L, 11L, 12L, 13L, 14L, 15L);
+        assertThat(narrowPrice).extracting(Item::getId).containsExactly(5002L, 5003L, 5004L, 5005L);
+        assertThat(itemRepository.findAll(new ItemSearchCond("item9999", null))).extracting(Item::getId).containsExactly(9999L);
+    }
+
+    @Test
+    void returnedItemIsNotShared() {
+        //given
+        Item item = itemRepository.save(new Item("itemA", 10000, 10));
+
+        //when
+        Item findItem = itemRepository.findById(item.getId()).get();
+        findItem.setPrice(99999);
+
+        //then
+        assertThat(itemRepository.findById(item.getId()).get().getPrice()).isEqualTo(10000);
+    }
+
+    private int countAll() {
+        int count = 0;
+        Long afterId = null;
+        while (true) {
+            List<Item> page = itemRepository.findAll(new ItemSearchCond(null, null, afterId, ItemSearchCond.MAX_PAGE_SIZE));
+            count += page.size();
+            if (page.size() < ItemSearchCond.MAX_PAGE_SIZE) {
+                return count;
+            }
+            afterId = page.get(page.size() - 1).getId();
+        }
+    }
+
+    private void runConcurrently(Runnable task) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        try {
+            for (int i = 0; i < THREADS; i++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    task.run();
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
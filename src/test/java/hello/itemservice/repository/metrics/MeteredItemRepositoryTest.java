@@ -0,0 +1,55 @@
+package hello.itemservice.repository.metrics;
+
+import hello.itemservice.domain.Item;
+import hello.itemservice.repository.ItemSearchCond;
+import hello.itemservice.repository.ItemUpdateDto;
+import hello.itemservice.repository.memory.MemoryItemRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.NoSuchElementException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MeteredItemRepositoryTest {
+
+    SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    MeteredItemRepository itemRepository = new MeteredItemRepository(new MemoryItemRepository(), registry, MemoryItemRepository.class);
+
+    @Test
+    void findAllIsTaggedByShape() {
+        //given
+        itemRepository.save(new Item("itemA", 10000, 10));
+
+        //when
+        itemRepository.findAll(new ItemSearchCond("item", null));
+        itemRepository.findAll(new ItemSearchCond("item", 20000));
+
+        //then
+        assertThat(registry.get(MeteredItemRepository.METRIC_NAME)
+                .tags("impl", "MemoryItemRepository", "method", "findAll", "shape", "name")
+                .timer().count()).isEqualTo(1);
+        assertThat(registry.get(MeteredItemRepository.METRIC_NAME)
+                .tags("method", "findAll", "shape", "name_and_price")
+                .timer().count()).isEqualTo(1);
+        assertThat(registry.get(MeteredItemRepository.METRIC_NAME)
+                .tags("method", "save", "shape", "n/a")
+                .timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void failureIsCounted() {
+        //when
+        assertThatThrownBy(() -> itemRepository.update(999L, new ItemUpdateDto("itemA", 10000, 10)))
+                .isInstanceOf(NoSuchElementException.class);
+
+        //then
+        assertThat(registry.get(MeteredItemRepository.METRIC_NAME + ".errors")
+                .tags("method", "update", "exception", "NoSuchElementException")
+                .counter().count()).isEqualTo(1);
+        assertThat(registry.get(MeteredItemRepository.METRIC_NAME)
+                .tags("method", "update")
+                .timer().count()).isEqualTo(1);
+    }
+}
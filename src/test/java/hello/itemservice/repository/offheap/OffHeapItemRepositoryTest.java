@@ -0,0 +1,153 @@
+package hello.itemservice.repository.offheap;
+
+import hello.itemservice.domain.Item;
+import hello.itemservice.repository.ItemSearchCond;
+import hello.itemservice.repository.ItemUpdateDto;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class OffHeapItemRepositoryTest {
+
+    private static final int THREADS = 8;
+
+    OffHeapItemRepository itemRepository = new OffHeapItemRepository();
+
+    @Test
+    void saveAndFindAcrossChunks() {
+        //given
+        //한 chunk(65536 행)를 넘겨서 저장한다.
+        List<Item> items = new ArrayList<>();
+        for (int i = 0; i < 70_000; i++) {
+            items.add(new Item("item" + i, i % 1000, 1));
+        }
+        itemRepository.saveAll(items);
+        Item nullable = itemRepository.save(new Item(null, null, null));
+
+        //when
+        List<Item> byPrice = itemRepository.findAll(new ItemSearchCond(null, 0, 65_000L, 100));
+        List<Item> byName = itemRepository.findAll(new ItemSearchCond("item6999", null, null, 100));
+
+        //then
+        assertThat(byPrice).extracting(Item::getId).containsExactly(65_001L, 66_001L, 67_001L, 68_001L, 69_001L);
+        assertThat(byName).extracting(Item::getItemName).containsExactly("item6999", "item69990", "item69991",
+                "item69992", "item69993", "item69994", "item69995", "item69996", "item69997", "item69998", "item69999");
+        Item found = itemRepository.findById(nullable.getId()).orElseThrow();
+        assertThat(found.getItemName()).isNull();
+        assertThat(found.getPrice()).isNull();
+        assertThat(itemRepository.findById(nullable.getId() + 1)).isEmpty();
+    }
+
+    @Test
+    void updateReplacesColumns() {
+        //given
+        Item itemA = itemRepository.save(new Item("itemA", 10000, 10));
+        Item itemB = itemRepository.save(new Item("itemB", 20000, 20));
+
+        //when
+        itemRepository.update(itemA.getId(), new ItemUpdateDto("상품A", 30000, 5));
+
+        //then
+        assertThat(itemRepository.findAll(new ItemSearchCond("item", null))).extracting(Item::getId)
+                .containsExactly(itemB.getId());
+        assertThat(itemRepository.findAll(new ItemSearchCond("품A", 30000))).extracting(Item::getItemName)
+                .containsExactly("상품A");
+        try (Stream<Item> stream = itemRepository.streamAll(new ItemSearchCond(null, 25000))) {
+            assertThat(stream.map(Item::getId).collect(Collectors.toList())).containsExactly(itemB.getId());
+        }
+    }
+
+    @Test
+    void renameCountsWastedBytes() {
+        //given
+        Item item = itemRepository.save(new Item("itemA", 10000, 10));
+        long before = itemRepository.offHeapBytes();
+
+        //when
+        //이름이 그대로인 수정은 새로 기록하지 않는다.
+        itemRepository.update(item.getId(), new ItemUpdateDto("itemA", 20000, 10));
+        long unchanged = itemRepository.offHeapBytes();
+        itemRepository.update(item.getId(), new ItemUpdateDto("itemB", 20000, 10));
+
+        //then
+        assertThat(unchanged).isEqualTo(before);
+        assertThat(itemRepository.wastedNameBytes()).isEqualTo(Integer.BYTES + "itemA".length());
+        assertThat(itemRepository.findById(item.getId())).map(Item::getItemName).contains("itemB");
+    }
+
+    @Test
+    void priceRangeDuringConcurrentUpdate() throws Exception {
+        //given
+        Item item = itemRepository.save(new Item("itemA", 10000, 10));
+        Long itemId = item.getId();
+        AtomicInteger wrongSizes = new AtomicInteger();
+
+        //when
+        runConcurrently(() -> {
+            for (int i = 0; i < 1000; i++) {
+                int price = (i % 2 == 0) ? 20000 : 10000;
+                itemRepository.update(itemId, new ItemUpdateDto("itemA", price, 10));
+                if (itemRepository.findAll(new ItemSearchCond("itemA", 20000)).size() != 1) {
+                    wrongSizes.incrementAndGet();
+                }
+            }
+        });
+
+        //then
+        assertThat(wrongSizes.get()).isZero();
+    }
+
+    @Test
+    void concurrentReserve() throws Exception {
+        //given
+        int stock = 500;
+        Item item = itemRepository.save(new Item("itemA", 10000, stock));
+        AtomicInteger reserved = new AtomicInteger();
+
+        //when
+        runConcurrently(() -> {
+            for (int i = 0; i < 100; i++) {
+                if (itemRepository.reserve(item.getId(), 1)) {
+                    reserved.incrementAndGet();
+                }
+            }
+        });
+
+        //then
+        assertThat(reserved.get()).isEqualTo(stock);
+        assertThat(itemRepository.findById(item.getId()).orElseThrow().getQuantity()).isZero();
+        assertThat(itemRepository.release(item.getId(), 3)).isTrue();
+        assertThat(itemRepository.findById(item.getId()).orElseThrow().getQuantity()).isEqualTo(3);
+    }
+
+    private void runConcurrently(Runnable task) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        try {
+            for (int i = 0; i < THREADS; i++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    task.run();
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package hello.itemservice.repository.suggest;
+
+import hello.itemservice.domain.Item;
+import hello.itemservice.repository.ItemUpdateDto;
+import hello.itemservice.repository.memory.MemoryItemRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class NameSuggestIndexTest {
+
+    NameSuggestIndex index = new NameSuggestIndex(4);
+
+    @AfterEach
+    void afterEach() {
+        index.close();
+    }
+
+    @Test
+    void suggestSortedPrefixMatches() {
+        //given
+        index.load(Arrays.asList("itemC", "itemA", "book", "itemB", "itemA", null).iterator());
+
+        //when
+        //then
+        //같은 상품명은 한 번만 나온다.
+        assertThat(index.suggest("item", 10)).containsExactly("itemA", "itemB", "itemC");
+        assertThat(index.suggest("item", 2)).containsExactly("itemA", "itemB");
+        assertThat(index.suggest("b", 10)).containsExactly("book");
+        assertThat(index.suggest("x", 10)).isEmpty();
+        assertThat(index.suggest("", 10)).isEmpty();
+        assertThat(index.baseSize()).isEqualTo(4);
+    }
+
+    @Test
+    void mergeChangesBeforeAndAfterCompaction() {
+        //given
+        index.load(Arrays.asList("itemA", "itemA", "itemC").iterator());
+
+        //when
+        index.add("itemB");
+        index.remove("itemC");
+        index.remove("itemA");
+
+        //then
+        //itemA 는 상품이 하나 남아 있고, itemC 는 남은 상품이 없다.
+        assertThat(index.suggest("item", 10)).containsExactly("itemA", "itemB");
+        index.compact();
+        assertThat(index.suggest("item", 10)).containsExactly("itemA", "itemB");
+        assertThat(index.baseSize()).isEqualTo(2);
+    }
+
+    @Test
+    void codePointOrder() {
+        //given
+        //"😀"(U+1F600)은 UTF-16 으로는 "！"보다 앞서지만 code point 로는 뒤에 온다.
+        index.load(Arrays.asList("a😀", "a！", "가방", "가구").iterator());
+        index.add("aé");
+
+        //when
+        //then
+        assertThat(index.suggest("a", 10)).containsExactly("aé", "a！", "a😀");
+        assertThat(index.suggest("가", 10)).containsExactly("가구", "가방");
+        index.compact();
+        assertThat(index.suggest("a", 10)).containsExactly("aé", "a！", "a😀");
+    }
+
+    @Test
+    void syncWithRepository() {
+        //given
+        SuggestIndexItemRepository itemRepository = new SuggestIndexItemRepository(new MemoryItemRepository(), index);
+        Item itemA = itemRepository.save(new Item("itemA", 10000, 10));
+        itemRepository.save(new Item("itemB", 20000, 20));
+
+        //when
+        itemRepository.update(itemA.getId(), new ItemUpdateDto("bookA", 10000, 10));
+
+        //then
+        assertThat(index.suggest("item", 10)).containsExactly("itemB");
+        assertThat(index.suggest("book", 10)).containsExactly("bookA");
+    }
+
+    @Test
+    void renameFromNullName() {
+        //given
+        SuggestIndexItemRepository itemRepository = new SuggestIndexItemRepository(new MemoryItemRepository(), index);
+        Item item = itemRepository.save(new Item(null, 10000, 10));
+
+        //when
+        itemRepository.update(item.getId(), new ItemUpdateDto("itemA", 10000, 10));
+
+        //then
+        assertThat(index.suggest("item", 10)).containsExactly("itemA");
+    }
+}
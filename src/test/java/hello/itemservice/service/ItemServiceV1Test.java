@@ -0,0 +1,97 @@
+package hello.itemservice.service;
+
+import hello.itemservice.domain.Item;
+import hello.itemservice.repository.memory.MemoryItemRepository;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ItemServiceV1Test {
+
+    @Test
+    void coalesceConcurrentFindById() throws Exception {
+        //given
+        AtomicInteger findAllByIdsCalls = new AtomicInteger();
+        MemoryItemRepository itemRepository = new MemoryItemRepository() {
+            @Override
+            public List<Item> findAllByIds(Collection<Long> ids) {
+                findAllByIdsCalls.incrementAndGet();
+                return super.findAllByIds(ids);
+            }
+        };
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            ids.add(itemRepository.save(new Item("item" + i, 1000 * i, i)).getId());
+        }
+        ItemServiceV1 itemService = new ItemServiceV1(itemRepository, Duration.ofMillis(200));
+
+        //when
+        //8개 스레드가 동시에 조회하고 그중 하나는 없는 id 를 조회한다.
+        ExecutorService executor = Executors.newFixedThreadPool(ids.size());
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Optional<Item>>> futures = new ArrayList<>();
+        for (int i = 0; i < ids.size(); i++) {
+            long id = i == 0 ? -1L : ids.get(i);
+            futures.add(executor.submit(() -> {
+                start.await();
+                return itemService.findById(id);
+            }));
+        }
+        start.countDown();
+        List<Optional<Item>> results = new ArrayList<>();
+        for (Future<Optional<Item>> future : futures) {
+            results.add(future.get());
+        }
+        executor.shutdown();
+
+        //then
+        assertThat(findAllByIdsCalls.get()).isEqualTo(1);
+        assertThat(results.get(0)).isEmpty();
+        for (int i = 1; i < ids.size(); i++) {
+            assertThat(results.get(i).orElseThrow().getId()).isEqualTo(ids.get(i));
+        }
+    }
+
+    @Test
+    void errorReachesEveryWaiter() throws Exception {
+        //given
+        MemoryItemRepository itemRepository = new MemoryItemRepository() {
+            @Override
+            public List<Item> findAllByIds(Collection<Long> ids) {
+                throw new AssertionError("broken");
+            }
+        };
+        ItemServiceV1 itemService = new ItemServiceV1(itemRepository, Duration.ofMillis(200));
+
+        //when
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        List<Future<Optional<Item>>> futures = new ArrayList<>();
+        for (long id = 1; id <= 4; id++) {
+            long target = id;
+            futures.add(executor.submit(() -> itemService.findById(target)));
+        }
+
+        //then
+        //Error 로 실패해도 기다리던 스레드가 모두 깨어나 같은 Error 를 받는다.
+        for (Future<Optional<Item>> future : futures) {
+            assertThatThrownBy(() -> future.get(5, TimeUnit.SECONDS))
+                    .isInstanceOf(ExecutionException.class)
+                    .hasCauseInstanceOf(AssertionError.class);
+        }
+        executor.shutdown();
+    }
+}
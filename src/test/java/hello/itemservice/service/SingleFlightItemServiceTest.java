@@ -0,0 +1,168 @@
+package hello.itemservice.service;
+
+import hello.itemservice.datasource.ReadYourWrites;
+import hello.itemservice.domain.Item;
+import hello.itemservice.repository.ItemSearchCond;
+import hello.itemservice.repository.memory.MemoryItemRepository;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SingleFlightItemServiceTest {
+
+    //첫 번째 findAll 은 release 될 때까지 멈춰 있고, failNext 가 true 면 실패한다. (errorNext 는 Error 로 실패)
+    CountDownLatch release = new CountDownLatch(1);
+    AtomicInteger findAllCalls = new AtomicInteger();
+    AtomicBoolean failNext = new AtomicBoolean();
+    AtomicBoolean errorNext = new AtomicBoolean();
+    MemoryItemRepository itemRepository = new MemoryItemRepository() {
+        @Override
+        public List<Item> findAll(ItemSearchCond cond) {
+            findAllCalls.incrementAndGet();
+            await(release);
+            if (failNext.getAndSet(false)) {
+                throw new IllegalStateException("db down");
+            }
+            if (errorNext.getAndSet(false)) {
+                throw new Error("driver crashed");
+            }
+            return super.findAll(cond);
+        }
+    };
+    SingleFlightItemService itemService = new SingleFlightItemService(new ItemServiceV1(itemRepository), Duration.ofSeconds(5));
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+
+    @Test
+    void shareInFlightQuery() throws Exception {
+        //given
+        itemRepository.save(new Item("itemA", 10000, 10));
+        itemRepository.save(new Item("itemB", 20000, 20));
+
+        //when
+        //빈 상품명과 null 은 같은 검색 조건이다.
+        List<Future<List<Item>>> futures = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            ItemSearchCond cond = new ItemSearchCond(i % 2 == 0 ? "" : null, 15000);
+            futures.add(executor.submit(() -> itemService.findItems(cond)));
+        }
+        awaitInFlight();
+        release.countDown();
+
+        //then
+        for (Future<List<Item>> future : futures) {
+            assertThat(future.get()).extracting(Item::getItemName).containsExactly("itemA");
+        }
+        assertThat(findAllCalls.get()).isEqualTo(1);
+        //함께 받은 결과는 복사본이다.
+        assertThat(futures.get(0).get().get(0)).isNotSameAs(futures.get(1).get().get(0));
+        executor.shutdown();
+    }
+
+    @Test
+    void failureIsNotReused() throws Exception {
+        //given
+        failNext.set(true);
+        ItemSearchCond cond = new ItemSearchCond("item", null);
+
+        //when
+        List<Future<List<Item>>> futures = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            futures.add(executor.submit(() -> itemService.findItems(cond)));
+        }
+        awaitInFlight();
+        release.countDown();
+
+        //then
+        for (Future<List<Item>> future : futures) {
+            assertThatThrownBy(future::get).isInstanceOf(ExecutionException.class)
+                    .hasRootCauseMessage("db down");
+        }
+        //실패한 조회는 지워졌으므로 다음 요청은 새로 조회한다.
+        assertThat(itemService.findItems(cond)).isEmpty();
+        assertThat(findAllCalls.get()).isEqualTo(2);
+        executor.shutdown();
+    }
+
+    @Test
+    void errorReachesEveryWaiter() throws Exception {
+        //given
+        errorNext.set(true);
+        ItemSearchCond cond = new ItemSearchCond("item", null);
+
+        //when
+        List<Future<List<Item>>> futures = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            futures.add(executor.submit(() -> itemService.findItems(cond)));
+        }
+        awaitInFlight();
+        release.countDown();
+
+        //then
+        //기다리던 요청은 timeout(5초)까지 묶이지 않고 같은 Error 를 받는다.
+        for (Future<List<Item>> future : futures) {
+            assertThatThrownBy(() -> future.get(1, TimeUnit.SECONDS)).isInstanceOf(ExecutionException.class)
+                    .hasRootCauseMessage("driver crashed");
+        }
+        assertThat(findAllCalls.get()).isEqualTo(1);
+        executor.shutdown();
+    }
+
+    @Test
+    void markedRequestDoesNotShare() throws Exception {
+        //given
+        itemRepository.save(new Item("itemA", 10000, 10));
+        ItemSearchCond cond = new ItemSearchCond("item", null);
+        Future<List<Item>> first = executor.submit(() -> itemService.findItems(cond));
+        awaitInFlight();
+
+        //when
+        //쓰기를 한 요청은 진행 중인 조회를 기다리지 않고 직접 조회한다.
+        Future<List<Item>> marked = executor.submit(() -> {
+            ReadYourWrites.mark();
+            try {
+                return itemService.findItems(cond);
+            } finally {
+                ReadYourWrites.clear();
+            }
+        });
+        TimeUnit.MILLISECONDS.sleep(200);
+        int callsBeforeRelease = findAllCalls.get();
+        release.countDown();
+
+        //then
+        assertThat(callsBeforeRelease).isEqualTo(2);
+        assertThat(marked.get()).extracting(Item::getItemName).containsExactly("itemA");
+        assertThat(first.get()).extracting(Item::getItemName).containsExactly("itemA");
+        assertThat(itemService.sharedCount()).isZero();
+        executor.shutdown();
+    }
+
+    /**
+     * 나머지 요청이 모두 첫 번째 조회를 기다리는 상태가 되도록 잠시 기다린다. 직접 조회했다면 findAllCalls 가 늘어난다.
+     */
+    private void awaitInFlight() throws InterruptedException {
+        TimeUnit.MILLISECONDS.sleep(200);
+        assertThat(findAllCalls.get()).isEqualTo(1);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
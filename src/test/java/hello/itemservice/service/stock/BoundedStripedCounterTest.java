@@ -0,0 +1,59 @@
+package hello.itemservice.service.stock;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BoundedStripedCounterTest {
+
+    @Test
+    void neverGoesBelowZero() throws Exception {
+        //given
+        BoundedStripedCounter counter = new BoundedStripedCounter(8);
+        int threads = 16;
+        AtomicLong acquired = new AtomicLong();
+
+        //when
+        //스레드마다 자기 칸에 100 을 넣고 자기 칸, 다른 칸에서 150 번 차감을 시도한다.
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            futures.add(executor.submit(() -> {
+                counter.add(100);
+                for (int j = 0; j < 150; j++) {
+                    if (counter.tryAcquire(1) || counter.tryAcquireAny(1)) {
+                        acquired.incrementAndGet();
+                    }
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        //then
+        assertThat(acquired.get() + counter.sum()).isEqualTo(threads * 100L);
+        assertThat(counter.drain()).isEqualTo(threads * 100L - acquired.get());
+        assertThat(counter.sum()).isZero();
+    }
+
+    @Test
+    void tryAcquireUsesOwnStripeOnly() {
+        //given
+        BoundedStripedCounter counter = new BoundedStripedCounter(4);
+        counter.add(5);
+
+        //when, then
+        assertThat(counter.tryAcquire(6)).isFalse();
+        assertThat(counter.tryAcquire(5)).isTrue();
+        assertThat(counter.tryAcquireAny(1)).isFalse();
+    }
+}
@@ -0,0 +1,130 @@
+package hello.itemservice.service.stock;
+
+import hello.itemservice.domain.Item;
+import hello.itemservice.domain.ItemView;
+import hello.itemservice.repository.ItemSearchCond;
+import hello.itemservice.repository.ItemUpdateDto;
+import hello.itemservice.repository.memory.MemoryItemRepository;
+import hello.itemservice.service.ItemServiceV1;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class HotStockItemServiceTest {
+
+    MemoryItemRepository itemRepository = new MemoryItemRepository();
+
+    @Test
+    void neverOversells() throws Exception {
+        //given
+        int stock = 1000;
+        Item item = itemRepository.save(new Item("itemA", 10000, stock));
+        HotStockItemService itemService = new HotStockItemService(new ItemServiceV1(itemRepository), Set.of(item.getId()), 10);
+        AtomicInteger reserved = new AtomicInteger();
+
+        //when
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < 16; i++) {
+            futures.add(executor.submit(() -> {
+                for (int j = 0; j < 100; j++) {
+                    if (itemService.reserve(item.getId(), 1)) {
+                        reserved.incrementAndGet();
+                    }
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+        itemService.close();
+
+        //then
+        //정산이 끝나면 DB 재고 + 판매량 = 처음 재고
+        assertThat(reserved.get()).isLessThanOrEqualTo(stock);
+        assertThat(itemRepository.findById(item.getId()).get().getQuantity()).isEqualTo(stock - reserved.get());
+    }
+
+    @Test
+    void leaseAndReconcile() {
+        //given
+        Item item = itemRepository.save(new Item("itemA", 10000, 100));
+        HotStockItemService itemService = new HotStockItemService(new ItemServiceV1(itemRepository), Set.of(item.getId()), 30);
+
+        //when
+        itemService.reserve(item.getId(), 5);
+        itemService.release(item.getId(), 2);
+
+        //then
+        //DB 에서는 lease 만큼 차감되어 있지만(취소분은 바로 돌려받는다) 조회할 때는 메모리의 재고를 더해서 보여준다.
+        assertThat(itemRepository.findById(item.getId()).get().getQuantity()).isEqualTo(72);
+        assertThat(itemService.findById(item.getId()).get().getQuantity()).isEqualTo(97);
+        //목록과 상세 화면도 같은 재고를 보여준다.
+        assertThat(itemService.findItems(new ItemSearchCond())).extracting(Item::getQuantity).containsExactly(97);
+        assertThat(itemService.findItemViews(new ItemSearchCond())).extracting(ItemView::getQuantity).containsExactly(97);
+        assertThat(itemService.findItemView(item.getId()).get().getQuantity()).isEqualTo(97);
+
+        itemService.reconcile();
+        assertThat(itemRepository.findById(item.getId()).get().getQuantity()).isEqualTo(97);
+    }
+
+    @Test
+    void updateDuringReconcile() throws Exception {
+        //given
+        Item item = itemRepository.save(new Item("itemA", 10000, 100));
+        HotStockItemService itemService = new HotStockItemService(new ItemServiceV1(itemRepository), Set.of(item.getId()), 30);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        CyclicBarrier barrier = new CyclicBarrier(2);
+
+        for (int i = 0; i < 1000; i++) {
+            //메모리에 lease 한 재고(29)를 남겨 두고 수정과 정산을 동시에 실행한다.
+            itemService.reserve(item.getId(), 1);
+
+            //when
+            Future<?> update = executor.submit(() -> {
+                barrier.await();
+                itemService.update(item.getId(), new ItemUpdateDto("itemA", 10000, 100));
+                return null;
+            });
+            Future<?> reconcile = executor.submit(() -> {
+                barrier.await();
+                itemService.reconcile();
+                return null;
+            });
+            update.get();
+            reconcile.get();
+            itemService.reconcile();
+
+            //then
+            //정산이 돌려준 재고가 수정한 재고에 더해지면 안 된다.
+            assertThat(itemRepository.findById(item.getId()).get().getQuantity()).isEqualTo(100);
+        }
+        executor.shutdown();
+    }
+
+    @Test
+    void rejectNonPositiveReserve() {
+        //given
+        Item item = itemRepository.save(new Item("itemA", 10000, 100));
+        HotStockItemService itemService = new HotStockItemService(new ItemServiceV1(itemRepository), Set.of(item.getId()), 30);
+
+        //when
+        assertThatThrownBy(() -> itemService.reserve(item.getId(), -5)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> itemService.reserve(item.getId(), 0)).isInstanceOf(IllegalArgumentException.class);
+        itemService.reconcile();
+
+        //then
+        assertThat(itemRepository.findById(item.getId()).get().getQuantity()).isEqualTo(100);
+    }
+}
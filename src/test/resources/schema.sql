@@ -1,9 +0,0 @@
-drop table if exists item CASCADE;
-create table item
-(
-    id          bigint generated by default as identity,
-    item_name   varchar(10),
-    price       integer,
-    quantity    integer,
-    primary key (id)
-);
\ No newline at end of file